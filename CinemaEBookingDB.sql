@@ -103,7 +103,8 @@ CREATE TABLE Showtimes (
     showroom_id VARCHAR(50) NOT NULL,
     showtime TIME,
     FOREIGN KEY (movie_id) REFERENCES Movies(movie_id),
-    FOREIGN KEY (showroom_id) REFERENCES Showrooms(showroom_id)
+    FOREIGN KEY (showroom_id) REFERENCES Showrooms(showroom_id),
+    INDEX idx_showtimes_movie_time (movie_id, showtime) -- catalog showtime lists
 );
 
 CREATE TABLE IF NOT EXISTS Bookings (
@@ -119,6 +120,22 @@ CREATE TABLE IF NOT EXISTS Bookings (
         ON DELETE SET NULL
 );
 
+-- Block-reserved ID sequences (see IdBlockAllocator); rows are seeded from MAX(id) on first use
+CREATE TABLE IF NOT EXISTS Sequences (
+    name          VARCHAR(50) PRIMARY KEY,
+    next_value    BIGINT NOT NULL
+);
+
+-- Waiting-room queue counters, used when app.waiting-room.store=db (see DbAdmissionStore)
+CREATE TABLE IF NOT EXISTS WaitingRooms (
+    room_key          VARCHAR(50) PRIMARY KEY,
+    admit_per_second  DOUBLE NOT NULL,
+    max_queue         BIGINT NOT NULL,
+    issued            BIGINT NOT NULL DEFAULT 0,
+    admitted          DOUBLE NOT NULL DEFAULT 0,
+    last_advance_ms   BIGINT NOT NULL
+);
+
 CREATE TABLE IF NOT EXISTS Payments (
     payment_id     VARCHAR(50) PRIMARY KEY,
     booking_id     INT UNIQUE NOT NULL,
@@ -133,7 +150,7 @@ CREATE TABLE IF NOT EXISTS Payments (
 
 CREATE TABLE IF NOT EXISTS Tickets (
     ticket_id      VARCHAR(50) PRIMARY KEY,
-    seat_id        VARCHAR(50) NOT NULL, #Ax2, Cx7
+    seat_id        VARCHAR(50) NOT NULL, #A2, C7 - canonical form, see SeatInventory.canonicalSeatId
     showtime_id        INT NOT NULL,
     booking_id     INT NOT NULL,
     price         DECIMAL(10,2),
@@ -143,8 +160,48 @@ CREATE TABLE IF NOT EXISTS Tickets (
     FOREIGN KEY (showtime_id) REFERENCES Showtimes(showtime_id)
         ON DELETE CASCADE,
     FOREIGN KEY (booking_id) REFERENCES Bookings(booking_id)
+        ON DELETE CASCADE,
+    UNIQUE KEY uq_tickets_showtime_seat (showtime_id, seat_id) -- one ticket per seat per show
+);
+
+-- Emails written in the same transaction as the booking and sent in the background (see EmailOutbox)
+CREATE TABLE IF NOT EXISTS EmailOutbox (
+    outbox_id        BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    to_email         VARCHAR(255) NOT NULL,
+    subject          VARCHAR(255) NOT NULL,
+    body             TEXT NOT NULL,
+    status           ENUM('pending','sending','sent','failed') NOT NULL DEFAULT 'pending',
+    attempts         INT NOT NULL DEFAULT 0,
+    next_attempt_at  TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3), -- lease expiry while 'sending'
+    created_at       TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    sent_at          TIMESTAMP NULL,
+    last_error       VARCHAR(500),
+    INDEX idx_outbox_due (status, next_attempt_at)
+);
+
+-- Promotion email campaigns and per-recipient delivery status (see PromotionCampaigns)
+CREATE TABLE IF NOT EXISTS PromotionCampaigns (
+    campaign_id    BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    subject        VARCHAR(255) NOT NULL,
+    message        TEXT NOT NULL,
+    status         ENUM('queued','running','completed','failed') NOT NULL DEFAULT 'queued',
+    total          INT NOT NULL DEFAULT 0,
+    sent           INT NOT NULL DEFAULT 0,
+    failed         INT NOT NULL DEFAULT 0,
+    created_at     TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    finished_at    TIMESTAMP NULL
+);
+
+CREATE TABLE IF NOT EXISTS PromotionRecipients (
+    campaign_id    BIGINT NOT NULL,
+    user_id        VARCHAR(50) NOT NULL,
+    email          VARCHAR(255) NOT NULL,
+    status         ENUM('pending','sent','failed') NOT NULL DEFAULT 'pending',
+    error          VARCHAR(500),
+    updated_at     TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    PRIMARY KEY (campaign_id, user_id),
+    FOREIGN KEY (campaign_id) REFERENCES PromotionCampaigns(campaign_id)
         ON DELETE CASCADE
-    #UNIQUE (seat_id, showtime_id) -- ensures logical seat per show
 );
 
 -- Insert movies with proper currently_showing values
@@ -212,9 +269,11 @@ VALUES
 
 INSERT INTO Tickets(ticket_id, seat_id, showtime_id, booking_id, price, type)
 VALUES
-('1', 'Ax5', 4, 1, 10, 'adult'),
-('2', 'Cx5', 9, 1, 10, 'adult'),
-('3', 'Dx6', 4, 2, 10, 'adult'),
-('4', 'Dx7', 4, 2, 10, 'adult'),
-('5', 'Ax6', 4, 1, 10, 'adult');
+('1', 'A5', 4, 1, 10, 'adult'),
+('2', 'C5', 9, 1, 10, 'adult'),
+('3', 'D6', 4, 2, 10, 'adult'),
+('4', 'D7', 4, 2, 10, 'adult'),
+('5', 'A6', 4, 1, 10, 'adult');
 
+INSERT INTO Sequences(name, next_value)
+SELECT 'booking_id', IFNULL(MAX(booking_id), 0) + 1 FROM Bookings;
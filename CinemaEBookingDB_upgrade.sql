@@ -0,0 +1,101 @@
+-- Upgrade an existing cinema_eBooking_system database to the current schema without losing data.
+-- Safe to run more than once: every step checks whether it has already been applied.
+-- New databases should use CinemaEBookingDB.sql instead.
+USE cinema_eBooking_system;
+
+-- Adds an index only if a table doesn't have one by that name yet
+-- (MySQL has no ADD INDEX IF NOT EXISTS)
+DROP PROCEDURE IF EXISTS add_index_if_missing;
+DELIMITER //
+CREATE PROCEDURE add_index_if_missing(IN tbl VARCHAR(64), IN idx VARCHAR(64), IN ddl VARCHAR(500))
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM information_schema.statistics
+                   WHERE table_schema = DATABASE() AND table_name = tbl AND index_name = idx) THEN
+        SET @ddl = ddl;
+        PREPARE stmt FROM @ddl;
+        EXECUTE stmt;
+        DEALLOCATE PREPARE stmt;
+    END IF;
+END //
+DELIMITER ;
+
+-- Rewrite legacy seat IDs ("Ax5", "a5", "A05") to the form bookings write ("A5"), so the unique
+-- key below compares one spelling per seat
+UPDATE Tickets
+SET seat_id = CONCAT(UPPER(LEFT(seat_id, 1)),
+                     CAST(TRIM(LEADING 'x' FROM LOWER(SUBSTRING(seat_id, 2))) AS UNSIGNED))
+WHERE seat_id REGEXP '^[A-Za-z][xX]?[0-9]+$'
+  AND BINARY seat_id <> BINARY CONCAT(UPPER(LEFT(seat_id, 1)),
+                                      CAST(TRIM(LEADING 'x' FROM LOWER(SUBSTRING(seat_id, 2))) AS UNSIGNED));
+
+-- One ticket per seat per show. Fails if Tickets already holds duplicates (including a seat
+-- booked once as "Ax5" and once as "A5" before the rewrite above); find them with
+--   SELECT showtime_id, seat_id, COUNT(*) FROM Tickets GROUP BY showtime_id, seat_id HAVING COUNT(*) > 1;
+CALL add_index_if_missing('Tickets', 'uq_tickets_showtime_seat',
+    'ALTER TABLE Tickets ADD UNIQUE KEY uq_tickets_showtime_seat (showtime_id, seat_id)');
+
+-- Catalog showtime lists
+CALL add_index_if_missing('Showtimes', 'idx_showtimes_movie_time',
+    'ALTER TABLE Showtimes ADD INDEX idx_showtimes_movie_time (movie_id, showtime)');
+
+DROP PROCEDURE add_index_if_missing;
+
+-- Block-reserved ID sequences (see IdBlockAllocator); rows are seeded from MAX(id) on first use
+CREATE TABLE IF NOT EXISTS Sequences (
+    name          VARCHAR(50) PRIMARY KEY,
+    next_value    BIGINT NOT NULL
+);
+
+-- Waiting-room queue counters, used when app.waiting-room.store=db (see DbAdmissionStore)
+CREATE TABLE IF NOT EXISTS WaitingRooms (
+    room_key          VARCHAR(50) PRIMARY KEY,
+    admit_per_second  DOUBLE NOT NULL,
+    max_queue         BIGINT NOT NULL,
+    issued            BIGINT NOT NULL DEFAULT 0,
+    admitted          DOUBLE NOT NULL DEFAULT 0,
+    last_advance_ms   BIGINT NOT NULL
+);
+
+-- Emails written in the same transaction as the booking and sent in the background (see EmailOutbox)
+CREATE TABLE IF NOT EXISTS EmailOutbox (
+    outbox_id        BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    to_email         VARCHAR(255) NOT NULL,
+    subject          VARCHAR(255) NOT NULL,
+    body             TEXT NOT NULL,
+    status           ENUM('pending','sending','sent','failed') NOT NULL DEFAULT 'pending',
+    attempts         INT NOT NULL DEFAULT 0,
+    next_attempt_at  TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3), -- lease expiry while 'sending'
+    created_at       TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    sent_at          TIMESTAMP NULL,
+    last_error       VARCHAR(500),
+    INDEX idx_outbox_due (status, next_attempt_at)
+);
+
+-- Promotion email campaigns and per-recipient delivery status (see PromotionCampaigns)
+CREATE TABLE IF NOT EXISTS PromotionCampaigns (
+    campaign_id    BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    subject        VARCHAR(255) NOT NULL,
+    message        TEXT NOT NULL,
+    status         ENUM('queued','running','completed','failed') NOT NULL DEFAULT 'queued',
+    total          INT NOT NULL DEFAULT 0,
+    sent           INT NOT NULL DEFAULT 0,
+    failed         INT NOT NULL DEFAULT 0,
+    created_at     TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    finished_at    TIMESTAMP NULL
+);
+
+CREATE TABLE IF NOT EXISTS PromotionRecipients (
+    campaign_id    BIGINT NOT NULL,
+    user_id        VARCHAR(50) NOT NULL,
+    email          VARCHAR(255) NOT NULL,
+    status         ENUM('pending','sent','failed') NOT NULL DEFAULT 'pending',
+    error          VARCHAR(500),
+    updated_at     TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    PRIMARY KEY (campaign_id, user_id),
+    FOREIGN KEY (campaign_id) REFERENCES PromotionCampaigns(campaign_id)
+        ON DELETE CASCADE
+);
+
+-- Start booking IDs after the existing bookings (IdBlockAllocator would also seed this on first use)
+INSERT IGNORE INTO Sequences(name, next_value)
+SELECT 'booking_id', IFNULL(MAX(booking_id), 0) + 1 FROM Bookings;
@@ -7,7 +7,8 @@ import { getMovieById } from '@/lib/data';
 import type { Movie } from '@/types/cinema';
 import {
   getSeats,
-  getSeatAvailability,
+  getSeatAvailabilityByShowtime,
+  subscribeSeatAvailability,
   SeatId,
   Showroom,
 } from '@/lib/bookingClient';
@@ -72,17 +73,44 @@ export default function BookingPage({ params }: PageProps) {
     fetchMovie();
   }, [id]);
 
+  // Availability and the live feed are both keyed by the showtime id from the showroom
+  const showtimeId = showroom?.showtimeId;
   useEffect(() => {
-    async function fetchAvailability() {
+    if (loadingShowroom) return;
+    if (!showtimeId) {
+      setLoadingAvailability(false);
+      return;
+    }
+    async function fetchAvailability(showtimeId: number) {
       try {
-        const booked = await getSeatAvailability(id, showtime);
+        const booked = await getSeatAvailabilityByShowtime(showtimeId);
         setBookedSeats(booked);
       } finally {
         setLoadingAvailability(false);
       }
     }
-    fetchAvailability();
-  }, [id, showtime]);
+    fetchAvailability(showtimeId);
+  }, [loadingShowroom, showtimeId]);
+
+  useEffect(() => {
+    if (!showtimeId) return;
+    return subscribeSeatAvailability(showtimeId, (change) => {
+      setBookedSeats((prev) => {
+        const next = change.type === 'snapshot' ? new Set<SeatId>() : new Set(prev);
+        change.released.forEach((seat) => next.delete(seat));
+        change.taken.forEach((seat) => next.add(seat));
+        return next;
+      });
+      // Drop any selected seat someone else just took
+      if (change.taken.length) {
+        setSelected((prev) => {
+          const next = new Set(prev);
+          change.taken.forEach((seat) => next.delete(seat));
+          return next.size === prev.size ? prev : next;
+        });
+      }
+    });
+  }, [showtimeId]);
 
   if (loadingMovie || loadingShowroom || loadingAvailability) {
     return <div className="p-8">Loading...</div>;
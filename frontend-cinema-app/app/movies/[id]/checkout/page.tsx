@@ -18,6 +18,7 @@ import {
   postBooking,
   Ticket,
 } from '@/lib/bookingApi';
+import { getSeatsByShowtime, getSeatAvailabilityByShowtime } from '@/lib/bookingClient';
 
 type Props = {
   params?: Promise<{ id: string }>;
@@ -102,7 +103,15 @@ const CheckoutPage: React.FC<Props> = ({ params }) => {
 
       //const isLoggedIn = await getAuthStatus();
 
-      if (showtimeDisplay) {
+      if (initialShowtimeId) {
+        // The seat page already resolved the showtime, so skip the movie + time lookup
+        const [bookedSet, room] = await Promise.all([
+          getSeatAvailabilityByShowtime(initialShowtimeId),
+          getSeatsByShowtime(initialShowtimeId),
+        ]);
+        availabilityResp = { bookedSeats: Array.from(bookedSet) };
+        seatsResp = room ? { showroom: room } : null;
+      } else if (showtimeDisplay) {
         availabilityResp = await getAvailability(movieId, showtimeDisplay).catch(() => ({ bookedSeats: [] }));
         seatsResp = await getSeats(movieId, showtimeDisplay).catch(() => null);
       }
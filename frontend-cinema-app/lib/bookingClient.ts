@@ -114,3 +114,110 @@ export async function getSeatAvailability(
   }
 }
 
+
+/**
+ * Same as getSeats, but addressed by showtime ID, so the backend skips the
+ * movie + time lookup. Prefer this whenever the showtimeId is known.
+ */
+export async function getSeatsByShowtime(
+  showtimeId: number
+): Promise<Showroom | null> {
+  try {
+    const res = await fetch(
+      `${API_BASE}/api/auth/showtimes/${showtimeId}/seats`,
+      {
+        method: "GET",
+        credentials: "include",
+        cache: "no-store",
+      }
+    );
+
+    const data = await res.json();
+
+    if (!res.ok || !data.success) {
+      console.error("Backend error in getSeatsByShowtime:", data);
+      return null;
+    }
+
+    const s = data.showroom;
+
+    return {
+      showroomId: Number(s.showroomId),
+      name: s.name,
+      seatCount: Number(s.seatCount),
+      numOfRows: Number(s.numOfRows),
+      numOfCols: Number(s.numOfCols),
+      theatreId: String(s.theatreId),
+      showtimeId: Number(s.showtimeId),
+    };
+  } catch (err) {
+    console.error("Error fetching seats:", err);
+    return null;
+  }
+}
+
+/**
+ * Same as getSeatAvailability, but addressed by showtime ID.
+ */
+export async function getSeatAvailabilityByShowtime(
+  showtimeId: number
+): Promise<Set<SeatId>> {
+  try {
+    const res = await fetch(
+      `${API_BASE}/api/auth/showtimes/${showtimeId}/availability`,
+      {
+        method: "GET",
+        credentials: "include",
+        cache: "no-store",
+      }
+    );
+
+    const data = await res.json();
+
+    if (!res.ok || !data.success || !Array.isArray(data.bookedSeats)) {
+      console.error("Backend error in getSeatAvailabilityByShowtime:", data);
+      return new Set();
+    }
+
+    return new Set<SeatId>(data.bookedSeats as string[]);
+  } catch (err) {
+    console.error("Error fetching seat availability:", err);
+    return new Set();
+  }
+}
+
+export interface SeatChange {
+  type: "snapshot" | "delta";
+  showtimeId: number;
+  version: number;
+  taken: SeatId[];
+  released: SeatId[];
+}
+
+/**
+ * Watch live seat availability for a showtime over Server-Sent Events.
+ * The first event is a snapshot of every unavailable seat; later events are
+ * deltas. EventSource reconnects on its own and the server answers a
+ * reconnect with a fresh snapshot. Returns a function that closes the stream.
+ */
+export function subscribeSeatAvailability(
+  showtimeId: number,
+  onChange: (change: SeatChange) => void
+): () => void {
+  const source = new EventSource(
+    `${API_BASE}/api/auth/showtimes/${showtimeId}/stream`,
+    { withCredentials: true }
+  );
+
+  const handle = (e: MessageEvent) => {
+    try {
+      onChange(JSON.parse(e.data) as SeatChange);
+    } catch (err) {
+      console.error("Bad seat availability event:", err);
+    }
+  };
+  source.addEventListener("snapshot", handle);
+  source.addEventListener("delta", handle);
+
+  return () => source.close();
+}
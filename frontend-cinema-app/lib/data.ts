@@ -38,7 +38,8 @@ function transformBackendMovie(backendMovie: any, index: number): Movie {
     genres: [backendMovie.genre || "Drama"],
     status: backendMovie.isCurrentlyShowing || backendMovie.currentlyShowing || backendMovie.currently_showing ? "RUNNING" : "COMING_SOON",
     trailerUrl: backendMovie.trailerUrl || backendMovie.trailer_url,
-    showtimes: showtimes
+    showtimes: showtimes,
+    showtimeList: Array.isArray(backendMovie.showtimeList) ? backendMovie.showtimeList : undefined
   };
 }
 
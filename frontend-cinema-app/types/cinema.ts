@@ -11,4 +11,13 @@ export type Movie = {
   status: MovieStatus;
   trailerUrl?: string;        // e.g., https://www.youtube.com/watch?v=XXXXX
   showtimes: string[];        // e.g., ["2:00 PM","5:00 PM","8:00 PM"]
+  showtimeList?: ShowtimeEntry[]; // typed showtimes, when loaded from the backend
+};
+
+export type ShowtimeEntry = {
+  showtimeId: number;
+  showroomId: string;
+  startTime: string;          // "14:00:00"
+  displayTime: string;        // "02:00 PM"
+  seatsRemaining: number;
 };
@@ -148,6 +148,38 @@ public class AdminAPIController {
         }
     }
 
+    /**
+     * Reload the showroom registry after showrooms were changed in the database.
+     * Seat inventories are dropped so they're rebuilt on the new layouts.
+     * POST /api/admin/showrooms/refresh
+     */
+    @PostMapping("/showrooms/refresh")
+    public ResponseEntity<Map<String, Object>> refreshShowrooms(HttpSession session) {
+        Map<String, Object> response = new HashMap<>();
+
+        ResponseEntity<Map<String, Object>> authCheck = checkAdminAuth(session);
+        if (authCheck != null) return authCheck;
+
+        try {
+            int count = ShowroomRegistry.getInstance().refresh().size();
+            for (ShowroomLayout layout : ShowroomRegistry.getInstance().getAll()) {
+                SeatProvisioner.invalidate(layout.getShowroomId());
+            }
+            SeatInventory.getInstance().invalidateAll();
+
+            response.put("success", true);
+            response.put("message", "Reloaded " + count + " showrooms");
+            response.put("showrooms", ShowtimeDBFunctions.getAllShowrooms());
+
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "Internal server error: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
     /**
      * Add a showtime for a movie.
      * POST /api/admin/showtimes
@@ -239,6 +271,99 @@ public class AdminAPIController {
         }
     }
 
+    // ==================== WAITING ROOMS ====================
+
+    /**
+     * List open waiting rooms with their queue counters.
+     * GET /api/admin/waiting-rooms
+     */
+    @GetMapping("/waiting-rooms")
+    public ResponseEntity<Map<String, Object>> getWaitingRooms(HttpSession session) {
+        Map<String, Object> response = new HashMap<>();
+
+        ResponseEntity<Map<String, Object>> authCheck = checkAdminAuth(session);
+        if (authCheck != null) return authCheck;
+
+        response.put("success", true);
+        response.put("waitingRooms", WaitingRooms.getInstance().list());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Open a waiting room for a movie or a single showtime, or change an open room's rate.
+     * POST /api/admin/waiting-rooms
+     * Body: { "showtimeId": 12 (or "movieId": 5), "admitPerSecond": 20, "maxQueue": 50000 (optional) }
+     */
+    @PostMapping("/waiting-rooms")
+    public ResponseEntity<Map<String, Object>> openWaitingRoom(@RequestBody Map<String, Object> request,
+                                                               HttpSession session) {
+        Map<String, Object> response = new HashMap<>();
+
+        ResponseEntity<Map<String, Object>> authCheck = checkAdminAuth(session);
+        if (authCheck != null) return authCheck;
+
+        try {
+            String roomKey = waitingRoomKey(request.get("movieId"), request.get("showtimeId"));
+            Object rateObj = request.get("admitPerSecond");
+            if (roomKey == null || rateObj == null) {
+                response.put("success", false);
+                response.put("message", "Missing required fields (movieId or showtimeId, admitPerSecond)");
+                return ResponseEntity.badRequest().body(response);
+            }
+            Object maxQueueObj = request.get("maxQueue");
+            Long maxQueue = maxQueueObj != null ? Long.valueOf(maxQueueObj.toString()) : null;
+
+            WaitingRooms.getInstance().open(roomKey, Double.parseDouble(rateObj.toString()), maxQueue);
+
+            response.put("success", true);
+            response.put("message", "Waiting room open");
+            response.put("roomKey", roomKey);
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "Internal server error: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    /**
+     * Close a waiting room; everyone still queued is let straight through.
+     * DELETE /api/admin/waiting-rooms?showtimeId=12 (or ?movieId=5)
+     */
+    @DeleteMapping("/waiting-rooms")
+    public ResponseEntity<Map<String, Object>> closeWaitingRoom(@RequestParam(required = false) Integer movieId,
+                                                                @RequestParam(required = false) Integer showtimeId,
+                                                                HttpSession session) {
+        Map<String, Object> response = new HashMap<>();
+
+        ResponseEntity<Map<String, Object>> authCheck = checkAdminAuth(session);
+        if (authCheck != null) return authCheck;
+
+        String roomKey = waitingRoomKey(movieId, showtimeId);
+        if (roomKey == null) {
+            response.put("success", false);
+            response.put("message", "movieId or showtimeId is required");
+            return ResponseEntity.badRequest().body(response);
+        }
+        WaitingRooms.getInstance().close(roomKey);
+
+        response.put("success", true);
+        response.put("message", "Waiting room closed");
+        response.put("roomKey", roomKey);
+        return ResponseEntity.ok(response);
+    }
+
+    private static String waitingRoomKey(Object movieId, Object showtimeId) {
+        if (showtimeId != null) return WaitingRooms.showtimeRoom(Integer.parseInt(showtimeId.toString()));
+        if (movieId != null) return WaitingRooms.movieRoom(Integer.parseInt(movieId.toString()));
+        return null;
+    }
+
     // ==================== PROMOTION MANAGEMENT ====================
 
     /**
@@ -333,32 +458,20 @@ public class AdminAPIController {
                 return ResponseEntity.badRequest().body(response);
             }
             
-            // Get all users who opted in for marketing
-            List<Map<String, String>> subscribedUsers = UserDBFunctions.getSubscribedUsers();
-            
-            // Send email to each subscribed user
-            int sentCount = 0;
-            for (Map<String, String> user : subscribedUsers) {
-                try {
-                    emailService.sendPromotionEmail(
-                        user.get("email"), 
-                        user.get("firstName"), 
-                        subject, 
-                        message
-                    );
-                    sentCount++;
-                } catch (Exception e) {
-                    System.err.println("Failed to send email to " + user.get("email") + ": " + e.getMessage());
-                }
+            // Sent in the background; progress at GET .../promotions/email/{campaignId}
+            Long campaignId = PromotionCampaigns.getInstance().start(subject, message, emailService);
+            if (campaignId == null) {
+                response.put("success", false);
+                response.put("message", "Failed to start promotion campaign");
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
             }
-            
+
             response.put("success", true);
-            response.put("message", "Promotion emails sent successfully");
-            response.put("recipientCount", sentCount);
-            response.put("totalSubscribers", subscribedUsers.size());
-            
-            return ResponseEntity.ok(response);
-            
+            response.put("message", "Promotion campaign started");
+            response.put("campaignId", campaignId);
+
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+
         } catch (Exception e) {
             response.put("success", false);
             response.put("message", "Internal server error: " + e.getMessage());
@@ -366,6 +479,30 @@ public class AdminAPIController {
         }
     }
 
+    /**
+     * Get the progress of a promotion email campaign.
+     * GET /api/admin/promotions/email/{campaignId}
+     */
+    @GetMapping("/promotions/email/{campaignId}")
+    public ResponseEntity<Map<String, Object>> getPromotionEmailProgress(@PathVariable Long campaignId,
+                                                                         HttpSession session) {
+        Map<String, Object> response = new HashMap<>();
+
+        ResponseEntity<Map<String, Object>> authCheck = checkAdminAuth(session);
+        if (authCheck != null) return authCheck;
+
+        Map<String, Object> progress = PromotionCampaigns.getInstance().getProgress(campaignId);
+        if (progress == null) {
+            response.put("success", false);
+            response.put("message", "Campaign not found");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+
+        response.put("success", true);
+        response.putAll(progress);
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * Get all promotions.
      * GET /api/admin/promotions
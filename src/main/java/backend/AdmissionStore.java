@@ -0,0 +1,104 @@
+package backend;
+
+import java.util.List;
+
+/**
+ * Where waiting-room counters live.
+ *
+ * Each open room has two counters: issued (the last queue number handed out) and admitted
+ * (how far admission has advanced). admitted grows by admitPerSecond every second but never
+ * more than one second's worth past issued, so an idle room lets a small burst straight in
+ * while a long queue drains at exactly the configured rate. A queue number n is admitted
+ * once admitted >= n.
+ *
+ * Modes (app.waiting-room.store):
+ *   memory - counters in this JVM; each app node runs its own queue (the default)
+ *   db     - counters in the WaitingRooms table, shared by every node
+ */
+public interface AdmissionStore {
+
+    /**
+     * Open a room, or change the rate and queue limit of an open one.
+     */
+    void open(String roomKey, double admitPerSecond, long maxQueue);
+
+    void close(String roomKey);
+
+    /**
+     * Get an open room with its admission advanced to now.
+     *
+     * @return The room, or null if it isn't open
+     */
+    Room get(String roomKey);
+
+    /**
+     * Take the next queue number.
+     *
+     * @return The number, or -1 if the room isn't open or its queue is full
+     */
+    long join(String roomKey);
+
+    /**
+     * Every open room.
+     */
+    List<Room> list();
+
+    static AdmissionStore forMode(String mode) {
+        if (mode == null) mode = "memory";
+        switch (mode.trim().toLowerCase()) {
+            case "memory":
+                return new MemoryAdmissionStore();
+            case "db":
+                return new DbAdmissionStore();
+            default:
+                throw new IllegalArgumentException("Unknown waiting room store: " + mode);
+        }
+    }
+
+    /**
+     * Counters of one room at a point in time.
+     */
+    class Room {
+        private final String roomKey;
+        private final double admitPerSecond;
+        private final long maxQueue;
+        private final long issued;
+        private final double admitted;
+
+        public Room(String roomKey, double admitPerSecond, long maxQueue, long issued, double admitted) {
+            this.roomKey = roomKey;
+            this.admitPerSecond = admitPerSecond;
+            this.maxQueue = maxQueue;
+            this.issued = issued;
+            this.admitted = admitted;
+        }
+
+        public String getRoomKey() {return roomKey;}
+        public double getAdmitPerSecond() {return admitPerSecond;}
+        public long getMaxQueue() {return maxQueue;}
+        public long getIssued() {return issued;}
+        public double getAdmitted() {return admitted;}
+
+        /**
+         * How many people are ahead of a queue number (0 = admitted).
+         */
+        public long positionOf(long queueNumber) {
+            return Math.max(0, queueNumber - (long) Math.floor(admitted));
+        }
+
+        /**
+         * People holding a number who have not been admitted yet.
+         */
+        public long getWaiting() {
+            return Math.max(0, issued - (long) Math.floor(admitted));
+        }
+
+        /**
+         * Admission after elapsedMillis at this room's rate, capped one second past issued.
+         */
+        static double advance(double admitted, long issued, double admitPerSecond, long elapsedMillis) {
+            double next = admitted + admitPerSecond * Math.max(0, elapsedMillis) / 1000.0;
+            return Math.min(next, issued + admitPerSecond);
+        }
+    }
+}
@@ -2,14 +2,16 @@ package backend;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpSession;
 
 import java.sql.SQLException;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -30,8 +32,8 @@ public class AuthAPIController {
     private UserFunctions userFunctions;
     @Autowired
     private BookingFunctions bookingFunctions;
-    //@Autowired
-    private MovieSearchandFilter movieSearchandFilter;
+    @Autowired
+    private BookingAPIController bookingAPIController;
 
     @GetMapping("/getUserInfo/{email}")
     public ResponseEntity<String> getUserInfo(@PathVariable String email) {
@@ -595,7 +597,13 @@ public class AuthAPIController {
     @GetMapping("/seats/{id}/{showtime}")
     public ResponseEntity<Map<String, Object>> getSeats(
             @PathVariable String id,
-            @PathVariable String showtime) {
+            @PathVariable String showtime,
+            @RequestHeader(value = WaitingRooms.TOKEN_HEADER, required = false) String queueToken,
+            HttpSession session) {
+        ResponseEntity<Map<String, Object>> queued = checkWaitingRoom(
+                WaitingRooms.getInstance().checkShowing(id, showtime, session, queueToken));
+        if (queued != null) return queued;
+
         Map<String, Object> response = new HashMap<>();
         bookingFunctions = new BookingFunctions();
 
@@ -622,7 +630,13 @@ public class AuthAPIController {
     @GetMapping("/availability/{id}/{showtime}")
     public ResponseEntity<Map<String, Object>> getSeatAvailability(
             @PathVariable String id,
-            @PathVariable String showtime) {
+            @PathVariable String showtime,
+            @RequestHeader(value = WaitingRooms.TOKEN_HEADER, required = false) String queueToken,
+            HttpSession session) {
+        ResponseEntity<Map<String, Object>> queued = checkWaitingRoom(
+                WaitingRooms.getInstance().checkShowing(id, showtime, session, queueToken));
+        if (queued != null) return queued;
+
         Map<String, Object> response = new HashMap<>();
         bookingFunctions = new BookingFunctions();
 
@@ -643,10 +657,167 @@ public class AuthAPIController {
         }
     }
 
+    /**
+     * Returns the showroom layout for a showtime, addressed by its ID.
+     * GET /api/auth/showtimes/{showtimeId}/seats
+     * With ?format=bitmap (or the bitmap Accept type) the availability bitmap is included as seatMap.
+     */
+    @GetMapping("/showtimes/{showtimeId}/seats")
+    public ResponseEntity<Map<String, Object>> getSeatsByShowtime(
+            @PathVariable int showtimeId,
+            @RequestParam(required = false) String format,
+            @RequestHeader(value = "Accept", required = false) String accept,
+            @RequestHeader(value = WaitingRooms.TOKEN_HEADER, required = false) String queueToken,
+            HttpSession session) {
+        ResponseEntity<Map<String, Object>> queued = checkWaitingRoom(
+                WaitingRooms.getInstance().check(null, showtimeId, session, queueToken));
+        if (queued != null) return queued;
+
+        Map<String, Object> response = new HashMap<>();
+        bookingFunctions = new BookingFunctions();
+
+        try {
+            Showroom showroom = bookingFunctions.getSeatsForShow(showtimeId);
+            if (showroom == null) {
+                response.put("success", false);
+                response.put("message", "Showtime not found");
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+            }
+            response.put("success", true);
+            response.put("showroom", showroom);
+            // Layout and availability in one round trip
+            if (!BookingFunctions.seatMapFormat(format, accept).equals("json")) {
+                response.put("seatMap", bookingFunctions.getSeatBitmapResponse(showtimeId, null));
+            }
+
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "Internal server error: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    /**
+     * Get the already-booked seat IDs for a showtime, addressed by its ID.
+     * GET /api/auth/showtimes/{showtimeId}/availability
+     *
+     * Compact forms, picked by ?format= or the Accept header:
+     *   format=bitmap / Accept: application/vnd.cinema.seat-bitmap+json - base64 bitmap with a version;
+     *     add ?since=V for just the seats that changed after version V
+     *   format=raw / Accept: application/octet-stream - the bitmap bytes, version in X-Seat-Map-Version
+     */
+    @GetMapping("/showtimes/{showtimeId}/availability")
+    public ResponseEntity<?> getSeatAvailabilityByShowtime(
+            @PathVariable int showtimeId,
+            @RequestParam(required = false) String format,
+            @RequestParam(required = false) Long since,
+            @RequestHeader(value = "Accept", required = false) String accept,
+            @RequestHeader(value = WaitingRooms.TOKEN_HEADER, required = false) String queueToken,
+            HttpSession session) {
+        ResponseEntity<Map<String, Object>> queued = checkWaitingRoom(
+                WaitingRooms.getInstance().check(null, showtimeId, session, queueToken));
+        if (queued != null) return queued;
+
+        Map<String, Object> response = new HashMap<>();
+        bookingFunctions = new BookingFunctions();
+
+        try {
+            String seatMapFormat = BookingFunctions.seatMapFormat(format, accept);
+            if (seatMapFormat.equals("raw")) {
+                SeatBitmap bitmap = bookingFunctions.getSeatBitmap(showtimeId);
+                if (bitmap == null) {
+                    return ResponseEntity.notFound().build();
+                }
+                return ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .header("X-Seat-Map-Version", String.valueOf(bitmap.getVersion()))
+                        .header("X-Seat-Map-Rows", String.valueOf(bitmap.getRows()))
+                        .header("X-Seat-Map-Cols", String.valueOf(bitmap.getCols()))
+                        .body(bitmap.getBits());
+            }
+            if (seatMapFormat.equals("bitmap")) {
+                Map<String, Object> body = bookingFunctions.getSeatBitmapResponse(showtimeId, since);
+                if (body == null) {
+                    response.put("success", false);
+                    response.put("message", "Showtime not found");
+                    return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+                }
+                response.putAll(body);
+                response.put("success", true);
+                return ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(response);
+            }
+
+            List<String> bookedSeats = bookingFunctions.getBookedSeats(showtimeId);
+
+            response.put("success", true);
+            response.put("bookedSeats", bookedSeats);
+            response.put("showtimeId", showtimeId);
+
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "Internal server error: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    /**
+     * Live seat availability for a showtime as Server-Sent Events: a "snapshot" event with
+     * every unavailable seat, then "delta" events as seats are booked, held or released.
+     * GET /api/auth/showtimes/{showtimeId}/stream
+     */
+    @GetMapping(value = "/showtimes/{showtimeId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamSeatAvailability(@PathVariable int showtimeId,
+                                                             HttpServletRequest request) {
+        SseEmitter emitter;
+        try {
+            emitter = SeatEventHub.getInstance().subscribe(showtimeId, request.getRemoteAddr());
+        } catch (IllegalStateException e) {
+            // Too many streams open for this client or in total
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header("Retry-After", "30").build();
+        }
+        if (emitter == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .header("Cache-Control", "no-cache")
+                .header("X-Accel-Buffering", "no") // don't let a proxy buffer the stream
+                .body(emitter);
+    }
+
 
     //---------------------ADMIN FUNCTIONS------------------
 
 
+    /**
+     * Keep callers out while a waiting room is open for the movie/showtime and they haven't
+     * been admitted yet. Returns a 429 with their queue position, or null to let them through.
+     */
+    private ResponseEntity<Map<String, Object>> checkWaitingRoom(WaitingRooms.Admission admission) {
+        if (admission.isAllowed()) return null;
+
+        Map<String, Object> response = new HashMap<>(admission.toMap());
+        response.put("success", false);
+        if (admission.isFull()) {
+            response.put("message", "This showing is in high demand and the queue is full - please try again shortly");
+        } else if (!admission.isQueued()) {
+            response.put("message", "This showing is in high demand - join the queue at /api/booking/queue first");
+        } else {
+            response.put("message", "You're in the queue - position " + admission.getPosition());
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header("Retry-After", String.valueOf(admission.getRetryAfterSeconds()));
+        if (admission.getToken() != null) {
+            builder.header(WaitingRooms.TOKEN_HEADER, admission.getToken());
+        }
+        return builder.body(response);
+    }
+
     private ResponseEntity<Map<String, Object>> checkAdminAuth(HttpSession session) {
         Map<String, Object> response = new HashMap<>();
 
@@ -762,31 +933,19 @@ public class AuthAPIController {
                 return ResponseEntity.badRequest().body(response);
             }
 
-            // Get all users who opted in for marketing
-            List<Map<String, String>> subscribedUsers = UserDBFunctions.getSubscribedUsers();
-
-            // Send email to each subscribed user
-            int sentCount = 0;
-            for (Map<String, String> user : subscribedUsers) {
-                try {
-                    emailService.sendPromotionEmail(
-                            user.get("email"),
-                            user.get("firstName"),
-                            subject,
-                            message
-                    );
-                    sentCount++;
-                } catch (Exception e) {
-                    System.err.println("Failed to send email to " + user.get("email") + ": " + e.getMessage());
-                }
+            // Sent in the background; progress at GET .../promotions/email/{campaignId}
+            Long campaignId = PromotionCampaigns.getInstance().start(subject, message, emailService);
+            if (campaignId == null) {
+                response.put("success", false);
+                response.put("message", "Failed to start promotion campaign");
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
             }
 
             response.put("success", true);
-            response.put("message", "Promotion emails sent successfully");
-            response.put("recipientCount", sentCount);
-            response.put("totalSubscribers", subscribedUsers.size());
+            response.put("message", "Promotion campaign started");
+            response.put("campaignId", campaignId);
 
-            return ResponseEntity.ok(response);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
 
         } catch (Exception e) {
             response.put("success", false);
@@ -795,6 +954,30 @@ public class AuthAPIController {
         }
     }
 
+    /**
+     * Get the progress of a promotion email campaign.
+     * GET /api/auth/promotions/email/{campaignId}
+     */
+    @GetMapping("/promotions/email/{campaignId}")
+    public ResponseEntity<Map<String, Object>> getPromotionEmailProgress(@PathVariable Long campaignId,
+                                                                         HttpSession session) {
+        Map<String, Object> response = new HashMap<>();
+
+        ResponseEntity<Map<String, Object>> authCheck = checkAdminAuth(session);
+        if (authCheck != null) return authCheck;
+
+        Map<String, Object> progress = PromotionCampaigns.getInstance().getProgress(campaignId);
+        if (progress == null) {
+            response.put("success", false);
+            response.put("message", "Campaign not found");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+
+        response.put("success", true);
+        response.putAll(progress);
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * Add a new movie.
      * POST /api/admin/movies
@@ -1048,159 +1231,15 @@ public class AuthAPIController {
 
     /**
      * Create a new booking with tickets.
-     * POST /api/booking/create
-     * Body: {
-     *   "movieId": 1,
-     *   "showtimeId": 1,
-     *   "tickets": [
-     *     {"seatId": "A1", "type": "adult"},
-     *     {"seatId": "A2", "type": "child"}
-     *   ],
-     *   "promoCode": "PROMO123" (optional),
-     *   "cardId": "card-uuid" (required)
-     * }
+     * POST /api/auth/create
+     * Same request, waiting-room check and responses as POST /api/booking/create, which
+     * handles it.
      */
     @PostMapping("/create")
     public ResponseEntity<Map<String, Object>> createBooking(@RequestBody Map<String, Object> request,
+                                                             @RequestHeader(value = WaitingRooms.TOKEN_HEADER, required = false) String queueToken,
                                                              HttpSession session) {
-        Map<String, Object> response = new HashMap<>();
-        BookingDBFunctions bookingDB = new BookingDBFunctions();
-        movieSearchandFilter = new MovieSearchandFilter();
-
-        try {
-            // Check if user is logged in
-            Boolean loggedIn = (Boolean) session.getAttribute("loggedIn");
-            if (loggedIn == null || !loggedIn) {
-                response.put("success", false);
-                response.put("message", "You must be logged in to create a booking");
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
-            }
-
-            String userId = (String) session.getAttribute("userId");
-            String email = (String) session.getAttribute("email");
-            String firstName = (String) session.getAttribute("firstName");
-
-            // Extract booking data
-            Integer movieId = null;
-            Object movieIdObj = request.get("movieId");
-            if (movieIdObj != null) {
-                movieId = Integer.valueOf(movieIdObj.toString());
-            }
-
-            Integer showtimeId = null;
-            Object showtimeIdObj = request.get("showtimeId");
-            if (showtimeIdObj != null) {
-                showtimeId = Integer.valueOf(showtimeIdObj.toString());
-            }
-
-            List<Map<String, String>> tickets = (List<Map<String, String>>) request.get("tickets");
-            String promoCode = (String) request.get("promoCode");
-            String cardId = (String) request.get("cardId");
-
-            // Validate required fields
-            if (movieId == null || showtimeId == null || tickets == null || tickets.isEmpty()) {
-                response.put("success", false);
-                response.put("message", "Missing required fields (movieId, showtimeId, tickets)");
-                return ResponseEntity.badRequest().body(response);
-            }
-
-            if (cardId == null || cardId.trim().isEmpty()) {
-                response.put("success", false);
-                response.put("message", "Payment card is required");
-                return ResponseEntity.badRequest().body(response);
-            }
-
-            // Verify card belongs to user
-            List<PaymentCard> userCards = UserDBFunctions.getCustomerPaymentCards(userId);
-            boolean cardValid = userCards.stream().anyMatch(c -> cardId.equals(c.getCardId()));
-            if (!cardValid) {
-                response.put("success", false);
-                response.put("message", "Invalid payment card");
-                return ResponseEntity.badRequest().body(response);
-            }
-
-            // Calculate total price
-            double totalPrice = 0.0;
-            for (Map<String, String> ticket : tickets) {
-                String type = ticket.get("type");
-                if ("senior".equals(type)) {
-                    totalPrice += 10.00;
-                } else if ("child".equals(type)) {
-                    totalPrice += 8.00;
-                } else {
-                    totalPrice += 12.00;
-                }
-            }
-
-            // Apply promotion if provided
-            String promoId = null;
-            if (promoCode != null && !promoCode.trim().isEmpty()) {
-                Map<String, Object> promo = PromotionDBFunctions.getPromotionByCode(promoCode);
-                if (promo != null && PromotionDBFunctions.isPromotionActive(promoCode)) {
-                    double discountPercent = (Double) promo.get("discountPercent");
-                    double discount = totalPrice * (discountPercent / 100.0);
-                    totalPrice -= discount;
-                    promoId = (String) promo.get("promoId");
-                }
-            }
-
-            // Create booking
-            Integer bookingId = bookingDB.createBooking(userId, showtimeId, totalPrice, promoId, tickets);
-            if (bookingId == null) {
-                response.put("success", false);
-                response.put("message", "Failed to create booking. Seats may already be taken.");
-                return ResponseEntity.badRequest().body(response);
-            }
-
-            // Send confirmation email
-            try {
-                if (email != null && firstName != null && emailService != null) {
-                    // Get movie and showtime details for email
-                    Movie movie = movieSearchandFilter.getMovieById(movieId);
-                    String movieTitle = movie != null ? movie.getTitle() : "Movie #" + movieId;
-
-                    // Get showtime
-                    String showtime = "N/A";
-                    try {
-                        List<Map<String, Object>> showtimes = ShowtimeDBFunctions.getShowtimesByMovie(movieId);
-                        for (Map<String, Object> st : showtimes) {
-                            if (showtimeId.equals(st.get("showtimeId"))) {
-                                showtime = String.valueOf(st.get("showtime"));
-                                break;
-                            }
-                        }
-                    } catch (Exception e) {
-                        System.err.println("Could not fetch showtime: " + e.getMessage());
-                    }
-
-                    List<String> seatIds = new ArrayList<>();
-                    for (Map<String, String> ticket : tickets) {
-                        seatIds.add(ticket.get("seatId"));
-                    }
-
-                    emailService.sendBookingConfirmationEmail(
-                            email, firstName, String.valueOf(bookingId),
-                            movieTitle, showtime, seatIds, totalPrice
-                    );
-                }
-            } catch (Exception e) {
-                // Log error but don't fail the booking
-                System.err.println("Failed to send confirmation email: " + e.getMessage());
-                e.printStackTrace();
-            }
-
-            response.put("success", true);
-            response.put("message", "Booking created successfully");
-            response.put("bookingId", bookingId);
-
-            return ResponseEntity.ok(response);
-
-        } catch (Exception e) {
-            response.put("success", false);
-            response.put("message", "Internal server error: " + e.getMessage());
-            e.printStackTrace();
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
-        }
+        return bookingAPIController.createBooking(request, queueToken, session);
     }
 
     /**
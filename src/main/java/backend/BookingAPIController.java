@@ -2,14 +2,18 @@ package backend;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpSession;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.ArrayList;
+import java.util.function.IntFunction;
 
 /**
  * REST API Controller for booking endpoints.
@@ -27,6 +31,33 @@ public class BookingAPIController {
 
     private MovieSearchandFilter movieSearchandFilter;
 
+    private static final int DEFAULT_HOLD_MINUTES = 5;
+    private static final int MAX_HOLD_MINUTES = 15;
+
+    /**
+     * Keep callers out while a waiting room is open for the movie/showtime and they haven't
+     * been admitted yet. Returns a 429 with their queue position, or null to let them through.
+     */
+    private ResponseEntity<Map<String, Object>> checkWaitingRoom(WaitingRooms.Admission admission) {
+        if (admission.isAllowed()) return null;
+
+        Map<String, Object> response = new HashMap<>(admission.toMap());
+        response.put("success", false);
+        if (admission.isFull()) {
+            response.put("message", "This showing is in high demand and the queue is full - please try again shortly");
+        } else if (!admission.isQueued()) {
+            response.put("message", "This showing is in high demand - join the queue at /api/booking/queue first");
+        } else {
+            response.put("message", "You're in the queue - position " + admission.getPosition());
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header("Retry-After", String.valueOf(admission.getRetryAfterSeconds()));
+        if (admission.getToken() != null) {
+            builder.header(WaitingRooms.TOKEN_HEADER, admission.getToken());
+        }
+        return builder.body(response);
+    }
+
     @GetMapping("/api/booking/test")
     public void testingMethod() {
         System.out.println("\nTest called!\n");
@@ -41,7 +72,13 @@ public class BookingAPIController {
     @GetMapping("/seats/{id}/{showtime}")
     public ResponseEntity<Map<String, Object>> getSeats(
             @PathVariable String id,
-            @PathVariable String showtime) {
+            @PathVariable String showtime,
+            @RequestHeader(value = WaitingRooms.TOKEN_HEADER, required = false) String queueToken,
+            HttpSession session) {
+        ResponseEntity<Map<String, Object>> queued = checkWaitingRoom(
+                WaitingRooms.getInstance().checkShowing(id, showtime, session, queueToken));
+        if (queued != null) return queued;
+
         Map<String, Object> response = new HashMap<>();
         bookingFunctions = new BookingFunctions();
 
@@ -68,7 +105,13 @@ public class BookingAPIController {
     @GetMapping("/availability/{id}/{showtime}")
     public ResponseEntity<Map<String, Object>> getSeatAvailability(
             @PathVariable String id,
-            @PathVariable String showtime) {
+            @PathVariable String showtime,
+            @RequestHeader(value = WaitingRooms.TOKEN_HEADER, required = false) String queueToken,
+            HttpSession session) {
+        ResponseEntity<Map<String, Object>> queued = checkWaitingRoom(
+                WaitingRooms.getInstance().checkShowing(id, showtime, session, queueToken));
+        if (queued != null) return queued;
+
         Map<String, Object> response = new HashMap<>();
         bookingFunctions = new BookingFunctions();
         
@@ -89,6 +132,181 @@ public class BookingAPIController {
         }
     }
 
+    /**
+     * Returns the showroom layout for a showtime, addressed by its ID.
+     * GET /api/booking/showtimes/{showtimeId}/seats
+     * With ?format=bitmap (or the bitmap Accept type) the availability bitmap is included as seatMap.
+     */
+    @GetMapping("/showtimes/{showtimeId}/seats")
+    public ResponseEntity<Map<String, Object>> getSeatsByShowtime(
+            @PathVariable int showtimeId,
+            @RequestParam(required = false) String format,
+            @RequestHeader(value = "Accept", required = false) String accept,
+            @RequestHeader(value = WaitingRooms.TOKEN_HEADER, required = false) String queueToken,
+            HttpSession session) {
+        ResponseEntity<Map<String, Object>> queued = checkWaitingRoom(
+                WaitingRooms.getInstance().check(null, showtimeId, session, queueToken));
+        if (queued != null) return queued;
+
+        Map<String, Object> response = new HashMap<>();
+        bookingFunctions = new BookingFunctions();
+
+        try {
+            Showroom showroom = bookingFunctions.getSeatsForShow(showtimeId);
+            if (showroom == null) {
+                response.put("success", false);
+                response.put("message", "Showtime not found");
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+            }
+            response.put("success", true);
+            response.put("showroom", showroom);
+            // Layout and availability in one round trip
+            if (!BookingFunctions.seatMapFormat(format, accept).equals("json")) {
+                response.put("seatMap", bookingFunctions.getSeatBitmapResponse(showtimeId, null));
+            }
+
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "Internal server error: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    /**
+     * Get the already-booked seat IDs for a showtime, addressed by its ID.
+     * GET /api/booking/showtimes/{showtimeId}/availability
+     *
+     * Compact forms, picked by ?format= or the Accept header:
+     *   format=bitmap / Accept: application/vnd.cinema.seat-bitmap+json - base64 bitmap with a version;
+     *     add ?since=V for just the seats that changed after version V
+     *   format=raw / Accept: application/octet-stream - the bitmap bytes, version in X-Seat-Map-Version
+     */
+    @GetMapping("/showtimes/{showtimeId}/availability")
+    public ResponseEntity<?> getSeatAvailabilityByShowtime(
+            @PathVariable int showtimeId,
+            @RequestParam(required = false) String format,
+            @RequestParam(required = false) Long since,
+            @RequestHeader(value = "Accept", required = false) String accept,
+            @RequestHeader(value = WaitingRooms.TOKEN_HEADER, required = false) String queueToken,
+            HttpSession session) {
+        ResponseEntity<Map<String, Object>> queued = checkWaitingRoom(
+                WaitingRooms.getInstance().check(null, showtimeId, session, queueToken));
+        if (queued != null) return queued;
+
+        Map<String, Object> response = new HashMap<>();
+        bookingFunctions = new BookingFunctions();
+
+        try {
+            String seatMapFormat = BookingFunctions.seatMapFormat(format, accept);
+            if (seatMapFormat.equals("raw")) {
+                SeatBitmap bitmap = bookingFunctions.getSeatBitmap(showtimeId);
+                if (bitmap == null) {
+                    return ResponseEntity.notFound().build();
+                }
+                return ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .header("X-Seat-Map-Version", String.valueOf(bitmap.getVersion()))
+                        .header("X-Seat-Map-Rows", String.valueOf(bitmap.getRows()))
+                        .header("X-Seat-Map-Cols", String.valueOf(bitmap.getCols()))
+                        .body(bitmap.getBits());
+            }
+            if (seatMapFormat.equals("bitmap")) {
+                Map<String, Object> body = bookingFunctions.getSeatBitmapResponse(showtimeId, since);
+                if (body == null) {
+                    response.put("success", false);
+                    response.put("message", "Showtime not found");
+                    return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+                }
+                response.putAll(body);
+                response.put("success", true);
+                return ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(response);
+            }
+
+            List<String> bookedSeats = bookingFunctions.getBookedSeats(showtimeId);
+
+            response.put("success", true);
+            response.put("bookedSeats", bookedSeats);
+            response.put("showtimeId", showtimeId);
+
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "Internal server error: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    /**
+     * Live seat availability for a showtime as Server-Sent Events: a "snapshot" event with
+     * every unavailable seat, then "delta" events as seats are booked, held or released.
+     * GET /api/booking/showtimes/{showtimeId}/stream
+     */
+    @GetMapping(value = "/showtimes/{showtimeId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamSeatAvailability(@PathVariable int showtimeId,
+                                                             HttpServletRequest request) {
+        SseEmitter emitter;
+        try {
+            emitter = SeatEventHub.getInstance().subscribe(showtimeId, request.getRemoteAddr());
+        } catch (IllegalStateException e) {
+            // Too many streams open for this client or in total
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header("Retry-After", "30").build();
+        }
+        if (emitter == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .header("Cache-Control", "no-cache")
+                .header("X-Accel-Buffering", "no") // don't let a proxy buffer the stream
+                .body(emitter);
+    }
+
+    /**
+     * Join or check the waiting room for a movie or showtime. Returns admitted=true when no
+     * room is open or the caller has been let in; otherwise their position and an ETA.
+     * This is the only endpoint that hands out queue numbers; keep the session cookie it sets.
+     * GET /api/booking/queue?showtimeId=12 (or ?movieId=5)
+     */
+    @GetMapping("/queue")
+    public ResponseEntity<Map<String, Object>> getQueueStatus(
+            @RequestParam(required = false) Integer movieId,
+            @RequestParam(required = false) Integer showtimeId,
+            @RequestHeader(value = WaitingRooms.TOKEN_HEADER, required = false) String queueToken,
+            HttpServletRequest request,
+            HttpSession session) {
+        Map<String, Object> response = new HashMap<>();
+        if (movieId == null && showtimeId == null) {
+            response.put("success", false);
+            response.put("message", "movieId or showtimeId is required");
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        WaitingRooms.Admission admission;
+        try {
+            admission = WaitingRooms.getInstance().join(movieId, showtimeId, session, queueToken,
+                    request.getRemoteAddr());
+        } catch (IllegalStateException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header("Retry-After", "60").body(response);
+        }
+        response.putAll(admission.toMap());
+        response.put("success", true);
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (admission.getToken() != null) {
+            builder.header(WaitingRooms.TOKEN_HEADER, admission.getToken());
+        }
+        if (!admission.isAllowed()) {
+            builder.header("Retry-After", String.valueOf(admission.getRetryAfterSeconds()));
+        }
+        return builder.body(response);
+    }
+
     /**
      * Get ticket pricing information.
      * GET /api/booking/prices
@@ -206,6 +424,263 @@ public class BookingAPIController {
         }
     }
 
+    // ==================== SEAT HOLDS ====================
+
+    /**
+     * Hold seats for a showtime while the user checks out. All seats are held or none are.
+     * Requires login; a user may hold up to SeatInventory.MAX_SEATS_PER_HOLD seats per hold and
+     * have up to SeatInventory.MAX_HOLDS_PER_OWNER holds active at once.
+     * POST /api/booking/holds
+     * Body: {
+     *   "showtimeId": 1,
+     *   "seatIds": ["A1", "A2"],
+     *   "minutes": 5 (optional, 1-15)
+     * }
+     */
+    @PostMapping("/holds")
+    public ResponseEntity<Map<String, Object>> placeHold(@RequestBody Map<String, Object> request,
+                                                         @RequestHeader(value = WaitingRooms.TOKEN_HEADER, required = false) String queueToken,
+                                                         HttpSession session) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            // Check if user is logged in
+            Boolean loggedIn = (Boolean) session.getAttribute("loggedIn");
+            if (loggedIn == null || !loggedIn) {
+                response.put("success", false);
+                response.put("message", "You must be logged in to hold seats");
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+            }
+
+            String userId = (String) session.getAttribute("userId");
+
+            Integer showtimeId = null;
+            Object showtimeIdObj = request.get("showtimeId");
+            if (showtimeIdObj != null) {
+                showtimeId = Integer.valueOf(showtimeIdObj.toString());
+            }
+
+            List<String> seatIds = null;
+            if (request.get("seatIds") instanceof List<?> seatList) {
+                seatIds = new ArrayList<>();
+                for (Object seatId : seatList) {
+                    if (!(seatId instanceof String)) {
+                        response.put("success", false);
+                        response.put("message", "seatIds must be a list of seat ID strings");
+                        return ResponseEntity.badRequest().body(response);
+                    }
+                    seatIds.add((String) seatId);
+                }
+            }
+
+            if (showtimeId == null || seatIds == null || seatIds.isEmpty()) {
+                response.put("success", false);
+                response.put("message", "Missing required fields (showtimeId, seatIds)");
+                return ResponseEntity.badRequest().body(response);
+            }
+            if (seatIds.size() > SeatInventory.MAX_SEATS_PER_HOLD) {
+                response.put("success", false);
+                response.put("message", "At most " + SeatInventory.MAX_SEATS_PER_HOLD + " seats can be held at once");
+                return ResponseEntity.badRequest().body(response);
+            }
+
+            ResponseEntity<Map<String, Object>> queued = checkWaitingRoom(
+                    WaitingRooms.getInstance().check(null, showtimeId, session, queueToken));
+            if (queued != null) return queued;
+
+            int minutes = DEFAULT_HOLD_MINUTES;
+            Object minutesObj = request.get("minutes");
+            if (minutesObj != null) {
+                minutes = Math.max(1, Math.min(MAX_HOLD_MINUTES, Integer.parseInt(minutesObj.toString())));
+            }
+
+            SeatHold hold = SeatInventory.getInstance()
+                    .placeHold(showtimeId, seatIds, userId, minutes * 60_000L);
+            if (hold == null) {
+                response.put("success", false);
+                response.put("message", "Showtime not found");
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+            }
+            if (!hold.isPlaced()) {
+                response.put("success", false);
+                response.put("message", "Seats unavailable: " + String.join(", ", hold.getConflicts()));
+                response.put("conflicts", hold.getConflicts());
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+            }
+
+            response.put("success", true);
+            response.put("holdId", hold.getHoldId());
+            response.put("showtimeId", hold.getShowtimeId());
+            response.put("seatIds", hold.getSeatIds());
+            response.put("expiresAt", hold.getExpiresAt());
+
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalStateException e) {
+            // Too many active holds for this user
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "Internal server error: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    /**
+     * Find the best block of adjacent seats for a group, and optionally hold it straight away.
+     * POST /api/booking/best-seats
+     * Body: {
+     *   "showtimeId": 1,
+     *   "partySize": 3,                       (or give ticketTypes instead)
+     *   "ticketTypes": {"adult": 2, "child": 1} (optional),
+     *   "hold": true                           (optional, default false; requires login),
+     *   "minutes": 5                           (optional, 1-15, with hold)
+     * }
+     * Returns the seat IDs and, when ticketTypes is given, tickets ready for POST /api/booking/create.
+     */
+    @PostMapping("/best-seats")
+    public ResponseEntity<Map<String, Object>> findBestSeats(@RequestBody Map<String, Object> request,
+                                                             @RequestHeader(value = WaitingRooms.TOKEN_HEADER, required = false) String queueToken,
+                                                             HttpSession session) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            Integer showtimeId = null;
+            Object showtimeIdObj = request.get("showtimeId");
+            if (showtimeIdObj != null) {
+                showtimeId = Integer.valueOf(showtimeIdObj.toString());
+            }
+
+            // Party size comes from ticketTypes when given, e.g. {"adult": 2, "child": 1}.
+            // Counts are checked before expanding so a huge count can't blow up the list.
+            List<String> ticketTypes = new ArrayList<>();
+            Object typesObj = request.get("ticketTypes");
+            if (typesObj instanceof Map<?, ?> typeCounts) {
+                for (Map.Entry<?, ?> entry : typeCounts.entrySet()) {
+                    int count = Integer.parseInt(entry.getValue().toString());
+                    if (count < 0 || count > SeatInventory.MAX_SEATS_PER_HOLD - ticketTypes.size()) {
+                        response.put("success", false);
+                        response.put("message", "A group can have at most " + SeatInventory.MAX_SEATS_PER_HOLD + " tickets");
+                        return ResponseEntity.badRequest().body(response);
+                    }
+                    for (int i = 0; i < count; i++) {
+                        ticketTypes.add(entry.getKey().toString());
+                    }
+                }
+            }
+            int partySize = ticketTypes.size();
+            Object partySizeObj = request.get("partySize");
+            if (partySize == 0 && partySizeObj != null) {
+                partySize = Integer.parseInt(partySizeObj.toString());
+            }
+
+            if (showtimeId == null || partySize < 1) {
+                response.put("success", false);
+                response.put("message", "Missing required fields (showtimeId, partySize or ticketTypes)");
+                return ResponseEntity.badRequest().body(response);
+            }
+            if (partySize > SeatInventory.MAX_SEATS_PER_HOLD) {
+                response.put("success", false);
+                response.put("message", "A group can have at most " + SeatInventory.MAX_SEATS_PER_HOLD + " tickets");
+                return ResponseEntity.badRequest().body(response);
+            }
+
+            // Holding seats follows the same rules as POST /holds
+            boolean placeHold = Boolean.parseBoolean(String.valueOf(request.get("hold")));
+            Boolean loggedIn = (Boolean) session.getAttribute("loggedIn");
+            if (placeHold && (loggedIn == null || !loggedIn)) {
+                response.put("success", false);
+                response.put("message", "You must be logged in to hold seats");
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+            }
+
+            ResponseEntity<Map<String, Object>> queued = checkWaitingRoom(
+                    WaitingRooms.getInstance().check(null, showtimeId, session, queueToken));
+            if (queued != null) return queued;
+
+            List<String> seatIds;
+            SeatHold hold = null;
+            if (placeHold) {
+                int minutes = DEFAULT_HOLD_MINUTES;
+                Object minutesObj = request.get("minutes");
+                if (minutesObj != null) {
+                    minutes = Math.max(1, Math.min(MAX_HOLD_MINUTES, Integer.parseInt(minutesObj.toString())));
+                }
+                hold = SeatInventory.getInstance()
+                        .holdBestSeats(showtimeId, partySize, (String) session.getAttribute("userId"), minutes * 60_000L);
+                seatIds = hold == null ? null : hold.getSeatIds();
+            } else {
+                seatIds = SeatInventory.getInstance().findBestSeats(showtimeId, partySize);
+            }
+
+            if (seatIds == null) {
+                response.put("success", false);
+                response.put("message", "Showtime not found");
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+            }
+            if (seatIds.isEmpty()) {
+                response.put("success", false);
+                response.put("message", "No block of " + partySize + " adjacent seats is available");
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+            }
+
+            response.put("success", true);
+            response.put("showtimeId", showtimeId);
+            response.put("seatIds", seatIds);
+            if (!ticketTypes.isEmpty()) {
+                List<Map<String, String>> tickets = new ArrayList<>();
+                for (int i = 0; i < seatIds.size(); i++) {
+                    tickets.add(Map.of("seatId", seatIds.get(i), "type", ticketTypes.get(i)));
+                }
+                response.put("tickets", tickets);
+            }
+            if (hold != null) {
+                response.put("holdId", hold.getHoldId());
+                response.put("expiresAt", hold.getExpiresAt());
+            }
+
+            return ResponseEntity.ok(response);
+
+        } catch (NumberFormatException e) {
+            response.put("success", false);
+            response.put("message", "Invalid number: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (IllegalStateException e) {
+            // Too many active holds for this user
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "Internal server error: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    /**
+     * Release a seat hold early (e.g. the user went back to the seat map).
+     * DELETE /api/booking/holds/{holdId}
+     */
+    @DeleteMapping("/holds/{holdId}")
+    public ResponseEntity<Map<String, Object>> releaseHold(@PathVariable String holdId,
+                                                           HttpSession session) {
+        Map<String, Object> response = new HashMap<>();
+
+        SeatHold hold = SeatInventory.getInstance().getHold(holdId);
+        if (hold == null || !hold.getOwner().equals(session.getAttribute("userId"))) {
+            response.put("success", false);
+            response.put("message", "Hold not found");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+
+        SeatInventory.getInstance().releaseHold(holdId);
+        response.put("success", true);
+        response.put("message", "Hold released");
+        return ResponseEntity.ok(response);
+    }
+
     // ==================== BOOKING MANAGEMENT ====================
 
     /**
@@ -219,11 +694,13 @@ public class BookingAPIController {
      *     {"seatId": "A2", "type": "child"}
      *   ],
      *   "promoCode": "PROMO123" (optional),
-     *   "cardId": "card-uuid" (required)
+     *   "cardId": "card-uuid" (required),
+     *   "holdId": "hold-uuid" (optional, from POST /api/booking/holds)
      * }
      */
     @PostMapping("/create")
     public ResponseEntity<Map<String, Object>> createBooking(@RequestBody Map<String, Object> request,
+                                                             @RequestHeader(value = WaitingRooms.TOKEN_HEADER, required = false) String queueToken,
                                                              HttpSession session) {
         Map<String, Object> response = new HashMap<>();
         BookingDBFunctions bookingDB = new BookingDBFunctions();
@@ -258,6 +735,7 @@ public class BookingAPIController {
             List<Map<String, String>> tickets = (List<Map<String, String>>) request.get("tickets");
             String promoCode = (String) request.get("promoCode");
             String cardId = (String) request.get("cardId");
+            String holdId = (String) request.get("holdId");
             
             // Validate required fields
             if (movieId == null || showtimeId == null || tickets == null || tickets.isEmpty()) {
@@ -265,6 +743,10 @@ public class BookingAPIController {
                 response.put("message", "Missing required fields (movieId, showtimeId, tickets)");
                 return ResponseEntity.badRequest().body(response);
             }
+
+            ResponseEntity<Map<String, Object>> queued = checkWaitingRoom(
+                    WaitingRooms.getInstance().check(movieId, showtimeId, session, queueToken));
+            if (queued != null) return queued;
             
             if (cardId == null || cardId.trim().isEmpty()) {
                 response.put("success", false);
@@ -306,8 +788,49 @@ public class BookingAPIController {
                 }
             }
             
+            // Confirmation email goes into the outbox with the booking (see EmailOutbox)
+            IntFunction<OutgoingMail> confirmationEmail = null;
+            if (email != null && firstName != null && emailService != null) {
+                // Get movie and showtime details for email
+                String movieTitle = "Movie #" + movieId;
+                try {
+                    Movie movie = movieSearchandFilter.getMovieById(movieId);
+                    if (movie != null) movieTitle = movie.getTitle();
+                } catch (Exception e) {
+                    System.err.println("Could not fetch movie: " + e.getMessage());
+                }
+
+                // Get showtime
+                String showtime = "N/A";
+                try {
+                    List<Map<String, Object>> showtimes = ShowtimeDBFunctions.getShowtimesByMovie(movieId);
+                    for (Map<String, Object> st : showtimes) {
+                        if (showtimeId.equals(st.get("showtimeId"))) {
+                            showtime = String.valueOf(st.get("showtime"));
+                            break;
+                        }
+                    }
+                } catch (Exception e) {
+                    System.err.println("Could not fetch showtime: " + e.getMessage());
+                }
+
+                List<String> seatIds = new ArrayList<>();
+                for (Map<String, String> ticket : tickets) {
+                    seatIds.add(ticket.get("seatId"));
+                }
+
+                String title = movieTitle;
+                String showtimeText = showtime;
+                double price = totalPrice;
+                confirmationEmail = id -> emailService.bookingConfirmationEmail(
+                        email, firstName, String.valueOf(id),
+                        title, showtimeText, seatIds, price
+                );
+            }
+
             // Create booking
-            Integer bookingId = bookingDB.createBooking(userId, showtimeId, totalPrice, promoId, tickets);
+            Integer bookingId = bookingDB.createBooking(userId, showtimeId, totalPrice, promoId, tickets,
+                    holdId, userId, confirmationEmail);
             if (bookingId == null) {
                 response.put("success", false);
                 String dbMessage = bookingDB.getLastError();
@@ -319,43 +842,6 @@ public class BookingAPIController {
                 return ResponseEntity.badRequest().body(response);
             }
             
-            // Send confirmation email
-            try {
-                if (email != null && firstName != null && emailService != null) {
-                    // Get movie and showtime details for email
-                    Movie movie = movieSearchandFilter.getMovieById(movieId);
-                    String movieTitle = movie != null ? movie.getTitle() : "Movie #" + movieId;
-                    
-                    // Get showtime
-                    String showtime = "N/A";
-                    try {
-                        List<Map<String, Object>> showtimes = ShowtimeDBFunctions.getShowtimesByMovie(movieId);
-                        for (Map<String, Object> st : showtimes) {
-                            if (showtimeId.equals(st.get("showtimeId"))) {
-                                showtime = String.valueOf(st.get("showtime"));
-                                break;
-                            }
-                        }
-                    } catch (Exception e) {
-                        System.err.println("Could not fetch showtime: " + e.getMessage());
-                    }
-                    
-                    List<String> seatIds = new ArrayList<>();
-                    for (Map<String, String> ticket : tickets) {
-                        seatIds.add(ticket.get("seatId"));
-                    }
-                    
-                    emailService.sendBookingConfirmationEmail(
-                        email, firstName, String.valueOf(bookingId),
-                        movieTitle, showtime, seatIds, totalPrice
-                    );
-                }
-            } catch (Exception e) {
-                // Log error but don't fail the booking
-                System.err.println("Failed to send confirmation email: " + e.getMessage());
-                e.printStackTrace();
-            }
-            
             response.put("success", true);
             response.put("message", "Booking created successfully");
             response.put("bookingId", bookingId);
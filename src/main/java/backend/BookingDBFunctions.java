@@ -5,6 +5,8 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntFunction;
 // import java.util.UUID; // No longer needed for booking_id
 
 /**
@@ -20,120 +22,92 @@ public class BookingDBFunctions {
         return lastError;
     }
 
-    // Generates the next booking ID in case the DB does not auto-generate it
-    private Integer getNextBookingId(Connection conn) throws SQLException {
-        try (PreparedStatement ps = conn.prepareStatement("SELECT IFNULL(MAX(booking_id), 0) + 1 AS nextId FROM Bookings");
-             ResultSet rs = ps.executeQuery()) {
-            if (rs.next()) {
-                return rs.getInt("nextId");
-            }
-        }
-        return null;
+    // Generates the next booking ID from a reserved block, so the DB is only hit once per block
+    // Call before the booking transaction starts, so a new ID block is reserved on conn
+    private Integer getNextBookingId(Connection conn) {
+        Long id = IdBlockAllocator.forBookings().nextId(conn);
+        return id != null ? Math.toIntExact(id) : null;
     }
 
     private String getShowroomIdForShowtime(Integer showtimeId, Connection conn) throws SQLException {
-        try (PreparedStatement ps = conn.prepareStatement("SELECT showroom_id FROM Showtimes WHERE showtime_id = ?")) {
+        return ShowtimeKeyCache.showroomFor(showtimeId, conn);
+    }
+
+    // Reads booked seats straight from Tickets (in canonical form), used when the seat inventory
+    // can't load a showtime
+    private List<String> getBookedSeatsFromTickets(Integer showtimeId, Connection conn) throws SQLException {
+        List<String> seats = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement("SELECT seat_id FROM Tickets WHERE showtime_id = ?")) {
             ps.setInt(1, showtimeId);
             try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getString("showroom_id");
+                while (rs.next()) {
+                    seats.add(SeatInventory.canonicalSeatId(rs.getString("seat_id")));
                 }
             }
         }
-        return null;
+        return seats;
     }
 
-    private void ensureSeatsExist(List<Map<String, String>> tickets, String showroomId, Connection conn) throws SQLException {
-        if (tickets == null || tickets.isEmpty() || showroomId == null) return;
-
-        for (Map<String, String> ticket : tickets) {
-            String seatId = ticket.get("seatId");
-            if (seatId == null || seatId.isBlank()) continue;
-
-            // Parse row label (letters) and seat number (digits)
-            int split = 0;
-            while (split < seatId.length() && Character.isLetter(seatId.charAt(split))) {
-                split++;
-            }
-            String rowLabel = seatId.substring(0, Math.max(split, 1));
-            String seatNumStr = seatId.substring(Math.max(split, 1));
-            int seatNumber = 0;
-            try {
-                seatNumber = Integer.parseInt(seatNumStr);
-            } catch (NumberFormatException ignored) {
-                // leave seatNumber as 0
-            }
-
-            // Insert seat if missing
-            try (PreparedStatement check = conn.prepareStatement("SELECT seat_id FROM Seats WHERE seat_id = ?")) {
-                check.setString(1, seatId);
-                try (ResultSet rs = check.executeQuery()) {
-                    if (rs.next()) {
-                        continue; // already exists
-                    }
-                }
-            }
+    /**
+     * True if the exception is a duplicate-key hit on the Tickets (showtime_id, seat_id) unique key.
+     */
+    private static boolean isSeatConflict(SQLException e) {
+        return e instanceof SQLIntegrityConstraintViolationException
+                && e.getErrorCode() == 1062 // ER_DUP_ENTRY
+                && e.getMessage() != null
+                && e.getMessage().contains("uq_tickets_showtime_seat");
+    }
 
-            try (PreparedStatement insert = conn.prepareStatement(
-                    "INSERT INTO Seats (seat_id, row_label, seat_number, showroom_id) VALUES (?, ?, ?, ?)")) {
-                insert.setString(1, seatId);
-                insert.setString(2, rowLabel);
-                insert.setInt(3, seatNumber);
-                insert.setString(4, showroomId);
-                insert.executeUpdate();
-            }
+    /**
+     * Which of the requested seats are already in Tickets. Falls back to all of them if the
+     * lookup itself fails, so the caller still gets a usable message.
+     */
+    private List<String> findTakenSeats(Integer showtimeId, List<String> seatIds, Connection conn) {
+        try {
+            List<String> taken = new ArrayList<>(getBookedSeatsFromTickets(showtimeId, conn));
+            taken.retainAll(seatIds);
+            return taken.isEmpty() ? seatIds : taken;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return seatIds;
         }
     }
 
+    /**
+     * Get the showroom layout for a showing, identified by movie and start time.
+     * The showtime is resolved through ShowtimeKeyCache.
+     *
+     * @param movieId The movie ID
+     * @param showtime The showtime (HH:mm:ss)
+     * @return The showroom with its showtimeId set, or null if not found
+     */
     public Showroom getSeatsForShow(String movieId, String showtime) {
-        DatabaseConnectSingleton dcs = DatabaseConnectSingleton.getInstance();
-        PreparedStatement pstmt = null;
-        ResultSet rs = null;
-        String showroomId = null;
-        int showtimeId = -1;
-        Showroom activeShowroom = null;
-
-        try {
-            // Get both showroom_id and showtime_id
-            String sql = "SELECT showroom_id, showtime_id FROM Showtimes WHERE movie_id = ? AND showtime = CAST(? AS TIME)";
-
-            pstmt = dcs.getConn().prepareStatement(sql);
-            pstmt.setString(1, movieId);
-            pstmt.setString(2, showtime);
-
-            rs = pstmt.executeQuery();
-
-            if (rs.next()) {
-                showroomId = rs.getString("showroom_id");
-                showtimeId = rs.getInt("showtime_id");
-            }
-
-            sql = "SELECT * FROM Showrooms WHERE showroom_id = ?";
-            pstmt = dcs.getConn().prepareStatement(sql);
-            pstmt.setString(1, showroomId);
-
-            rs = pstmt.executeQuery();
+        ShowtimeKeyCache.ShowtimeKey key = resolveShowtime(movieId, showtime);
+        return key == null ? null : getSeatsForShow(key.getShowtimeId());
+    }
 
-            if (rs.next()) {
-                activeShowroom = new Showroom();
-                activeShowroom.setShowroomId(rs.getInt("showroom_id"));
-                activeShowroom.setName(rs.getString("name"));
-                activeShowroom.setSeatCount(rs.getInt("seat_count"));
-                activeShowroom.setNumOfRows(rs.getInt("num_of_rows"));
-                activeShowroom.setNumOfCols(rs.getInt("num_of_cols"));
-                activeShowroom.setTheatreId(rs.getString("theatre_id"));
-                activeShowroom.setShowtimeId(showtimeId);  // Set the showtimeId
-            }
+    /**
+     * Get the showroom layout for a showtime. The layout comes from the ShowroomRegistry, so
+     * this only touches the DB the first time a showtime is seen.
+     *
+     * @param showtimeId The showtime ID
+     * @return The showroom with its showtimeId set, or null if not found
+     */
+    public Showroom getSeatsForShow(int showtimeId) {
+        Connection conn = null;
 
-            return activeShowroom;
+        try {
+            conn = DatabaseConnectSingleton.getInstance().getConn();
+            String showroomId = ShowtimeKeyCache.showroomFor(showtimeId, conn);
+            ShowroomLayout layout = ShowroomRegistry.getInstance().get(showroomId);
+            return layout == null ? null : layout.toShowroom(showtimeId);
 
         } catch (SQLException e) {
-            System.err.println("Error getting promotion by code: " + e.getMessage());
+            System.err.println("Error getting showroom for showtime: " + e.getMessage());
             e.printStackTrace();
         } finally {
             try {
-                if (rs != null) rs.close();
-                if (pstmt != null) pstmt.close();
+                if (conn != null) conn.close();
             } catch (SQLException e) {
                 e.printStackTrace();
             }
@@ -142,39 +116,69 @@ public class BookingDBFunctions {
     }
 
     /**
-     * Get list of seat IDs that are already booked for a specific showtime.
+     * Get list of seat IDs that are already booked for a showing, identified by movie and start time.
      * 
-     * @param movieId The showtime ID
+     * @param movieId The movie ID
+     * @param showtime The showtime (HH:mm:ss)
      * @return List of booked seat IDs
      */
     public List<String> getBookedSeats(String movieId, String showtime) {
-        DatabaseConnectSingleton dcs = DatabaseConnectSingleton.getInstance();
-        PreparedStatement pstmt = null;
-        ResultSet rs = null;
-        List<String> bookedSeats = new ArrayList<>();
+        ShowtimeKeyCache.ShowtimeKey key = resolveShowtime(movieId, showtime);
+        if (key == null) {
+            return new ArrayList<>();
+        }
+        List<String> bookedSeats = getBookedSeats(key.getShowtimeId());
+        System.out.println("Found " + bookedSeats.size() + " booked seats for showing of Movie #" +movieId+ " at " +showtime+ ".");
+        return bookedSeats;
+    }
 
-        try {
-            String sql = "SELECT seat_id FROM Tickets AS t INNER JOIN Showtimes AS sh ON t.showtime_id = sh.showtime_id WHERE sh.movie_id = ? AND sh.showtime = CAST(? AS TIME)";
-            pstmt = dcs.getConn().prepareStatement(sql);
-            pstmt.setString(1, movieId);
-            pstmt.setString(2, showtime);
-            rs = pstmt.executeQuery();
+    /**
+     * Get list of seat IDs that are already booked (or held) for a showtime.
+     * Served from the in-memory SeatInventory, falling back to Tickets if it can't load.
+     *
+     * @param showtimeId The showtime ID
+     * @return List of booked seat IDs
+     */
+    public List<String> getBookedSeats(int showtimeId) {
+        List<String> seats = SeatInventory.getInstance().getBookedSeats(showtimeId);
+        if (seats != null) {
+            return seats;
+        }
 
-            while (rs.next()) {
-                bookedSeats.add(rs.getString("seat_id"));
+        Connection conn = null;
+        try {
+            conn = DatabaseConnectSingleton.getInstance().getConn();
+            return getBookedSeatsFromTickets(showtimeId, conn);
+        } catch (SQLException e) {
+            System.err.println("Error getting booked seats: " + e.getMessage());
+            e.printStackTrace();
+            return new ArrayList<>();
+        } finally {
+            try {
+                if (conn != null) conn.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
             }
+        }
+    }
 
-            System.out.println("Found " + bookedSeats.size() + " booked seats for showing of Movie #" +movieId+ " at " +showtime+ ".");
-            return bookedSeats;
-
+    // Resolves (movieId, HH:mm:ss) to a showtime; cached, so repeat seat-map views skip the query
+    private ShowtimeKeyCache.ShowtimeKey resolveShowtime(String movieId, String showtime) {
+        Connection conn = null;
+        try {
+            conn = DatabaseConnectSingleton.getInstance().getConn();
+            ShowtimeKeyCache.ShowtimeKey key = ShowtimeKeyCache.resolve(movieId, showtime, conn);
+            if (key == null) {
+                System.err.println("No showtime found for Movie #" + movieId + " at " + showtime);
+            }
+            return key;
         } catch (SQLException e) {
-            System.err.println("Error getting booked seats: " + e.getMessage());
+            System.err.println("Error resolving showtime: " + e.getMessage());
             e.printStackTrace();
-            return bookedSeats;
+            return null;
         } finally {
             try {
-                if (rs != null) rs.close();
-                if (pstmt != null) pstmt.close();
+                if (conn != null) conn.close();
             } catch (SQLException e) {
                 e.printStackTrace();
             }
@@ -193,33 +197,75 @@ public class BookingDBFunctions {
      */
     public Integer createBooking(String userId, Integer showtimeId, double totalPrice, 
                                String promoId, List<Map<String, String>> tickets) {
-        DatabaseConnectSingleton dcs = DatabaseConnectSingleton.getInstance();
+        return createBooking(userId, showtimeId, totalPrice, promoId, tickets, null, null);
+    }
+
+    /**
+     * Create a new booking with tickets, converting a seat hold into Tickets rows.
+     * The hold must still be active, belong to holdOwner, and cover every ticketed seat.
+     * It is released once the booking commits.
+     *
+     * @param holdId Seat hold placed via SeatInventory.placeHold (optional, can be null)
+     * @param holdOwner Owner the hold was placed for
+     * @return Generated booking ID, or null if failed
+     */
+    public Integer createBooking(String userId, Integer showtimeId, double totalPrice,
+                               String promoId, List<Map<String, String>> tickets,
+                               String holdId, String holdOwner) {
+        return createBooking(userId, showtimeId, totalPrice, promoId, tickets, holdId, holdOwner, null);
+    }
+
+    /**
+     * Create a new booking with tickets, writing its confirmation email to EmailOutbox in the
+     * same transaction so the email is sent if and only if the booking commits.
+     *
+     * @param confirmationEmail Builds the email from the new booking ID (optional, can be null)
+     * @return Generated booking ID, or null if failed
+     */
+    public Integer createBooking(String userId, Integer showtimeId, double totalPrice,
+                               String promoId, List<Map<String, String>> tickets,
+                               String holdId, String holdOwner,
+                               IntFunction<OutgoingMail> confirmationEmail) {
+        Connection conn = null;
         PreparedStatement pstmt = null;
         ResultSet rs = null;
         Integer bookingId = null;
         lastError = null;
+        // Serializes bookings for this showtime only; other showtimes book in parallel
+        ReentrantLock showtimeLock = ShowtimeLocks.forShowtime(showtimeId);
+        List<String> seatIds = new ArrayList<>();
 
         try {
-            // Quick check: verify none of the requested seats are already booked for this showtime
-            if (tickets != null && !tickets.isEmpty()) {
-                StringBuilder placeholders = new StringBuilder();
-                for (int i = 0; i < tickets.size(); i++) {
-                    if (i > 0) placeholders.append(",");
-                    placeholders.append("?");
+            conn = DatabaseConnectSingleton.getInstance().getConn();
+            if (conn == null) {
+                lastError = "Database unavailable";
+                return null;
+            }
+            // Collect the requested seats in canonical form; the hold is checked against them next,
+            // and availability under the showtime lock below
+            if (tickets != null) {
+                for (Map<String, String> ticket : tickets) {
+                    // Stored as "A5" even if asked for as "Ax5", so uq_tickets_showtime_seat sees one seat
+                    seatIds.add(SeatInventory.canonicalSeatId(ticket.get("seatId")));
                 }
-                String dupSql = "SELECT seat_id FROM Tickets WHERE showtime_id = ? AND seat_id IN (" + placeholders + ")";
-                pstmt = dcs.getConn().prepareStatement(dupSql);
-                pstmt.setInt(1, showtimeId);
-                for (int i = 0; i < tickets.size(); i++) {
-                    pstmt.setString(i + 2, tickets.get(i).get("seatId"));
+            }
+            if (holdId != null) {
+                SeatHold hold = SeatInventory.getInstance().getHold(holdId);
+                if (hold == null || !hold.getOwner().equals(holdOwner)
+                        || hold.getShowtimeId() != showtimeId || !hold.getSeatIds().containsAll(seatIds)) {
+                    lastError = "Seat hold expired or not found";
+                    return null;
                 }
-                rs = pstmt.executeQuery();
-                List<String> alreadyBooked = new ArrayList<>();
-                while (rs.next()) {
-                    alreadyBooked.add(rs.getString("seat_id"));
+            }
+            showtimeLock.lock();
+            if (!seatIds.isEmpty()) {
+                // Seats held by someone else count as taken; seats under our own hold don't
+                List<String> alreadyBooked = SeatInventory.getInstance().findUnavailable(showtimeId, seatIds, holdId, conn);
+                if (alreadyBooked == null) {
+                    // Inventory unavailable for this showtime - check Tickets directly
+                    alreadyBooked = new ArrayList<>(getBookedSeatsFromTickets(showtimeId, conn));
+                    alreadyBooked.retainAll(seatIds);
                 }
-                rs.close();
-                pstmt.close();
 
                 if (!alreadyBooked.isEmpty()) {
                     lastError = "Seats already booked: " + String.join(", ", alreadyBooked);
@@ -227,21 +273,28 @@ public class BookingDBFunctions {
                 }
             }
 
-            // Start transaction
-            dcs.getConn().setAutoCommit(false);
+            // Make sure the showroom's seat rows exist (FK on Tickets -> Seats); after the first
+            // booking per showroom this is an in-memory check
+            String showroomId = getShowroomIdForShowtime(showtimeId, conn);
+            if (!SeatProvisioner.ensureProvisioned(showroomId, conn)) {
+                lastError = "Showroom not found for showtime " + showtimeId;
+                return null;
+            }
 
             // Generate booking ID manually to avoid "no default value" issues on some schemas
-            bookingId = getNextBookingId(dcs.getConn());
+            bookingId = getNextBookingId(conn);
             if (bookingId == null) {
                 lastError = "Could not generate booking id";
-                dcs.getConn().rollback();
                 return null;
             }
 
+            // Start transaction
+            conn.setAutoCommit(false);
+
             // Insert into Bookings table using explicit booking_id
             String bookingSql = "INSERT INTO Bookings (booking_id, customer_id, status, total_price, promo_id) " +
                                "VALUES (?, ?, ?, ?, ?)";
-            pstmt = dcs.getConn().prepareStatement(bookingSql);
+            pstmt = conn.prepareStatement(bookingSql);
             pstmt.setInt(1, bookingId);
             pstmt.setString(2, userId);
             pstmt.setString(3, "Confirmed");
@@ -249,27 +302,18 @@ public class BookingDBFunctions {
             pstmt.setString(5, promoId);
             int rowsAffected = pstmt.executeUpdate();
             if (rowsAffected == 0) {
-                dcs.getConn().rollback();
+                conn.rollback();
                 return null;
             }
             pstmt.close();
 
-            // Ensure seat rows exist for this showroom (FK on Tickets -> Seats)
-            String showroomId = getShowroomIdForShowtime(showtimeId, dcs.getConn());
-            if (showroomId == null) {
-                lastError = "Showroom not found for showtime " + showtimeId;
-                dcs.getConn().rollback();
-                return null;
-            }
-            ensureSeatsExist(tickets, showroomId, dcs.getConn());
-
             // Insert tickets
             String ticketSql = "INSERT INTO Tickets (ticket_id, seat_id, showtime_id, booking_id, price, type) " +
                               "VALUES (?, ?, ?, ?, ?, ?)";
-            pstmt = dcs.getConn().prepareStatement(ticketSql);
+            pstmt = conn.prepareStatement(ticketSql);
             for (Map<String, String> ticket : tickets) {
-                String ticketId = java.util.UUID.randomUUID().toString(); // ticket_id can remain UUID
-                String seatId = ticket.get("seatId");
+                String ticketId = Ids.newId(); // time-ordered, see IdGenerator
+                String seatId = SeatInventory.canonicalSeatId(ticket.get("seatId"));
                 String type = ticket.get("type");
                 // Get price based on type
                 double price = 12.00; // default adult
@@ -289,35 +333,57 @@ public class BookingDBFunctions {
             // Check if all tickets were inserted
             for (int result : batchResults) {
                 if (result == Statement.EXECUTE_FAILED) {
-                    dcs.getConn().rollback();
+                    conn.rollback();
                     System.err.println("Failed to insert some tickets - rolling back");
                     return null;
                 }
             }
 
+            if (confirmationEmail != null) {
+                EmailOutbox.add(conn, confirmationEmail.apply(bookingId));
+            }
+
             // Commit transaction
-            dcs.getConn().commit();
+            conn.commit();
+            SeatInventory.getInstance().markBooked(showtimeId, seatIds);
+            if (holdId != null) {
+                SeatInventory.getInstance().releaseHold(holdId);
+            }
+            if (confirmationEmail != null) {
+                EmailOutbox.getInstance().wakeUp();
+            }
             System.out.println("Booking created successfully with ID: " + bookingId);
             return bookingId;
 
         } catch (SQLException e) {
-            System.err.println("Error creating booking: " + e.getMessage());
-            e.printStackTrace();
-            lastError = e.getMessage();
             try {
-                if (dcs.getConn() != null) {
-                    dcs.getConn().rollback();
+                if (conn != null) {
+                    conn.rollback();
                 }
             } catch (SQLException ex) {
                 ex.printStackTrace();
             }
+            if (isSeatConflict(e)) {
+                // Another node booked one of these seats; our in-memory view was stale
+                SeatInventory.getInstance().invalidate(showtimeId);
+                lastError = "Seats already booked: " + String.join(", ", findTakenSeats(showtimeId, seatIds, conn));
+                System.err.println("Booking rejected by seat constraint: " + lastError);
+                return null;
+            }
+            System.err.println("Error creating booking: " + e.getMessage());
+            e.printStackTrace();
+            lastError = e.getMessage();
             return null;
         } finally {
+            if (showtimeLock.isHeldByCurrentThread()) {
+                showtimeLock.unlock();
+            }
             try {
                 if (rs != null) rs.close();
                 if (pstmt != null) pstmt.close();
-                if (dcs.getConn() != null) {
-                    dcs.getConn().setAutoCommit(true);
+                if (conn != null) {
+                    conn.setAutoCommit(true);
+                    conn.close();
                 }
             } catch (SQLException e) {
                 e.printStackTrace();
@@ -333,15 +399,16 @@ public class BookingDBFunctions {
      * @return Booking details with tickets, or null if not found/unauthorized
      */
     public Map<String, Object> getBookingById(int bookingId, String userId) {
-        DatabaseConnectSingleton dcs = DatabaseConnectSingleton.getInstance();
+        Connection conn = null;
         PreparedStatement pstmt = null;
         ResultSet rs = null;
 
         try {
+            conn = DatabaseConnectSingleton.getInstance().getConn();
             // Get booking info
             String sql = "SELECT b.booking_id, b.booking_date, b.status, b.total_price, b.customer_id, b.promo_id FROM Bookings b WHERE b.booking_id = ? AND b.customer_id = ?";
             
-            pstmt = dcs.getConn().prepareStatement(sql);
+            pstmt = conn.prepareStatement(sql);
             pstmt.setInt(1, bookingId);
             pstmt.setString(2, userId);
             rs = pstmt.executeQuery();
@@ -378,7 +445,7 @@ public class BookingDBFunctions {
                   "FROM Tickets t " +
                   "WHERE t.booking_id = ?";
             
-            pstmt = dcs.getConn().prepareStatement(sql);
+            pstmt = conn.prepareStatement(sql);
             pstmt.setInt(1, bookingId);
             rs = pstmt.executeQuery();
 
@@ -405,6 +472,7 @@ public class BookingDBFunctions {
             try {
                 if (rs != null) rs.close();
                 if (pstmt != null) pstmt.close();
+                if (conn != null) conn.close();
             } catch (SQLException e) {
                 e.printStackTrace();
             }
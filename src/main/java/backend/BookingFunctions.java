@@ -8,6 +8,7 @@ import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.sql.*;
@@ -19,6 +20,13 @@ import java.sql.*;
 public class BookingFunctions {
     public BookingFunctions() { }
 
+    // Formatters are immutable and thread-safe, so build them once rather than per request
+    private static final DateTimeFormatter INPUT_TIME_FORMAT = DateTimeFormatter.ofPattern("h:mm a");
+    private static final DateTimeFormatter OUTPUT_TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+    // Accept type for the base64 bitmap seat map
+    public static final String SEAT_BITMAP_MEDIA_TYPE = "application/vnd.cinema.seat-bitmap+json";
+
     private BookingDBFunctions bookingDBFunctions = new BookingDBFunctions();
     
     @Autowired
@@ -40,11 +48,7 @@ public class BookingFunctions {
 
         try {
             // Convert 12-hour format to 24-hour format using Java Time API
-            DateTimeFormatter inputFormat = DateTimeFormatter.ofPattern("h:mm a");
-            DateTimeFormatter outputFormat = DateTimeFormatter.ofPattern("HH:mm:ss");
-            
-            LocalTime time = LocalTime.parse(showtime.trim(), inputFormat);
-            String militaryTime = time.format(outputFormat);
+            String militaryTime = toMilitaryTime(showtime);
             
             System.out.println("Converted showtime: " + showtime + " -> " + militaryTime);
             
@@ -76,11 +80,7 @@ public class BookingFunctions {
      */
     public List<String> getBookedSeats(String movieId, String showtime) {
         try {
-            DateTimeFormatter inputFormat = DateTimeFormatter.ofPattern("h:mm a");
-            DateTimeFormatter outputFormat = DateTimeFormatter.ofPattern("HH:mm:ss");
-
-            LocalTime time = LocalTime.parse(showtime.trim(), inputFormat);
-            String militaryTime = time.format(outputFormat);
+            String militaryTime = toMilitaryTime(showtime);
 
             System.out.println("Converted showtime: " + showtime + " -> " + militaryTime);
 
@@ -92,6 +92,106 @@ public class BookingFunctions {
         }
     }
 
+    /**
+     * Get showroom with seat availability for a showtime.
+     *
+     * @param showtimeId The showtime ID
+     * @return Showroom object with seat information, or null if not found
+     */
+    public Showroom getSeatsForShow(int showtimeId) {
+        Showroom activeShowroom = bookingDBFunctions.getSeatsForShow(showtimeId);
+        if (activeShowroom == null) {
+            System.err.println("No showroom found for showtime #" + showtimeId);
+        }
+        return activeShowroom;
+    }
+
+    /**
+     * Get list of already-booked seat IDs for a showtime.
+     *
+     * @param showtimeId The showtime ID
+     * @return List of seat IDs that are already booked
+     */
+    public List<String> getBookedSeats(int showtimeId) {
+        return bookingDBFunctions.getBookedSeats(showtimeId);
+    }
+
+    /**
+     * Get the unavailable seats of a showtime as a bitmap (see SeatBitmap).
+     *
+     * @param showtimeId The showtime ID
+     * @return The bitmap, or null if the showtime doesn't exist
+     */
+    public SeatBitmap getSeatBitmap(int showtimeId) {
+        return SeatInventory.getInstance().getBitmap(showtimeId);
+    }
+
+    /**
+     * Build the bitmap-format availability body for a showtime.
+     *
+     * Without since, or when since is too old to catch up from, the body is the full map
+     * ("mode": "full"). Otherwise it is a delta ("mode": "delta") listing the bit indexes
+     * that became unavailable (taken) or available (released) after that version.
+     *
+     * @param showtimeId The showtime ID
+     * @param since A version the client already has, or null
+     * @return The body, or null if the showtime doesn't exist
+     */
+    public Map<String, Object> getSeatBitmapResponse(int showtimeId, Long since) {
+        SeatInventory inventory = SeatInventory.getInstance();
+        if (since != null) {
+            SeatChange delta = inventory.getChangesSince(showtimeId, since);
+            ShowroomLayout layout = inventory.getLayout(showtimeId);
+            if (delta != null && layout != null) {
+                Map<String, Object> body = new HashMap<>();
+                body.put("mode", "delta");
+                body.put("showtimeId", showtimeId);
+                body.put("since", since);
+                body.put("version", delta.getVersion());
+                body.put("taken", toSeatIndexes(delta.getTaken(), layout));
+                body.put("released", toSeatIndexes(delta.getReleased(), layout));
+                return body;
+            }
+        }
+
+        SeatBitmap bitmap = inventory.getBitmap(showtimeId);
+        if (bitmap == null) return null;
+        Map<String, Object> body = bitmap.toMap();
+        body.put("mode", "full");
+        return body;
+    }
+
+    private static List<Integer> toSeatIndexes(List<String> seatIds, ShowroomLayout layout) {
+        List<Integer> indexes = new ArrayList<>(seatIds.size());
+        for (String seatId : seatIds) {
+            int index = layout.indexOf(seatId);
+            if (index >= 0) indexes.add(index);
+        }
+        return indexes;
+    }
+
+    /**
+     * Pick the seat-map representation a client asked for: "raw" (the bitmap bytes),
+     * "bitmap" (base64 bitmap in JSON) or "json" (the list of seat IDs, the default).
+     * An explicit format parameter wins over the Accept header.
+     */
+    public static String seatMapFormat(String format, String accept) {
+        if (format != null && !format.isBlank()) {
+            String f = format.trim().toLowerCase();
+            return f.equals("raw") || f.equals("bitmap") ? f : "json";
+        }
+        if (accept != null) {
+            if (accept.contains(SEAT_BITMAP_MEDIA_TYPE)) return "bitmap";
+            if (accept.contains("application/octet-stream")) return "raw";
+        }
+        return "json";
+    }
+
+    // "2:00 PM" -> "14:00:00"
+    private static String toMilitaryTime(String showtime) {
+        return LocalTime.parse(showtime.trim(), INPUT_TIME_FORMAT).format(OUTPUT_TIME_FORMAT);
+    }
+
     /**
      * Create a new booking with tickets for selected seats.
      * 
@@ -197,24 +297,22 @@ public class BookingFunctions {
             String movieTitle = (movie != null) ? movie.getTitle() : "Movie #" + movieId;
             
             // Get showtime details
-            Connection conn = DatabaseConnectSingleton.getInstance().getConn();
-            String sql = "SELECT showtime FROM Showtimes WHERE showtime_id = ?";
-            PreparedStatement pstmt = conn.prepareStatement(sql);
-            pstmt.setInt(1, showtimeId);
-            ResultSet rs = pstmt.executeQuery();
-            
             String showtime = "TBA";
-            if (rs.next()) {
-                // Convert from TIME to readable format
-                Time time = rs.getTime("showtime");
-                showtime = time.toString(); // Will be "14:00:00"
-                // Convert to 12-hour format
-                DateTimeFormatter outputFormat = DateTimeFormatter.ofPattern("h:mm a");
-                LocalTime localTime = time.toLocalTime();
-                showtime = localTime.format(outputFormat); // "2:00 PM"
+            String sql = "SELECT showtime FROM Showtimes WHERE showtime_id = ?";
+            try (Connection conn = DatabaseConnectSingleton.getInstance().getConn();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setInt(1, showtimeId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next()) {
+                        // Convert from TIME to readable format
+                        Time time = rs.getTime("showtime");
+                        showtime = time.toString(); // Will be "14:00:00"
+                        // Convert to 12-hour format
+                        LocalTime localTime = time.toLocalTime();
+                        showtime = localTime.format(INPUT_TIME_FORMAT); // "2:00 PM"
+                    }
+                }
             }
-            rs.close();
-            pstmt.close();
             
             // Extract seat IDs
             List<String> seatIds = new ArrayList<>();
@@ -0,0 +1,111 @@
+package backend;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Holds the current CatalogSnapshot so catalog reads never touch the database.
+ *
+ * The first read builds the snapshot; after that it is only rebuilt in the background, when
+ * an admin write (MovieDBFunctions.addMovie, ShowtimeDBFunctions.addShowtime) calls
+ * catalogChanged(), and every few minutes to pick up changes made outside this node.
+ * Readers keep getting the previous snapshot until the new one is swapped in.
+ *
+ * Components that derive their own data from the catalog register with addListener and are
+ * called with each new snapshot before readers can see it.
+ */
+public class CatalogCache {
+    private static final long REFRESH_MINUTES = 5;
+
+    private static CatalogCache instance = null;
+
+    private final List<Consumer<CatalogSnapshot>> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean rebuildPending = new AtomicBoolean(false);
+    private final ScheduledExecutorService rebuilder;
+    private volatile CatalogSnapshot snapshot = null;
+    private long version = 0;
+
+    private CatalogCache() {
+        rebuilder = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "catalog-rebuild");
+            t.setDaemon(true);
+            return t;
+        });
+        rebuilder.scheduleWithFixedDelay(this::catalogChanged, REFRESH_MINUTES, REFRESH_MINUTES, TimeUnit.MINUTES);
+    }
+
+    public static synchronized CatalogCache getInstance() {
+        if (instance == null) {
+            instance = new CatalogCache();
+        }
+        return instance;
+    }
+
+    /**
+     * Get the current catalog snapshot, building it on first use.
+     *
+     * @throws SQLException if there is no snapshot yet and the catalog can't be loaded
+     */
+    public CatalogSnapshot getSnapshot() throws SQLException {
+        CatalogSnapshot current = snapshot;
+        if (current != null) return current;
+        synchronized (this) {
+            if (snapshot == null) {
+                rebuild();
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * Signal that movies or showtimes changed. The snapshot is rebuilt in the background;
+     * several changes in a row are folded into one rebuild.
+     */
+    public void catalogChanged() {
+        if (rebuildPending.compareAndSet(false, true)) {
+            rebuilder.execute(() -> {
+                rebuildPending.set(false);
+                try {
+                    synchronized (this) {
+                        rebuild();
+                    }
+                } catch (SQLException e) {
+                    System.err.println("Error rebuilding catalog snapshot: " + e.getMessage());
+                }
+            });
+        }
+    }
+
+    /**
+     * Call the listener with every new snapshot (and with the current one, if already built).
+     */
+    public void addListener(Consumer<CatalogSnapshot> listener) {
+        listeners.add(listener);
+        CatalogSnapshot current = snapshot;
+        if (current != null) {
+            listener.accept(current);
+        }
+    }
+
+    // Caller holds the instance lock. Listeners run before the snapshot is published, so
+    // anything derived from it is ready by the time getSnapshot() returns it.
+    private void rebuild() throws SQLException {
+        CatalogSnapshot built = new CatalogSnapshot(++version, new MovieSearchandFilter().getAllMovies());
+        System.out.println("Catalog snapshot v" + built.getVersion() + " built: " + built.getMovies().size() + " movies");
+        for (Consumer<CatalogSnapshot> listener : listeners) {
+            try {
+                listener.accept(built);
+            } catch (Exception e) {
+                System.err.println("Catalog listener failed: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+        snapshot = built;
+    }
+}
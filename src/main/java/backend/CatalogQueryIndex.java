@@ -0,0 +1,314 @@
+package backend;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Bitmap indexes over a catalog snapshot for /api/movies/query.
+ *
+ * Every movie gets an ordinal (its position in the snapshot's movie list). Each facet value
+ * (genre, rating, currently showing, has showtimes) maps to a BitSet of the ordinals that have
+ * it, so filters are BitSet ANDs/ORs and facet counts are cardinalities. Each facet's counts are
+ * taken over the other active filters only, so picking a genre still shows how many movies the
+ * other genres would give. Sort orders are precomputed per sort key.
+ *
+ * Pagination uses an opaque cursor holding the sort, and the sort-key value and movieId of the
+ * last movie returned. The next page resumes at the first movie after that (key, movieId) in
+ * the current sort order, found by binary search, so a cursor still works after a catalog
+ * rebuild has changed or removed that movie.
+ */
+public class CatalogQueryIndex {
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+
+    private static final Map<String, SortKey<?>> SORTS = new LinkedHashMap<>();
+
+    static {
+        SORTS.put("title", new SortKey<>(m -> TitleSearchIndex.normalize(m.getTitle()), Function.identity()));
+        SORTS.put("duration", new SortKey<>(CatalogQueryIndex::durationOf, Integer::valueOf));
+        SORTS.put("id", new SortKey<>(Movie::getMovieId, Integer::valueOf));
+    }
+
+    /**
+     * A sort order: movies by key, then by movieId. parse reads a key back from a cursor.
+     */
+    private static class SortKey<K extends Comparable<K>> {
+        final Function<Movie, K> key;
+        final Function<String, K> parse;
+
+        SortKey(Function<Movie, K> key, Function<String, K> parse) {
+            this.key = key;
+            this.parse = parse;
+        }
+
+        Comparator<Movie> comparator() {
+            return Comparator.comparing(key).thenComparingInt(Movie::getMovieId);
+        }
+
+        String keyOf(Movie movie) {
+            return String.valueOf(key.apply(movie));
+        }
+
+        /**
+         * Position in order to continue from after the cursor's (key, movieId): the first
+         * movie past it when walking up, or the last one before it when walking down.
+         */
+        int resumeAt(List<Movie> movies, int[] order, String cursorKey, int cursorId, boolean descending) {
+            K afterKey = parse.apply(cursorKey);
+            // Binary search for the first position whose (key, movieId) is above the cursor's
+            int low = 0;
+            int high = order.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                Movie movie = movies.get(order[mid]);
+                int cmp = key.apply(movie).compareTo(afterKey);
+                if (cmp == 0) cmp = Integer.compare(movie.getMovieId(), cursorId);
+                if (cmp > 0) {
+                    high = mid;
+                } else {
+                    low = mid + 1;
+                }
+            }
+            if (!descending) return low;
+            // Walking down: skip the cursor's own movie if it is still there
+            int pos = low - 1;
+            if (pos >= 0) {
+                Movie movie = movies.get(order[pos]);
+                if (movie.getMovieId() == cursorId && key.apply(movie).compareTo(afterKey) == 0) pos--;
+            }
+            return pos;
+        }
+    }
+
+    private volatile Index index = null;
+
+    /** Filters and paging for one query. Null or blank fields are not filtered on. */
+    public static class Query {
+        public String title;
+        public Set<String> genres = Set.of();
+        public Set<String> ratings = Set.of();
+        public Boolean currentlyShowing;
+        public Boolean hasShowtimes;
+        public Integer minDuration;
+        public Integer maxDuration;
+        public String sort = "title";
+        public String cursor;
+        public int limit = DEFAULT_LIMIT;
+    }
+
+    private static class Index {
+        final CatalogSnapshot snapshot;
+        final List<Movie> movies;
+        final Map<Integer, Integer> ordinalById = new HashMap<>();
+        final Map<String, BitSet> byGenre = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        final Map<String, BitSet> byRating = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        final BitSet showing = new BitSet();
+        final BitSet withShowtimes = new BitSet();
+        final int[] durations;
+        final Map<String, int[]> orders = new HashMap<>();  // sort key -> ordinals in order
+
+        Index(CatalogSnapshot snapshot) {
+            this.snapshot = snapshot;
+            this.movies = snapshot.getMovies();
+            this.durations = new int[movies.size()];
+            for (int i = 0; i < movies.size(); i++) {
+                Movie movie = movies.get(i);
+                ordinalById.put(movie.getMovieId(), i);
+                if (movie.getGenre() != null) byGenre.computeIfAbsent(movie.getGenre(), k -> new BitSet()).set(i);
+                if (movie.getRating() != null) byRating.computeIfAbsent(movie.getRating(), k -> new BitSet()).set(i);
+                if (movie.isCurrentlyShowing()) showing.set(i);
+                if (!movie.getShowtimeList().isEmpty()) {
+                    withShowtimes.set(i);
+                }
+                durations[i] = durationOf(movie);
+            }
+            for (Map.Entry<String, SortKey<?>> sort : SORTS.entrySet()) {
+                Comparator<Movie> comparator = sort.getValue().comparator();
+                Integer[] boxed = new Integer[movies.size()];
+                for (int i = 0; i < boxed.length; i++) boxed[i] = i;
+                Arrays.sort(boxed, (a, b) -> comparator.compare(movies.get(a), movies.get(b)));
+                int[] order = new int[boxed.length];
+                for (int pos = 0; pos < order.length; pos++) {
+                    order[pos] = boxed[pos];
+                }
+                orders.put(sort.getKey(), order);
+            }
+        }
+
+        BitSet all() {
+            BitSet bits = new BitSet(movies.size());
+            bits.set(0, movies.size());
+            return bits;
+        }
+    }
+
+    /**
+     * Rebuild from a new catalog snapshot (CatalogCache listener).
+     */
+    public void update(CatalogSnapshot snapshot) {
+        index = new Index(snapshot);
+    }
+
+    /**
+     * Run a query.
+     *
+     * @param query Filters, sort and paging
+     * @param titleMatches Movies matching query.title (from the title search index), or null
+     *                     if there is no title filter
+     * @return {"movies", "total", "nextCursor", "facets", "catalogVersion"}
+     * @throws IllegalArgumentException for an unknown sort key or a malformed cursor
+     */
+    public Map<String, Object> query(Query query, List<Movie> titleMatches) {
+        Index idx = index;
+        if (idx == null) throw new IllegalStateException("Catalog not loaded");
+
+        boolean descending = query.sort != null && query.sort.startsWith("-");
+        String sortKey = query.sort == null ? "title" : (descending ? query.sort.substring(1) : query.sort);
+        if (!SORTS.containsKey(sortKey)) {
+            throw new IllegalArgumentException("Unknown sort: " + query.sort + " (use " + String.join(", ", SORTS.keySet()) + ")");
+        }
+
+        // One bitmap per active filter
+        BitSet title = null;
+        if (titleMatches != null) {
+            title = new BitSet();
+            for (Movie movie : titleMatches) {
+                Integer ordinal = idx.ordinalById.get(movie.getMovieId());
+                if (ordinal != null) title.set(ordinal);
+            }
+        }
+        BitSet genre = anyOf(idx.byGenre, query.genres);
+        BitSet rating = anyOf(idx.byRating, query.ratings);
+        BitSet showing = flag(idx, idx.showing, query.currentlyShowing);
+        BitSet withShowtimes = flag(idx, idx.withShowtimes, query.hasShowtimes);
+        BitSet duration = null;
+        if (query.minDuration != null || query.maxDuration != null) {
+            duration = new BitSet();
+            int min = query.minDuration != null ? query.minDuration : Integer.MIN_VALUE;
+            int max = query.maxDuration != null ? query.maxDuration : Integer.MAX_VALUE;
+            for (int i = 0; i < idx.durations.length; i++) {
+                if (idx.durations[i] >= min && idx.durations[i] <= max) duration.set(i);
+            }
+        }
+
+        BitSet[] filters = {title, genre, rating, showing, withShowtimes, duration};
+        BitSet matches = and(idx, filters, -1);
+
+        // Facet counts: each facet is counted against every filter except its own
+        Map<String, Object> facets = new LinkedHashMap<>();
+        facets.put("genre", counts(idx.byGenre, and(idx, filters, 1)));
+        facets.put("rating", counts(idx.byRating, and(idx, filters, 2)));
+        facets.put("currentlyShowing", flagCounts(idx, idx.showing, and(idx, filters, 3)));
+        facets.put("hasShowtimes", flagCounts(idx, idx.withShowtimes, and(idx, filters, 4)));
+
+        // Walk the sort order from the cursor, collecting one page
+        int[] order = idx.orders.get(sortKey);
+        int pos = descending ? order.length - 1 : 0;
+        if (query.cursor != null && !query.cursor.isBlank()) {
+            pos = resume(idx, order, sortKey, descending, query.cursor);
+        }
+        int limit = Math.min(Math.max(query.limit, 1), MAX_LIMIT);
+        List<Movie> page = new ArrayList<>(Math.min(limit, matches.cardinality()));
+        Movie last = null;
+        boolean more = false;
+        for (; pos >= 0 && pos < order.length; pos += descending ? -1 : 1) {
+            if (!matches.get(order[pos])) continue;
+            if (page.size() == limit) {
+                more = true;
+                break;
+            }
+            last = idx.movies.get(order[pos]);
+            page.add(last);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("movies", page);
+        result.put("total", matches.cardinality());
+        result.put("nextCursor", more ? encodeCursor(query.sort == null ? sortKey : query.sort, sortKey, last) : null);
+        result.put("facets", facets);
+        result.put("catalogVersion", idx.snapshot.getVersion());
+        return result;
+    }
+
+    private static BitSet anyOf(Map<String, BitSet> facet, Set<String> values) {
+        if (values == null || values.isEmpty()) return null;
+        BitSet bits = new BitSet();
+        for (String value : values) {
+            BitSet valueBits = facet.get(value.trim());
+            if (valueBits != null) bits.or(valueBits);
+        }
+        return bits;
+    }
+
+    private static BitSet flag(Index idx, BitSet set, Boolean wanted) {
+        if (wanted == null) return null;
+        BitSet bits = (BitSet) set.clone();
+        if (!wanted) bits.flip(0, idx.movies.size());
+        return bits;
+    }
+
+    // AND of every non-null filter, skipping the one at index skip
+    private static BitSet and(Index idx, BitSet[] filters, int skip) {
+        BitSet bits = idx.all();
+        for (int i = 0; i < filters.length; i++) {
+            if (i != skip && filters[i] != null) bits.and(filters[i]);
+        }
+        return bits;
+    }
+
+    private static Map<String, Integer> counts(Map<String, BitSet> facet, BitSet base) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (Map.Entry<String, BitSet> entry : facet.entrySet()) {
+            BitSet bits = (BitSet) entry.getValue().clone();
+            bits.and(base);
+            counts.put(entry.getKey(), bits.cardinality());
+        }
+        return counts;
+    }
+
+    private static Map<String, Integer> flagCounts(Index idx, BitSet set, BitSet base) {
+        BitSet yes = (BitSet) set.clone();
+        yes.and(base);
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        counts.put("true", yes.cardinality());
+        counts.put("false", base.cardinality() - yes.cardinality());
+        return counts;
+    }
+
+    // Position to continue from: right after the cursor's (key, movieId) in the current order
+    private static int resume(Index idx, int[] order, String sortKey, boolean descending, String cursor) {
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        // sort:movieId:key - the key goes last since a title may contain ':'
+        String[] parts = decoded.split(":", 3);
+        if (parts.length != 3) throw new IllegalArgumentException("Invalid cursor");
+        String cursorSort = parts[0];
+        boolean cursorDescending = cursorSort.startsWith("-");
+        if (!(cursorDescending ? cursorSort.substring(1) : cursorSort).equals(sortKey) || cursorDescending != descending) {
+            throw new IllegalArgumentException("Cursor was created with a different sort");
+        }
+        try {
+            return SORTS.get(sortKey).resumeAt(idx.movies, order, parts[2], Integer.parseInt(parts[1]), descending);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    private static String encodeCursor(String sort, String sortKey, Movie last) {
+        String cursor = sort + ":" + last.getMovieId() + ":" + SORTS.get(sortKey).keyOf(last);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static int durationOf(Movie movie) {
+        try {
+            return movie.getDuration() == null ? 0 : Integer.parseInt(movie.getDuration().trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
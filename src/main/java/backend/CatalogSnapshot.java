@@ -0,0 +1,83 @@
+package backend;
+
+import java.util.*;
+
+/**
+ * Immutable view of the movie catalog (movies plus their showtimes) at one point in time,
+ * with lookup indexes by movie ID and genre. Built by CatalogCache; never modified afterwards,
+ * so it can be read from any thread without locking.
+ */
+public class CatalogSnapshot {
+    private final long version;
+    private final long builtAt;
+    private final List<Movie> movies;
+    private final Map<Integer, Movie> byId;
+    private final Map<String, List<Movie>> byGenre;
+    private final List<String> genres;
+    private final Map<Integer, Integer> movieIdByShowtime;
+
+    CatalogSnapshot(long version, List<Movie> movies) {
+        this.version = version;
+        this.builtAt = System.currentTimeMillis();
+        this.movies = Collections.unmodifiableList(new ArrayList<>(movies));
+
+        Map<Integer, Movie> ids = new HashMap<>();
+        Map<String, List<Movie>> genreIndex = new HashMap<>();
+        TreeSet<String> genreNames = new TreeSet<>();
+        Map<Integer, Integer> showtimeMovies = new HashMap<>();
+        for (Movie movie : this.movies) {
+            ids.put(movie.getMovieId(), movie);
+            if (movie.getShowtimeList() != null) {
+                for (MovieShowtime showtime : movie.getShowtimeList()) {
+                    showtimeMovies.put(showtime.getShowtimeId(), movie.getMovieId());
+                }
+            }
+            if (movie.getGenre() != null) {
+                // Genre matching is case-insensitive, like the genre = ? comparison in MySQL
+                genreIndex.computeIfAbsent(genreKey(movie.getGenre()), k -> new ArrayList<>()).add(movie);
+                genreNames.add(movie.getGenre());
+            }
+        }
+        genreIndex.replaceAll((k, v) -> Collections.unmodifiableList(v));
+        this.byId = Collections.unmodifiableMap(ids);
+        this.byGenre = Collections.unmodifiableMap(genreIndex);
+        this.genres = List.copyOf(genreNames);
+        this.movieIdByShowtime = Collections.unmodifiableMap(showtimeMovies);
+    }
+
+    private static String genreKey(String genre) {
+        return genre.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Increases every time the catalog is rebuilt.
+     */
+    public long getVersion() {return version;}
+    public long getBuiltAt() {return builtAt;}
+
+    public List<Movie> getMovies() {return movies;}
+
+    public Movie getMovie(int movieId) {
+        return byId.get(movieId);
+    }
+
+    /**
+     * The movie a showtime belongs to, or null if the showtime isn't in this snapshot.
+     */
+    public Integer getMovieIdForShowtime(int showtimeId) {
+        return movieIdByShowtime.get(showtimeId);
+    }
+
+    /**
+     * Movies in a genre (case-insensitive). A blank genre returns every movie.
+     */
+    public List<Movie> getByGenre(String genre) {
+        if (genre == null || genre.trim().isEmpty()) return movies;
+        return byGenre.getOrDefault(genreKey(genre), List.of());
+    }
+
+    /**
+     * Distinct genres, sorted.
+     */
+    public List<String> getGenres() {return genres;}
+}
@@ -1,7 +1,15 @@
 package backend;
 
 import org.springframework.web.bind.annotation.*;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import com.google.gson.Gson;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
 import java.sql.SQLException;
 import java.util.*;
 
@@ -11,68 +19,160 @@ import java.util.*;
 public class CinemaAPIController {
     
     private MovieSearchandFilter movieService;
+    // Reads are served from the in-memory catalog snapshot; the SQL queries in
+    // MovieSearchandFilter are only used if the snapshot can't be built
+    private final CatalogCache catalog = CatalogCache.getInstance();
+    private final TitleSearchIndex searchIndex = new TitleSearchIndex();
+    private final TitleSuggestIndex suggestIndex = new TitleSuggestIndex();
+    private final CatalogQueryIndex queryIndex = new CatalogQueryIndex();
+    private final Gson gson = new Gson();
+
+    // /api/movies and /api/genres bodies, serialized once per catalog snapshot
+    private volatile PreparedResponse moviesResponse = null;
+    private volatile PreparedResponse genresResponse = null;
     
-    public CinemaAPIController() {
-        this.movieService = new MovieSearchandFilter();
+    public CinemaAPIController(DataSource dataSource) {
+        this.movieService = new MovieSearchandFilter(dataSource);
+        catalog.addListener(searchIndex::update);
+        catalog.addListener(suggestIndex::update);
+        catalog.addListener(queryIndex::update);
+        catalog.addListener(this::prepareCatalogResponses);
+    }
+
+    private void prepareCatalogResponses(CatalogSnapshot snapshot) {
+        moviesResponse = PreparedResponse.of(gson.toJson(snapshot.getMovies()), snapshot.getBuiltAt(), moviesResponse);
+        genresResponse = PreparedResponse.of(gson.toJson(snapshot.getGenres()), snapshot.getBuiltAt(), genresResponse);
     }
     
     @GetMapping("/movies")
-    public ResponseEntity<String> getAllMovies() {
+    public ResponseEntity<byte[]> getAllMovies(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         try {
-            String moviesJson = movieService.getAllMoviesJson();
-            return ResponseEntity.ok(moviesJson);
+            CatalogSnapshot snapshot = catalog.getSnapshot();
+            if (moviesResponse == null) prepareCatalogResponses(snapshot);
+            return serve(moviesResponse, ifNoneMatch, acceptEncoding);
+        } catch (SQLException e) {
+            return jsonBody(HttpStatus.OK, movieService.getAllMoviesJson());
         } catch (Exception e) {
-            return ResponseEntity.internalServerError().body("{\"error\":\"Failed to retrieve movies: " + e.getMessage() + "\"}");
+            return jsonBody(HttpStatus.INTERNAL_SERVER_ERROR, "{\"error\":\"Failed to retrieve movies: " + e.getMessage() + "\"}");
         }
     }
     
     @GetMapping("/movies/search")
     public ResponseEntity<String> searchMovies(@RequestParam String title) {
         try {
-            String searchResults = movieService.searchByTitleJson(title);
-            return ResponseEntity.ok(searchResults);
+            catalog.getSnapshot();
+            return ResponseEntity.ok(gson.toJson(searchIndex.search(title)));
+        } catch (SQLException e) {
+            return ResponseEntity.ok(movieService.searchByTitleJson(title));
         } catch (Exception e) {
             return ResponseEntity.internalServerError().body("{\"error\":\"Search failed: " + e.getMessage() + "\"}");
         }
     }
     
+    /**
+     * Title autocomplete for the search bar.
+     * GET /api/movies/suggest?q=dar&limit=8
+     * Returns [{"movieId": 5, "title": "The Dark Knight"}, ...]
+     */
+    @GetMapping("/movies/suggest")
+    public ResponseEntity<String> suggestMovies(@RequestParam String q,
+                                                @RequestParam(defaultValue = "8") int limit) {
+        try {
+            catalog.getSnapshot();
+            List<Map<String, Object>> suggestions = new ArrayList<>();
+            for (Movie movie : suggestIndex.suggest(q, Math.min(Math.max(limit, 1), 20))) {
+                Map<String, Object> suggestion = new LinkedHashMap<>();
+                suggestion.put("movieId", movie.getMovieId());
+                suggestion.put("title", movie.getTitle());
+                suggestions.add(suggestion);
+            }
+            return ResponseEntity.ok(gson.toJson(suggestions));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("{\"error\":\"Suggest failed: " + e.getMessage() + "\"}");
+        }
+    }
+    
+    /**
+     * Combined catalog query with filters, sorting, cursor pagination and facet counts.
+     * GET /api/movies/query?title=dark&genre=Action,Sci-Fi&rating=PG-13&showing=true
+     *                      &hasShowtimes=true&minDuration=90&maxDuration=180
+     *                      &sort=-duration&limit=20&cursor=...
+     * sort: title, duration or id, prefixed with "-" for descending.
+     * Returns {"movies", "total", "nextCursor", "facets", "catalogVersion"}; pass nextCursor
+     * back as cursor for the next page (null on the last page).
+     */
+    @GetMapping("/movies/query")
+    public ResponseEntity<String> queryMovies(
+            @RequestParam(required = false) String title,
+            @RequestParam(required = false) List<String> genre,
+            @RequestParam(required = false) List<String> rating,
+            @RequestParam(required = false) Boolean showing,
+            @RequestParam(required = false) Boolean hasShowtimes,
+            @RequestParam(required = false) Integer minDuration,
+            @RequestParam(required = false) Integer maxDuration,
+            @RequestParam(defaultValue = "title") String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + CatalogQueryIndex.DEFAULT_LIMIT) int limit) {
+        try {
+            catalog.getSnapshot();
+
+            CatalogQueryIndex.Query query = new CatalogQueryIndex.Query();
+            query.title = title;
+            query.genres = genre != null ? new HashSet<>(genre) : Set.of();
+            query.ratings = rating != null ? new HashSet<>(rating) : Set.of();
+            query.currentlyShowing = showing;
+            query.hasShowtimes = hasShowtimes;
+            query.minDuration = minDuration;
+            query.maxDuration = maxDuration;
+            query.sort = sort;
+            query.cursor = cursor;
+            query.limit = limit;
+
+            List<Movie> titleMatches = title != null && !title.isBlank() ? searchIndex.search(title) : null;
+            return ResponseEntity.ok(gson.toJson(queryIndex.query(query, titleMatches)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(gson.toJson(Map.of("error", e.getMessage())));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("{\"error\":\"Query failed: " + e.getMessage() + "\"}");
+        }
+    }
+    
     @GetMapping("/movies/filter")
     public ResponseEntity<String> filterMovies(@RequestParam String genre) {
         try {
-            String filteredResults = movieService.filterByGenreJson(genre);
-            return ResponseEntity.ok(filteredResults);
+            return ResponseEntity.ok(gson.toJson(catalog.getSnapshot().getByGenre(genre)));
+        } catch (SQLException e) {
+            return ResponseEntity.ok(movieService.filterByGenreJson(genre));
         } catch (Exception e) {
             return ResponseEntity.internalServerError().body("{\"error\":\"Filter failed: " + e.getMessage() + "\"}");
         }
     }
     
     @GetMapping("/genres")
-    public ResponseEntity<String> getGenres() {
+    public ResponseEntity<byte[]> getGenres(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         try {
-            Set<String> genres = movieService.getAllGenres();
-            List<String> genreList = new ArrayList<>(genres);
-            Collections.sort(genreList);
-            
-            // Convert to JSON manually
-            StringBuilder json = new StringBuilder("[");
-            for (int i = 0; i < genreList.size(); i++) {
-                json.append("\"").append(genreList.get(i)).append("\"");
-                if (i < genreList.size() - 1) {
-                    json.append(",");
-                }
-            }
-            json.append("]");
-            
-            return ResponseEntity.ok(json.toString());
+            CatalogSnapshot snapshot = catalog.getSnapshot();
+            if (genresResponse == null) prepareCatalogResponses(snapshot);
+            return serve(genresResponse, ifNoneMatch, acceptEncoding);
         } catch (SQLException e) {
-            return ResponseEntity.internalServerError().body("{\"error\":\"Failed to retrieve genres: " + e.getMessage() + "\"}");
+            try {
+                List<String> genreList = new ArrayList<>(movieService.getAllGenres());
+                Collections.sort(genreList);
+                return jsonBody(HttpStatus.OK, gson.toJson(genreList));
+            } catch (SQLException ex) {
+                return jsonBody(HttpStatus.INTERNAL_SERVER_ERROR, "{\"error\":\"Failed to retrieve genres: " + ex.getMessage() + "\"}");
+            }
         }
     }
     
     @GetMapping("/movies/{id}")
     public ResponseEntity<String> getMovieById(@PathVariable int id) {
         try {
-            Movie movie = movieService.getMovieById(id);
+            Movie movie = catalog.getSnapshot().getMovie(id);
             if (movie != null) {
                 return ResponseEntity.ok(movie.toJson());
             } else {
@@ -82,4 +182,38 @@ public class CinemaAPIController {
             return ResponseEntity.internalServerError().body("{\"error\":\"Failed to retrieve movie: " + e.getMessage() + "\"}");
         }
     }
+
+    /**
+     * Answer from a prepared body: 304 if the client's ETag still matches, otherwise the
+     * gzipped or plain bytes depending on Accept-Encoding, each with its own ETag.
+     */
+    private ResponseEntity<byte[]> serve(PreparedResponse prepared, String ifNoneMatch, String acceptEncoding) {
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        String etag = gzip ? prepared.getGzipEtag() : prepared.getEtag();
+        if (prepared.matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .lastModified(prepared.getLastModified())
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .eTag(etag)
+                .lastModified(prepared.getLastModified())
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            return builder.contentType(MediaType.APPLICATION_JSON)
+                    .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .body(prepared.getGzipped());
+        }
+        return builder.contentType(MediaType.APPLICATION_JSON).body(prepared.getBody());
+    }
+
+    private static ResponseEntity<byte[]> jsonBody(HttpStatus status, String json) {
+        return ResponseEntity.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(json.getBytes(StandardCharsets.UTF_8));
+    }
 }
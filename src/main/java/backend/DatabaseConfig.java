@@ -1,64 +1,97 @@
 package backend;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
 import jakarta.annotation.PostConstruct;
 
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
 /**
- * Configuration class to initialize the database connection on Spring Boot startup.
- * This ensures ConnectToDatabase.conn is initialized before any database operations.
+ * Configuration class to initialize the database connection pool on Spring Boot startup.
+ * Spring Boot builds a HikariCP DataSource from spring.datasource.* in application.properties;
+ * this hands it to DatabaseConnectSingleton so the static *DBFunctions classes borrow from it.
  */
-/*
 @Configuration
 public class DatabaseConfig {
-    
-    @Value("${spring.datasource.url}")
-    private String datasourceUrl;
-    
-    @Value("${spring.datasource.username}")
-    private String username;
-    
-    @Value("${spring.datasource.password}")
-    private String password;
-    
+
+    private final DataSource dataSource;
+
+    @Value("${app.datasource.warmup-connections:2}")
+    private int warmupConnections;
+
+    public DatabaseConfig(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
     /**
-     * Initialize database connection after Spring context is loaded.
-     * Extracts host and database name from the JDBC URL and calls ConnectToDatabase.setUpConnection().
+     * Register the pooled DataSource after the Spring context is loaded.
      */
-/*
     @PostConstruct
     public void initializeDatabaseConnection() {
+        System.out.println("=== Initializing Database Connection Pool ===");
+        DatabaseConnectSingleton.getInstance().setDataSource(dataSource);
+        System.out.println("✅ Database connection pool registered: " + dataSource);
+    }
+
+    /**
+     * Open and validate the first few pooled connections once the app is up, so the first
+     * catalog requests after a deploy don't each pay a TCP + auth handshake to MySQL.
+     * Connections are held together so the pool has to create distinct ones, then returned.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpConnectionPool() {
+        if (warmupConnections <= 0) return;
+
+        List<Connection> borrowed = new ArrayList<>();
         try {
-            System.out.println("=== Initializing Database Connection ===");
-            System.out.println("JDBC URL: " + datasourceUrl);
-            
-            // Parse JDBC URL: jdbc:mysql://host:port/database
-            String[] parts = datasourceUrl.split("//")[1].split("/");
-            String hostURL = parts[0]; // e.g., "localhost:3306" or "127.0.0.1:3306"
-            String databaseName = parts[1].split("\\?")[0]; // e.g., "cinema_eBooking_system"
-            
-            // Extract just the host without port if present
-            if (hostURL.contains(":")) {
-                hostURL = hostURL.split(":")[0];
+            for (int i = 0; i < warmupConnections; i++) {
+                Connection conn = dataSource.getConnection();
+                borrowed.add(conn);
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("SELECT 1");
+                }
             }
-            
-            System.out.println("Host: " + hostURL);
-            System.out.println("Database: " + databaseName);
-            System.out.println("Username: " + username);
-            
-            // Initialize the connection
-            ConnectToDatabase.setUpConnection(hostURL, databaseName, username, password);
-            
-            if (ConnectToDatabase.conn != null && !ConnectToDatabase.conn.isClosed()) {
-                System.out.println("✅ Database connection initialized successfully!");
-            } else {
-                System.err.println("❌ Database connection is null or closed!");
+            System.out.println("✅ Connection pool warmed up with " + borrowed.size() + " connections");
+        } catch (SQLException e) {
+            System.err.println("❌ Connection pool warm-up failed after " + borrowed.size() + " connections: " + e.getMessage());
+        } finally {
+            for (Connection conn : borrowed) {
+                try {
+                    conn.close();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
             }
-            
-        } catch (Exception e) {
-            System.err.println("❌ Failed to initialize database connection: " + e.getMessage());
-            e.printStackTrace();
         }
     }
+
+    /**
+     * Build the catalog snapshot (and the indexes and prepared responses derived from it) at
+     * startup instead of on the first catalog request.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpCatalog() {
+        try {
+            CatalogCache.getInstance().getSnapshot();
+        } catch (SQLException e) {
+            System.err.println("❌ Catalog warm-up failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Load the showroom layouts, then create the Seats rows for every showroom up front so
+     * bookings never have to. Kept in one listener so provisioning sees the loaded registry.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void provisionSeats() {
+        ShowroomRegistry.getInstance().refresh();
+        SeatProvisioner.provisionAll();
+    }
 }
-*/
@@ -1,57 +1,119 @@
 package backend;
 
-import java.sql.*;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
 
+import javax.sql.DataSource;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.util.Properties;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Hands out pooled JDBC connections to the *DBFunctions classes.
+ *
+ * Under Spring Boot the pool is the auto-configured HikariCP DataSource built from
+ * spring.datasource.* (registered by DatabaseConfig at startup). When a class is run
+ * standalone (ConnectToDatabase, TestDataCleanup) a pool is built lazily from the same
+ * application.properties.
+ *
+ * Every call to getConn() borrows a connection; the caller must close() it to return
+ * it to the pool, typically in a finally block or try-with-resources.
+ */
 public class DatabaseConnectSingleton {
-        private Connection conn = null;
-        private static DatabaseConnectSingleton instance = null;
-
-        private DatabaseConnectSingleton() {
-            try {
-                System.out.println("=== Initializing Database Connection ===");
-                String hostURL = "127.0.0.1";
-                String databaseName = "cinema_eBooking_system";
-                String username = "root";
-                String password = "Booboorex";
-
-                conn = DriverManager.getConnection("jdbc:mysql://" +hostURL+ ":3306/" +databaseName+ "?enabledTLSProtocols=TLSv1.2&autoReconnect=true&serverTimezone=UTC", username, password); //Current: jdbc:mysql://192.168.1.185:3306/CinemaEBooking?useUnicode=true&characterEncoding=utf8
-
-                if (conn != null && !conn.isClosed()) {
-                    System.out.println("✅ Database connection initialized successfully!");
-                } else {
-                    System.err.println("❌ Database connection is null or closed!");
-                }
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\$\\{([^:}]+)(?::([^}]*))?}");
 
-            } catch (Exception e) {
-                System.err.println("❌ Failed to initialize database connection: " + e.getMessage());
-                e.printStackTrace();
-            }
-        }
+    private static DatabaseConnectSingleton instance = null;
+    private volatile DataSource dataSource = null;
 
-        public static DatabaseConnectSingleton getInstance() {
-            if (instance == null) {
-                instance = new DatabaseConnectSingleton();
-            }
-            return instance;
+    private DatabaseConnectSingleton() { }
+
+    public static synchronized DatabaseConnectSingleton getInstance() {
+        if (instance == null) {
+            instance = new DatabaseConnectSingleton();
         }
+        return instance;
+    }
+
+    /**
+     * Use the given pool for all future connections. Called by DatabaseConfig with the
+     * Spring-managed DataSource.
+     */
+    public void setDataSource(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
 
-        public Connection getConn() {
-            try {
-                if (conn == null || conn.isClosed()) {
-                    // Try to re-open connection
-                    System.out.println("🔁 Reopening closed DB connection");
-                    String hostURL = "127.0.0.1";
-                    String databaseName = "cinema_eBooking_system";
-                    String username = "root";
-                    String password = "Booboorex";
-                    conn = DriverManager.getConnection("jdbc:mysql://" +hostURL+ ":3306/" +databaseName+ "?enabledTLSProtocols=TLSv1.2&autoReconnect=true&serverTimezone=UTC", username, password);
+    public DataSource getDataSource() {
+        DataSource ds = dataSource;
+        if (ds == null) {
+            synchronized (this) {
+                if (dataSource == null) {
+                    dataSource = createStandaloneDataSource();
                 }
-            } catch (Exception e) {
-                System.err.println("Could not re-open DB connection: " + e.getMessage());
-                e.printStackTrace();
+                ds = dataSource;
             }
-            return conn;
         }
+        return ds;
     }
 
+    /**
+     * Borrow a connection from the pool. Returns null if no connection could be obtained.
+     * The caller owns the connection and must close it to give it back to the pool.
+     */
+    public Connection getConn() {
+        try {
+            return getDataSource().getConnection();
+        } catch (Exception e) {
+            System.err.println("Could not borrow DB connection from pool: " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Builds a HikariCP pool from application.properties for code running outside Spring.
+     */
+    private static DataSource createStandaloneDataSource() {
+        System.out.println("=== Initializing standalone database connection pool ===");
+        Properties props = new Properties();
+        try (InputStream in = DatabaseConnectSingleton.class.getResourceAsStream("/application.properties")) {
+            if (in != null) {
+                props.load(in);
+            }
+        } catch (Exception e) {
+            System.err.println("Could not read application.properties: " + e.getMessage());
+        }
 
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(resolve(props.getProperty("spring.datasource.hikari.pool-name", "CinemaPool")));
+        config.setJdbcUrl(resolve(props.getProperty("spring.datasource.url",
+                "jdbc:mysql://127.0.0.1:3306/cinema_eBooking_system?enabledTLSProtocols=TLSv1.2&serverTimezone=UTC")));
+        config.setUsername(resolve(props.getProperty("spring.datasource.username", "root")));
+        config.setPassword(resolve(props.getProperty("spring.datasource.password", "")));
+        config.setMinimumIdle(Integer.parseInt(resolve(props.getProperty("spring.datasource.hikari.minimum-idle", "1"))));
+        config.setMaximumPoolSize(Integer.parseInt(resolve(props.getProperty("spring.datasource.hikari.maximum-pool-size", "4"))));
+        config.setConnectionTimeout(Long.parseLong(resolve(props.getProperty("spring.datasource.hikari.connection-timeout", "10000"))));
+        config.setValidationTimeout(Long.parseLong(resolve(props.getProperty("spring.datasource.hikari.validation-timeout", "3000"))));
+        config.setLeakDetectionThreshold(Long.parseLong(resolve(props.getProperty("spring.datasource.hikari.leak-detection-threshold", "0"))));
+        // Don't fail construction if the DB is down; getConn() reports the error instead
+        config.setInitializationFailTimeout(-1);
+        return new HikariDataSource(config);
+    }
+
+    /**
+     * Expands ${ENV_VAR:default} placeholders the same way Spring does for application.properties.
+     */
+    private static String resolve(String value) {
+        if (value == null) return null;
+        Matcher m = PLACEHOLDER.matcher(value);
+        StringBuilder sb = new StringBuilder();
+        while (m.find()) {
+            String env = System.getProperty(m.group(1), System.getenv(m.group(1)));
+            String replacement = env != null ? env : (m.group(2) != null ? m.group(2) : "");
+            m.appendReplacement(sb, Matcher.quoteReplacement(replacement));
+        }
+        m.appendTail(sb);
+        return sb.toString();
+    }
+}
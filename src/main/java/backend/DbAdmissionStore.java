@@ -0,0 +1,169 @@
+package backend;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * AdmissionStore backed by the WaitingRooms table, so every app node shares one queue per room.
+ *
+ * Rooms are read at most once a second per node (one UPDATE advances every room, one SELECT
+ * reads them back); between reads admission is advanced locally from the cached counters, so
+ * requests checked against the waiting room don't touch the DB. Only taking a queue number
+ * goes to the DB, as a single conditional UPDATE on the room's row.
+ */
+class DbAdmissionStore implements AdmissionStore {
+    private static final long REFRESH_MILLIS = 1000;
+
+    private volatile Map<String, Room> cached = Collections.emptyMap();
+    private volatile long cachedAt = 0;
+
+    @Override
+    public void open(String roomKey, double admitPerSecond, long maxQueue) {
+        String sql = "INSERT INTO WaitingRooms (room_key, admit_per_second, max_queue, issued, admitted, last_advance_ms) " +
+                     "VALUES (?, ?, ?, 0, ?, ?) " +
+                     "ON DUPLICATE KEY UPDATE admit_per_second = VALUES(admit_per_second), max_queue = VALUES(max_queue)";
+        Connection conn = null;
+        try {
+            conn = DatabaseConnectSingleton.getInstance().getConn();
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setString(1, roomKey);
+                ps.setDouble(2, admitPerSecond);
+                ps.setLong(3, maxQueue);
+                ps.setDouble(4, admitPerSecond); // a fresh room starts with one second of burst
+                ps.setLong(5, System.currentTimeMillis());
+                ps.executeUpdate();
+            }
+            cachedAt = 0;
+        } catch (SQLException e) {
+            System.err.println("Error opening waiting room " + roomKey + ": " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            try { if (conn != null) conn.close(); } catch (SQLException e) { e.printStackTrace(); }
+        }
+    }
+
+    @Override
+    public void close(String roomKey) {
+        Connection conn = null;
+        try {
+            conn = DatabaseConnectSingleton.getInstance().getConn();
+            try (PreparedStatement ps = conn.prepareStatement("DELETE FROM WaitingRooms WHERE room_key = ?")) {
+                ps.setString(1, roomKey);
+                ps.executeUpdate();
+            }
+            cachedAt = 0;
+        } catch (SQLException e) {
+            System.err.println("Error closing waiting room " + roomKey + ": " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            try { if (conn != null) conn.close(); } catch (SQLException e) { e.printStackTrace(); }
+        }
+    }
+
+    @Override
+    public Room get(String roomKey) {
+        Room room = rooms().get(roomKey);
+        if (room == null) return null;
+        double admitted = Room.advance(room.getAdmitted(), room.getIssued(), room.getAdmitPerSecond(),
+                System.currentTimeMillis() - cachedAt);
+        return new Room(roomKey, room.getAdmitPerSecond(), room.getMaxQueue(), room.getIssued(), admitted);
+    }
+
+    @Override
+    public long join(String roomKey) {
+        if (!rooms().containsKey(roomKey)) return -1;
+
+        // LAST_INSERT_ID(expr) returns the new number with the UPDATE itself, as in IdBlockAllocator
+        String sql = "UPDATE WaitingRooms SET issued = LAST_INSERT_ID(issued + 1) " +
+                     "WHERE room_key = ? AND issued - FLOOR(admitted) < max_queue";
+        Connection conn = null;
+        try {
+            conn = DatabaseConnectSingleton.getInstance().getConn();
+            try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                ps.setString(1, roomKey);
+                if (ps.executeUpdate() == 0) {
+                    return -1;
+                }
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    if (keys.next()) {
+                        return keys.getLong(1);
+                    }
+                }
+            }
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT LAST_INSERT_ID()")) {
+                return rs.next() ? rs.getLong(1) : -1;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error joining waiting room " + roomKey + ": " + e.getMessage());
+            e.printStackTrace();
+            return -1;
+        } finally {
+            try { if (conn != null) conn.close(); } catch (SQLException e) { e.printStackTrace(); }
+        }
+    }
+
+    @Override
+    public List<Room> list() {
+        List<Room> list = new ArrayList<>();
+        for (String roomKey : rooms().keySet()) {
+            list.add(get(roomKey));
+        }
+        return list;
+    }
+
+    private Map<String, Room> rooms() {
+        if (System.currentTimeMillis() - cachedAt >= REFRESH_MILLIS) {
+            refresh();
+        }
+        return cached;
+    }
+
+    private synchronized void refresh() {
+        long now = System.currentTimeMillis();
+        if (now - cachedAt < REFRESH_MILLIS) return; // another thread just did it
+
+        Connection conn = null;
+        try {
+            conn = DatabaseConnectSingleton.getInstance().getConn();
+            if (conn == null) {
+                cachedAt = now;
+                return;
+            }
+
+            // Advance every room to now; rows another node already advanced further are left alone
+            String sql = "UPDATE WaitingRooms SET " +
+                         "admitted = LEAST(admitted + admit_per_second * (? - last_advance_ms) / 1000, issued + admit_per_second), " +
+                         "last_advance_ms = ? WHERE last_advance_ms < ?";
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setLong(1, now);
+                ps.setLong(2, now);
+                ps.setLong(3, now);
+                ps.executeUpdate();
+            }
+
+            Map<String, Room> rooms = new HashMap<>();
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT * FROM WaitingRooms")) {
+                while (rs.next()) {
+                    String roomKey = rs.getString("room_key");
+                    rooms.put(roomKey, new Room(roomKey, rs.getDouble("admit_per_second"), rs.getLong("max_queue"),
+                            rs.getLong("issued"), rs.getDouble("admitted")));
+                }
+            }
+            cached = Collections.unmodifiableMap(rooms);
+            cachedAt = now;
+
+        } catch (SQLException e) {
+            // Keep the last known rooms; try again on the next refresh
+            System.err.println("Error reading waiting rooms: " + e.getMessage());
+            cachedAt = now;
+        } finally {
+            try { if (conn != null) conn.close(); } catch (SQLException e) { e.printStackTrace(); }
+        }
+    }
+}
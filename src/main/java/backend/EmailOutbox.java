@@ -0,0 +1,268 @@
+package backend;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Transactional outbox for emails that must not be lost (booking confirmations).
+ *
+ * add() inserts the mail into EmailOutbox on the caller's connection, so it commits or rolls back
+ * with the booking. A daemon thread on each node claims due rows in batches with
+ * SELECT ... FOR UPDATE SKIP LOCKED - nodes never claim the same row - and leases them by
+ * setting status 'sending' with next_attempt_at pushed out by leaseSeconds. The claim commits
+ * right away; the mails are then handed to MailDispatcher, and the row is marked 'sent' (or put
+ * back to 'pending' with a backoff, or 'failed' after maxAttempts) when delivery ends. If the
+ * node dies first the lease runs out and another claim picks the row up again, so delivery is
+ * at-least-once. Each lease counts as an attempt, and a row whose lease runs out after its last
+ * attempt is marked 'failed' rather than claimed again.
+ */
+public class EmailOutbox {
+    private static final String CLAIM_SQL =
+            "SELECT outbox_id, to_email, subject, body FROM EmailOutbox " +
+            "WHERE status IN ('pending', 'sending') AND next_attempt_at <= NOW(3) AND attempts < ? " +
+            "ORDER BY next_attempt_at LIMIT ? FOR UPDATE SKIP LOCKED";
+    // Rows whose last lease ran out with no attempts left (the node died or never handed them over)
+    private static final String EXPIRE_SQL =
+            "UPDATE EmailOutbox SET status = 'failed', " +
+            "last_error = IFNULL(last_error, 'Lease expired with no attempts left') " +
+            "WHERE status IN ('pending', 'sending') AND next_attempt_at <= NOW(3) AND attempts >= ?";
+    private static final String LEASE_SQL =
+            "UPDATE EmailOutbox SET status = 'sending', attempts = attempts + 1, " +
+            "next_attempt_at = NOW(3) + INTERVAL ? SECOND WHERE outbox_id = ?";
+
+    private static EmailOutbox instance = null;
+
+    private final Object signal = new Object();
+    private boolean woken = false;
+    private Thread worker = null;
+
+    private volatile int batchSize = 50;
+    private volatile long pollMillis = 1_000;
+    private volatile int leaseSeconds = 300;
+    private volatile int maxAttempts = 10;
+    private volatile long retryBackoffSeconds = 60;
+
+    private final MailDispatcher.DeliveryListener listener = new MailDispatcher.DeliveryListener() {
+        @Override
+        public void delivered(OutgoingMail mail) {
+            markSent(outboxId(mail));
+        }
+
+        @Override
+        public void failed(OutgoingMail mail, Exception cause) {
+            markFailed(outboxId(mail), cause.getMessage());
+        }
+    };
+
+    private EmailOutbox() { }
+
+    public static synchronized EmailOutbox getInstance() {
+        if (instance == null) {
+            instance = new EmailOutbox();
+        }
+        return instance;
+    }
+
+    /**
+     * Record a mail to be sent once the caller's transaction commits.
+     *
+     * @param conn Connection carrying the caller's open transaction
+     */
+    public static void add(Connection conn, OutgoingMail mail) throws SQLException {
+        String sql = "INSERT INTO EmailOutbox (to_email, subject, body) VALUES (?, ?, ?)";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, mail.getTo());
+            pstmt.setString(2, mail.getSubject());
+            pstmt.setString(3, mail.getBody());
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Apply the app.mail.outbox.* settings and start dispatching from this node (see MailConfig).
+     */
+    public synchronized void start(int batchSize, long pollMillis, int leaseSeconds,
+                                   int maxAttempts, long retryBackoffSeconds) {
+        this.batchSize = Math.max(1, batchSize);
+        this.pollMillis = Math.max(50, pollMillis);
+        this.leaseSeconds = Math.max(1, leaseSeconds);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoffSeconds = Math.max(1, retryBackoffSeconds);
+        if (worker == null) {
+            worker = new Thread(this::run, "email-outbox");
+            worker.setDaemon(true);
+            worker.start();
+        }
+    }
+
+    public synchronized void stop() {
+        if (worker != null) {
+            worker.interrupt();
+            worker = null;
+        }
+    }
+
+    /**
+     * Check for due mail now instead of at the next poll; call after committing an add().
+     */
+    public void wakeUp() {
+        synchronized (signal) {
+            woken = true;
+            signal.notifyAll();
+        }
+    }
+
+    private void run() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                int dispatched = dispatchBatch();
+                if (dispatched >= batchSize) {
+                    continue; // more may be waiting
+                }
+                synchronized (signal) {
+                    if (!woken) {
+                        signal.wait(pollMillis);
+                    }
+                    woken = false;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Claim one batch of due rows and hand them to MailDispatcher.
+     *
+     * @return Number of mails handed over
+     */
+    int dispatchBatch() {
+        List<OutgoingMail> claimed = claim();
+        int dispatched = 0;
+        for (OutgoingMail mail : claimed) {
+            if (MailDispatcher.getInstance().enqueue(mail) == null) {
+                // Dispatcher full or not running - the lease runs out and the row is claimed again
+                System.err.println("Mail queue full, leaving " + (claimed.size() - dispatched) + " outbox mails for later");
+                break;
+            }
+            dispatched++;
+        }
+        return dispatched;
+    }
+
+    private List<OutgoingMail> claim() {
+        List<OutgoingMail> claimed = new ArrayList<>();
+        Connection conn = null;
+        try {
+            conn = DatabaseConnectSingleton.getInstance().getConn();
+            if (conn == null) return claimed;
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement pstmt = conn.prepareStatement(EXPIRE_SQL)) {
+                pstmt.setInt(1, maxAttempts);
+                int expired = pstmt.executeUpdate();
+                if (expired > 0) {
+                    System.err.println("Gave up on " + expired + " outbox mails after " + maxAttempts + " attempts");
+                }
+            }
+
+            try (PreparedStatement pstmt = conn.prepareStatement(CLAIM_SQL)) {
+                pstmt.setInt(1, maxAttempts);
+                pstmt.setInt(2, batchSize);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        String mailId = "outbox-" + rs.getLong("outbox_id");
+                        OutgoingMail mail = new OutgoingMail(mailId, rs.getString("to_email"),
+                                rs.getString("subject"), rs.getString("body"));
+                        claimed.add(mail.withDelivery(mailId, listener));
+                    }
+                }
+            }
+            if (claimed.isEmpty()) {
+                conn.commit();
+                return claimed;
+            }
+
+            try (PreparedStatement pstmt = conn.prepareStatement(LEASE_SQL)) {
+                for (OutgoingMail mail : claimed) {
+                    pstmt.setInt(1, leaseSeconds);
+                    pstmt.setLong(2, outboxId(mail));
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+            }
+            conn.commit();
+            return claimed;
+
+        } catch (SQLException e) {
+            try {
+                if (conn != null) conn.rollback();
+            } catch (SQLException ex) {
+                ex.printStackTrace();
+            }
+            System.err.println("Error claiming outbox mail: " + e.getMessage());
+            return new ArrayList<>();
+        } finally {
+            try {
+                if (conn != null) {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void markSent(long outboxId) {
+        String sql = "UPDATE EmailOutbox SET status = 'sent', sent_at = NOW(), last_error = NULL WHERE outbox_id = ?";
+        Connection conn = null;
+        try {
+            conn = DatabaseConnectSingleton.getInstance().getConn();
+            if (conn == null) return;
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setLong(1, outboxId);
+                pstmt.executeUpdate();
+            }
+        } catch (SQLException e) {
+            System.err.println("Error marking outbox mail " + outboxId + " sent: " + e.getMessage());
+        } finally {
+            try { if (conn != null) conn.close(); } catch (SQLException e) { e.printStackTrace(); }
+        }
+    }
+
+    /**
+     * Put the row back for another claim after a backoff that doubles per attempt,
+     * or give up on it once it has used maxAttempts.
+     */
+    private void markFailed(long outboxId, String error) {
+        String sql = "UPDATE EmailOutbox SET " +
+                     "status = IF(attempts >= ?, 'failed', 'pending'), " +
+                     "next_attempt_at = NOW(3) + INTERVAL LEAST(? * POW(2, attempts - 1), 86400) SECOND, " +
+                     "last_error = ? WHERE outbox_id = ?";
+        Connection conn = null;
+        try {
+            conn = DatabaseConnectSingleton.getInstance().getConn();
+            if (conn == null) return;
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setInt(1, maxAttempts);
+                pstmt.setLong(2, retryBackoffSeconds);
+                pstmt.setString(3, error != null && error.length() > 500 ? error.substring(0, 500) : error);
+                pstmt.setLong(4, outboxId);
+                pstmt.executeUpdate();
+            }
+        } catch (SQLException e) {
+            System.err.println("Error updating outbox mail " + outboxId + ": " + e.getMessage());
+        } finally {
+            try { if (conn != null) conn.close(); } catch (SQLException e) { e.printStackTrace(); }
+        }
+    }
+
+    private static long outboxId(OutgoingMail mail) {
+        return Long.parseLong(mail.getMailId().substring("outbox-".length()));
+    }
+}
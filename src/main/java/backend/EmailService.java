@@ -3,111 +3,149 @@ package backend;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import jakarta.mail.*;
-import jakarta.mail.internet.InternetAddress;
-import java.util.Properties;
 
 /**
  * Service for sending emails (confirmation, password reset, notifications).
- * Uses the existing ConnectToDatabase.sendEmail() method.
+ * Messages are handed to MailDispatcher and delivered in the background; each method returns
+ * as soon as the message is queued. Subjects and bodies are EmailTemplates parsed once when
+ * the class loads.
  */
 @Service
 public class EmailService {
-    
+
+    private static final String SIGNATURE =
+        "Best regards,\n" +
+        "Cinema E-Booking Team";
+
+    private static final EmailTemplate VERIFICATION_BODY = EmailTemplate.compile(
+        "Hello {{firstName}},\n\n" +
+        "Thank you for registering with Cinema E-Booking!\n\n" +
+        "Your verification code is: {{code}}\n\n" +
+        "Please enter this code on the verification page to activate your account: http://localhost:3000/verify-email?email=${{email}}\n" +
+        "This code will expire in 24 hours.\n\n" +
+        "If you did not create this account, please ignore this email.\n\n" +
+        SIGNATURE,
+        "firstName", "code", "email");
+
+    private static final EmailTemplate CONFIRMATION_BODY = EmailTemplate.compile(
+        "Hello {{firstName}},\n\n" +
+        "Thank you for registering with Cinema E-Booking!\n\n" +
+        "Please confirm your email address by clicking the link below:\n" +
+        "{{baseUrl}}/api/auth/confirm?token={{token}}\n\n" +
+        "This link will expire in 24 hours.\n\n" +
+        "If you did not create this account, please ignore this email.\n\n" +
+        SIGNATURE,
+        "baseUrl", "firstName", "token");
+
+    private static final EmailTemplate PASSWORD_RESET_BODY = EmailTemplate.compile(
+        "Hello {{firstName}},\n\n" +
+        "Click the link below to reset your password:\n" +
+        "{{baseUrl}}/reset-password?token={{token}}\n\n" +
+        "This link will expire in 1 hour.\n\n" +
+        "If you did not request a password reset, please ignore this email.\n\n" +
+        SIGNATURE,
+        "baseUrl", "firstName", "token");
+
+    private static final EmailTemplate PROFILE_CHANGE_BODY = EmailTemplate.compile(
+        "Hello {{firstName}},\n\n" +
+        "Your profile has been updated:\n" +
+        "{{changes}}\n" +
+        "If you did not make this change, please contact support immediately.\n\n" +
+        SIGNATURE,
+        "firstName", "changes");
+
+    private static final EmailTemplate PROMOTION_BODY = EmailTemplate.compile(
+        "Hello {{firstName}},\n\n" +
+        "{{message}}\n\n" +
+        "Thank you for being a valued customer!\n\n" +
+        SIGNATURE + "\n\n" +
+        "---\n" +
+        "You received this email because you opted in to receive promotional offers. " +
+        "You can manage your email preferences in your account settings.",
+        "message", "firstName");
+
+    private static final EmailTemplate BOOKING_SUBJECT = EmailTemplate.compile(
+        "Booking Confirmation - {{movieTitle}}",
+        "movieTitle");
+
+    private static final EmailTemplate BOOKING_BODY = EmailTemplate.compile(
+        "Hello {{firstName}},\n\n" +
+        "Thank you for your booking! Your tickets have been confirmed.\n\n" +
+        "BOOKING DETAILS:\n" +
+        "================\n" +
+        "Booking ID: {{bookingId}}\n" +
+        "Movie: {{movieTitle}}\n" +
+        "Showtime: {{showtime}}\n" +
+        "Seats: {{seats}}\n" +
+        "Total Price: ${{totalPrice}}\n\n" +
+        "Please arrive at least 15 minutes before showtime.\n" +
+        "Show your booking ID at the box office to collect your tickets.\n\n" +
+        "We look forward to seeing you at the cinema!\n\n" +
+        SIGNATURE,
+        "firstName", "bookingId", "movieTitle", "showtime", "seats", "totalPrice");
+
     //@Value("${app.base.url}")
     private String baseUrl = "http://localhost:3000";
-    
+
+    private final EmailTemplate confirmationBody = CONFIRMATION_BODY.bind("baseUrl", baseUrl);
+    private final EmailTemplate passwordResetBody = PASSWORD_RESET_BODY.bind("baseUrl", baseUrl);
+
     /**
      * Send verification code to new user for email confirmation.
      * @param toEmail Recipient email address
      * @param firstName User's first name
      * @param verificationCode 6-digit verification code
+     * @return Queued mail ID
      */
-    public void sendVerificationCodeEmail(String toEmail, String firstName, String verificationCode) {
+    public String sendVerificationCodeEmail(String toEmail, String firstName, String verificationCode) {
         String subject = "Verify Your Cinema E-Booking Account";
-        String body = String.format(
-            "Hello %s,\n\n" +
-            "Thank you for registering with Cinema E-Booking!\n\n" +
-            "Your verification code is: %s\n\n" +
-            "Please enter this code on the verification page to activate your account: http://localhost:3000/verify-email?email=$%s\n" +
-            "This code will expire in 24 hours.\n\n" +
-            "If you did not create this account, please ignore this email.\n\n" +
-            "Best regards,\n" +
-            "Cinema E-Booking Team",
-            firstName, verificationCode, toEmail
-        );
-        
-        sendEmail(toEmail, subject, body);
+        String body = VERIFICATION_BODY.render(firstName, verificationCode, toEmail);
+
+        return sendEmail(toEmail, subject, body);
     }
-    
+
     /**
      * Send email confirmation link to new user.
      * @param toEmail Recipient email address
      * @param firstName User's first name
      * @param confirmationToken Confirmation token for the link
+     * @return Queued mail ID
      */
-    public void sendConfirmationEmail(String toEmail, String firstName, String confirmationToken) {
+    public String sendConfirmationEmail(String toEmail, String firstName, String confirmationToken) {
         String subject = "Confirm Your Cinema E-Booking Account";
-        String confirmUrl = baseUrl + "/api/auth/confirm?token=" + confirmationToken;
-        String body = String.format(
-            "Hello %s,\n\n" +
-            "Thank you for registering with Cinema E-Booking!\n\n" +
-            "Please confirm your email address by clicking the link below:\n" +
-            "%s\n\n" +
-            "This link will expire in 24 hours.\n\n" +
-            "If you did not create this account, please ignore this email.\n\n" +
-            "Best regards,\n" +
-            "Cinema E-Booking Team",
-            firstName, confirmUrl
-        );
-        
-        sendEmail(toEmail, subject, body);
+        String body = confirmationBody.render(firstName, confirmationToken);
+
+        return sendEmail(toEmail, subject, body);
     }
-    
+
     /**
      * Send password reset link to user.
      * @param toEmail Recipient email address
      * @param firstName User's first name
      * @param resetToken Password reset token for the link
+     * @return Queued mail ID
      */
-    public void sendPasswordResetEmail(String toEmail, String firstName, String resetToken) {
+    public String sendPasswordResetEmail(String toEmail, String firstName, String resetToken) {
         String subject = "Reset Your Cinema E-Booking Password";
-        String resetUrl = baseUrl + "/reset-password?token=" + resetToken;
-        String body = String.format(
-            "Hello %s,\n\n" +
-            "Click the link below to reset your password:\n" +
-            "%s\n\n" +
-            "This link will expire in 1 hour.\n\n" +
-            "If you did not request a password reset, please ignore this email.\n\n" +
-            "Best regards,\n" +
-            "Cinema E-Booking Team",
-            firstName, resetUrl
-        );
-        
-        sendEmail(toEmail, subject, body);
+        String body = passwordResetBody.render(firstName, resetToken);
+
+        return sendEmail(toEmail, subject, body);
     }
-    
+
     /**
      * Send notification about profile changes.
      * @param toEmail Recipient email address
      * @param firstName User's first name
      * @param changeDescription Description of what was changed
+     * @return Queued mail ID
      */
-    public void sendProfileChangeNotification(String toEmail, String firstName, String changeDescription) {
+    public String sendProfileChangeNotification(String toEmail, String firstName, String changeDescription) {
         String subject = "Your Profile Has Been Updated";
-        String body = String.format(
-            "Hello %s,\n\n" +
-            "Your profile has been updated:\n" +
-            "%s\n" +
-            "If you did not make this change, please contact support immediately.\n\n" +
-            "Best regards,\n" +
-            "Cinema E-Booking Team",
-            firstName, changeDescription
-        );
-        
-        sendEmail(toEmail, subject, body);
+        String body = PROFILE_CHANGE_BODY.render(firstName, changeDescription);
+
+        return sendEmail(toEmail, subject, body);
     }
-    
+
     /**
      * Send promotional email to subscribed users.
      * Only call this for users who have opted in to receive promotional emails (marketingOptIn = true).
@@ -115,23 +153,24 @@ public class EmailService {
      * @param firstName User's first name
      * @param subject Email subject
      * @param message Promotional message body
+     * @return Queued mail ID
+     */
+    public String sendPromotionEmail(String toEmail, String firstName, String subject, String message) {
+        OutgoingMail mail = preparePromotionEmail(subject, message).to(toEmail, firstName);
+        return sendEmail(mail.getTo(), mail.getSubject(), mail.getBody());
+    }
+
+    /**
+     * Prepare a promotional email once for a whole campaign; the message is bound into the
+     * body here and only the first name is filled in per recipient.
+     * @param subject Email subject
+     * @param message Promotional message body
+     * @return Prepared email; call to(toEmail, firstName) per recipient
      */
-    public void sendPromotionEmail(String toEmail, String firstName, String subject, String message) {
-        String body = String.format(
-            "Hello %s,\n\n" +
-            "%s\n\n" +
-            "Thank you for being a valued customer!\n\n" +
-            "Best regards,\n" +
-            "Cinema E-Booking Team\n\n" +
-            "---\n" +
-            "You received this email because you opted in to receive promotional offers. " +
-            "You can manage your email preferences in your account settings.",
-            firstName, message
-        );
-        
-        sendEmail(toEmail, subject, body);
+    public PreparedEmail preparePromotionEmail(String subject, String message) {
+        return new PreparedEmail(subject, PROMOTION_BODY.bind("message", message));
     }
-    
+
     /**
      * Send booking confirmation email with order details.
      * @param toEmail Recipient email address
@@ -141,79 +180,47 @@ public class EmailService {
      * @param showtime Showtime (e.g., "2:00 PM")
      * @param seats List of seat IDs (e.g., ["A1", "A2", "B5"])
      * @param totalPrice Total booking price
+     * @return Queued mail ID
      */
-    public void sendBookingConfirmationEmail(String toEmail, String firstName, String bookingId, 
-                                            String movieTitle, String showtime, 
+    public String sendBookingConfirmationEmail(String toEmail, String firstName, String bookingId,
+                                            String movieTitle, String showtime,
                                             java.util.List<String> seats, double totalPrice) {
-        String subject = "Booking Confirmation - " + movieTitle;
-        String seatsList = String.join(", ", seats);
-        
-        String body = String.format(
-            "Hello %s,\n\n" +
-            "Thank you for your booking! Your tickets have been confirmed.\n\n" +
-            "BOOKING DETAILS:\n" +
-            "================\n" +
-            "Booking ID: %s\n" +
-            "Movie: %s\n" +
-            "Showtime: %s\n" +
-            "Seats: %s\n" +
-            "Total Price: $%.2f\n\n" +
-            "Please arrive at least 15 minutes before showtime.\n" +
-            "Show your booking ID at the box office to collect your tickets.\n\n" +
-            "We look forward to seeing you at the cinema!\n\n" +
-            "Best regards,\n" +
-            "Cinema E-Booking Team",
-            firstName, bookingId, movieTitle, showtime, seatsList, totalPrice
-        );
-        
-        sendEmail(toEmail, subject, body);
+        OutgoingMail mail = bookingConfirmationEmail(toEmail, firstName, bookingId, movieTitle, showtime,
+                seats, totalPrice);
+        return sendEmail(mail.getTo(), mail.getSubject(), mail.getBody());
+    }
+
+    /**
+     * Build the booking confirmation email without sending it, for EmailOutbox.add()
+     * inside the booking transaction. Parameters as for sendBookingConfirmationEmail.
+     * @return The unsent mail
+     */
+    public OutgoingMail bookingConfirmationEmail(String toEmail, String firstName, String bookingId,
+                                                 String movieTitle, String showtime,
+                                                 java.util.List<String> seats, double totalPrice) {
+        String subject = BOOKING_SUBJECT.render(movieTitle);
+        String body = BOOKING_BODY.render(firstName, bookingId, movieTitle, showtime,
+                String.join(", ", seats), String.format("%.2f", totalPrice));
+
+        return new OutgoingMail(null, toEmail, subject, body);
     }
-    
+
     /**
-     * Send a generic email using Gmail services.
+     * Queue a generic email for delivery.
      * @param to Recipient email address
      * @param subject Email subject
      * @param body Email body
+     * @return Queued mail ID
+     * @throws RuntimeException if the mail queue is full
      */
-    private void sendEmail(String to, String subject, String body) {
-        System.out.println("=== Attempting to send email ===");
-        System.out.println("To: " + to);
-        System.out.println("Subject: " + subject);
-        
-        try {
-            Properties props = new Properties();
-            props.setProperty("mail.smtp.auth", "true");
-            props.setProperty("mail.smtp.ssl.protocols", "TLSv1.2");
-            props.setProperty("mail.smtp.starttls.enable", "true");
-            props.setProperty("mail.smtp.host", "smtp.gmail.com");
-            props.setProperty("mail.smtp.port", "587"); // SMTP port for TLS
-            props.setProperty("mail.debug", "true"); // Enable debug output
-
-            Authenticator auth = new Authenticator() {
-                public PasswordAuthentication getPasswordAuthentication() {
-                    return new PasswordAuthentication("noreplycinemaebooking@gmail.com", "eptp qpwv yhtm rfgc");
-                }
-            };
-
-            Session session = Session.getInstance(props, auth);
-            session.setDebug(true); // Enable session debugging
-            String fromAddress = "noreplycinemaebooking@gmail.com";
-
-            jakarta.mail.Message msg = new jakarta.mail.internet.MimeMessage(session);
-            msg.setFrom(new InternetAddress(fromAddress));
-            msg.setRecipient(Message.RecipientType.TO, new InternetAddress(to));
-            msg.setSubject(subject);
-            msg.setText(body);
-            
-            System.out.println("Connecting to SMTP server...");
-            Transport.send(msg);
-            System.out.println("✅ Email sent successfully!");
-
-        } catch (MessagingException me) {
-            System.err.println("❌ Error sending email: " + me.getMessage());
-            me.printStackTrace();
+    private String sendEmail(String to, String subject, String body) {
+        String mailId = MailDispatcher.getInstance().enqueue(to, subject, body);
+        if (mailId == null) {
+            System.err.println("❌ Mail queue rejected email to " + to + ": " + subject);
             // Re-throw as runtime exception so caller knows it failed
-            throw new RuntimeException("Failed to send email: " + me.getMessage(), me);
+            throw new RuntimeException("Failed to send email: mail queue is full");
         }
+        System.out.println("Queued email " + mailId + " to " + to + ": " + subject);
+        return mailId;
     }
 }
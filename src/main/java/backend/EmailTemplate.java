@@ -0,0 +1,136 @@
+package backend;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An email subject or body with {{name}} placeholders, parsed once into segments.
+ *
+ * compile() splits the text into literal segments and placeholder slots and checks every
+ * placeholder against the declared variable names, so a typo fails at startup rather than in
+ * a sent mail. render() takes values in declared order and appends segments into a
+ * StringBuilder kept per thread, so rendering allocates only the resulting String. bind()
+ * folds a value that is the same for every recipient (a campaign's message, the site URL)
+ * into the literals once, leaving fewer placeholders to fill per mail.
+ */
+public final class EmailTemplate {
+    private static final int MAX_KEPT_BUFFER = 64 * 1024;
+    private static final ThreadLocal<StringBuilder> BUFFERS = ThreadLocal.withInitial(() -> new StringBuilder(1024));
+
+    private final String[] names;     // variables still to be filled, in render() order
+    private final String[] literals;  // literals[i] comes before slot i; the last one ends the text
+    private final int[] slots;        // index into names for each placeholder
+    private final int literalLength;
+
+    private EmailTemplate(String[] names, String[] literals, int[] slots) {
+        this.names = names;
+        this.literals = literals;
+        this.slots = slots;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * Parse a template.
+     *
+     * @param names The variables the text may use, in the order render() takes their values
+     * @throws IllegalArgumentException if the text uses an undeclared variable or an unclosed {{
+     */
+    public static EmailTemplate compile(String text, String... names) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        int pos = 0;
+        while (true) {
+            int open = text.indexOf("{{", pos);
+            if (open < 0) break;
+            int close = text.indexOf("}}", open + 2);
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed {{ at " + open + " in template: " + text);
+            }
+            String name = text.substring(open + 2, close).trim();
+            int slot = Arrays.asList(names).indexOf(name);
+            if (slot < 0) {
+                throw new IllegalArgumentException("Undeclared template variable {{" + name + "}}");
+            }
+            literals.add(text.substring(pos, open));
+            slots.add(slot);
+            pos = close + 2;
+        }
+        literals.add(text.substring(pos));
+        return new EmailTemplate(names.clone(), literals.toArray(new String[0]),
+                slots.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * A copy of this template with one variable filled in everywhere it appears.
+     * The variable is dropped from getNames(); the others keep their order.
+     */
+    public EmailTemplate bind(String name, String value) {
+        int bound = Arrays.asList(names).indexOf(name);
+        if (bound < 0) {
+            throw new IllegalArgumentException("Undeclared template variable {{" + name + "}}");
+        }
+        String[] newNames = new String[names.length - 1];
+        for (int i = 0, j = 0; i < names.length; i++) {
+            if (i != bound) newNames[j++] = names[i];
+        }
+
+        List<String> newLiterals = new ArrayList<>();
+        List<Integer> newSlots = new ArrayList<>();
+        StringBuilder literal = new StringBuilder(literals[0]);
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] == bound) {
+                literal.append(value).append(literals[i + 1]);
+            } else {
+                newLiterals.add(literal.toString());
+                newSlots.add(slots[i] < bound ? slots[i] : slots[i] - 1);
+                literal.setLength(0);
+                literal.append(literals[i + 1]);
+            }
+        }
+        newLiterals.add(literal.toString());
+        return new EmailTemplate(newNames, newLiterals.toArray(new String[0]),
+                newSlots.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * Render with the given values, one per getNames() entry, in that order.
+     */
+    public String render(String... values) {
+        StringBuilder out = BUFFERS.get();
+        out.setLength(0);
+        renderTo(out, values);
+        String result = out.toString();
+        if (out.capacity() > MAX_KEPT_BUFFER) {
+            BUFFERS.remove(); // don't keep one huge message's buffer around
+        }
+        return result;
+    }
+
+    /**
+     * Append the rendered text to out.
+     */
+    public void renderTo(StringBuilder out, String... values) {
+        if (values.length != names.length) {
+            throw new IllegalArgumentException("Template expects " + Arrays.toString(names) +
+                    " but got " + values.length + " values");
+        }
+        int length = literalLength;
+        for (int slot : slots) {
+            String value = values[slot];
+            length += value != null ? value.length() : 4;
+        }
+        out.ensureCapacity(out.length() + length);
+
+        for (int i = 0; i < slots.length; i++) {
+            out.append(literals[i]).append(values[slots[i]]);
+        }
+        out.append(literals[slots.length]);
+    }
+
+    public List<String> getNames() {return List.of(names);}
+}
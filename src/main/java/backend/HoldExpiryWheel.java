@@ -0,0 +1,98 @@
+package backend;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Hashed timer wheel used to expire seat holds.
+ *
+ * Tasks are dropped into the slot for their deadline tick; a single daemon thread advances one
+ * slot per tick and runs the tasks whose deadline has been reached. Scheduling is O(1) no matter
+ * how many holds are outstanding. Tasks are never cancelled - they must be safe to run after the
+ * thing they expire has already gone away.
+ *
+ * Each entry also keeps its deadline on the nanoTime clock. The first tick after scheduling can
+ * come almost at once, and fixed-rate ticks catch up in bursts after a stall, so a slot can be
+ * reached before the delay has really passed; such entries move on to the next slot instead of
+ * running early.
+ */
+class HoldExpiryWheel {
+    private final long tickMillis;
+    private final List<ConcurrentLinkedQueue<Entry>> slots;
+    private final LongSupplier nanoClock;
+    private volatile long currentTick = 0;
+
+    private static class Entry {
+        final long deadlineTick;
+        final long deadlineNanos;
+        final Runnable task;
+
+        Entry(long deadlineTick, long deadlineNanos, Runnable task) {
+            this.deadlineTick = deadlineTick;
+            this.deadlineNanos = deadlineNanos;
+            this.task = task;
+        }
+    }
+
+    HoldExpiryWheel(long tickMillis, int wheelSize) {
+        this(tickMillis, wheelSize, System::nanoTime);
+        ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "seat-hold-expiry");
+            t.setDaemon(true);
+            return t;
+        });
+        ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * A wheel on the given clock with no ticker thread; the caller drives it with tick().
+     */
+    HoldExpiryWheel(long tickMillis, int wheelSize, LongSupplier nanoClock) {
+        this.tickMillis = tickMillis;
+        this.nanoClock = nanoClock;
+        this.slots = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            slots.add(new ConcurrentLinkedQueue<>());
+        }
+    }
+
+    /**
+     * Run the task once at least delayMillis have passed (on the first tick after that).
+     */
+    void schedule(long delayMillis, Runnable task) {
+        long deadlineNanos = nanoClock.getAsLong() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis));
+        long ticks = Math.max(1, (delayMillis + tickMillis - 1) / tickMillis);
+        add(new Entry(currentTick + ticks, deadlineNanos, task));
+    }
+
+    private void add(Entry entry) {
+        slots.get((int) (entry.deadlineTick % slots.size())).add(entry);
+    }
+
+    void tick() {
+        long tick = ++currentTick;
+        long now = nanoClock.getAsLong();
+        Iterator<Entry> it = slots.get((int) (tick % slots.size())).iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (entry.deadlineTick > tick) continue;
+            it.remove();
+            if (now - entry.deadlineNanos < 0) {
+                add(new Entry(tick + 1, entry.deadlineNanos, entry.task)); // slot came round early
+                continue;
+            }
+            try {
+                entry.task.run();
+            } catch (Exception e) {
+                System.err.println("Error running hold expiry task: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package backend;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out numeric IDs from blocks reserved in the Sequences table (hi/lo allocation).
+ *
+ * Each reservation bumps Sequences.next_value by blockSize in a single autocommitted UPDATE,
+ * so the row lock is held only for that statement and never for the length of a booking
+ * transaction. It runs on the caller's connection when that is in autocommit mode, and on a
+ * connection of its own otherwise. IDs inside the block come from an AtomicLong. Every
+ * app node reserves disjoint blocks, so IDs are unique across nodes; unused IDs in a block
+ * are simply skipped when the node restarts.
+ *
+ * If a sequence row is missing it is created from the current MAX of the table's ID column.
+ */
+public class IdBlockAllocator {
+    private static final int DEFAULT_BLOCK_SIZE = 50;
+    private static final ConcurrentHashMap<String, IdBlockAllocator> allocators = new ConcurrentHashMap<>();
+
+    private final String sequenceName;
+    private final String seedSql;
+    private final int blockSize;
+    private volatile Block current = new Block(0, 0);
+
+    /** A reserved range [next, limit). */
+    private static class Block {
+        final AtomicLong next;
+        final long limit;
+
+        Block(long start, long limit) {
+            this.next = new AtomicLong(start);
+            this.limit = limit;
+        }
+    }
+
+    private IdBlockAllocator(String sequenceName, String table, String column, int blockSize) {
+        this.sequenceName = sequenceName;
+        this.seedSql = "INSERT IGNORE INTO Sequences (name, next_value) " +
+                       "SELECT ?, IFNULL(MAX(" + column + "), 0) + 1 FROM " + table;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Allocator for Bookings.booking_id.
+     */
+    public static IdBlockAllocator forBookings() {
+        return allocators.computeIfAbsent("booking_id",
+                name -> new IdBlockAllocator(name, "Bookings", "booking_id", DEFAULT_BLOCK_SIZE));
+    }
+
+    /**
+     * Get the next ID.
+     *
+     * @return The ID, or null if a new block could not be reserved
+     */
+    public Long nextId() {
+        return nextId(null);
+    }
+
+    /**
+     * Get the next ID, reserving a new block on conn if one is needed.
+     *
+     * @param conn Caller's connection, used only while it is in autocommit mode (can be null)
+     * @return The ID, or null if a new block could not be reserved
+     */
+    public Long nextId(Connection conn) {
+        while (true) {
+            Block block = current;
+            long id = block.next.getAndIncrement();
+            if (id < block.limit) {
+                return id;
+            }
+            synchronized (this) {
+                if (current == block) {
+                    Block reserved = reserveBlock(conn);
+                    if (reserved == null) return null;
+                    current = reserved;
+                }
+            }
+        }
+    }
+
+    private Block reserveBlock(Connection callerConn) {
+        // Never bump the sequence inside someone else's transaction
+        boolean borrowed = !isAutoCommit(callerConn);
+        Connection conn = borrowed ? null : callerConn;
+        try {
+            if (borrowed) {
+                conn = DatabaseConnectSingleton.getInstance().getConn();
+                if (conn == null) return null;
+                conn.setAutoCommit(true);
+            }
+
+            Long end = bumpSequence(conn);
+            if (end == null) {
+                // First use on this database - seed the row from the table, then retry
+                try (PreparedStatement ps = conn.prepareStatement(seedSql)) {
+                    ps.setString(1, sequenceName);
+                    ps.executeUpdate();
+                }
+                end = bumpSequence(conn);
+            }
+            if (end == null) {
+                System.err.println("Could not reserve IDs for sequence " + sequenceName);
+                return null;
+            }
+
+            System.out.println("Reserved " + sequenceName + " block [" + (end - blockSize) + ", " + end + ")");
+            return new Block(end - blockSize, end);
+
+        } catch (SQLException e) {
+            System.err.println("Error reserving ID block for " + sequenceName + ": " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        } finally {
+            try { if (conn != null && borrowed) conn.close(); } catch (SQLException e) { e.printStackTrace(); }
+        }
+    }
+
+    private static boolean isAutoCommit(Connection conn) {
+        try {
+            return conn != null && conn.getAutoCommit();
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Advance the sequence by one block and return the new next_value (the end of our block).
+     * LAST_INSERT_ID(expr) makes the updated value come back with the UPDATE itself.
+     */
+    private Long bumpSequence(Connection conn) throws SQLException {
+        String sql = "UPDATE Sequences SET next_value = LAST_INSERT_ID(next_value + ?) WHERE name = ?";
+        try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            ps.setInt(1, blockSize);
+            ps.setString(2, sequenceName);
+            if (ps.executeUpdate() == 0) {
+                return null;
+            }
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                if (keys.next()) {
+                    return keys.getLong(1);
+                }
+            }
+        }
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT LAST_INSERT_ID()")) {
+            return rs.next() ? rs.getLong(1) : null;
+        }
+    }
+}
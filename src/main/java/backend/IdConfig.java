@@ -0,0 +1,21 @@
+package backend;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Applies app.ids.mode to the IdGenerator used for new ticket, user, card and address IDs.
+ */
+@Configuration
+public class IdConfig {
+
+    @Value("${app.ids.mode:compact}")
+    private String idMode;
+
+    @PostConstruct
+    public void initializeIdGenerator() {
+        Ids.setGenerator(IdGenerator.forMode(idMode));
+        System.out.println("✅ ID generator mode: " + idMode);
+    }
+}
@@ -0,0 +1,33 @@
+package backend;
+
+import java.util.UUID;
+
+/**
+ * Generates primary keys for rows whose IDs are created in Java (tickets, users, cards, addresses).
+ *
+ * Modes (app.ids.mode):
+ *   compact - 26-char time-ordered ID (UUIDv7 bits in Crockford base32), the default
+ *   uuid7   - canonical 36-char UUIDv7 string
+ *   legacy  - random UUIDv4 strings, as written before time-ordered IDs
+ *
+ * Every mode reads every format: IDs are stored and compared as strings, so rows created with
+ * legacy random UUIDs keep working after switching, and switching back is safe too.
+ */
+public interface IdGenerator {
+
+    String newId();
+
+    static IdGenerator forMode(String mode) {
+        if (mode == null) mode = "compact";
+        switch (mode.trim().toLowerCase()) {
+            case "legacy":
+                return () -> UUID.randomUUID().toString();
+            case "uuid7":
+                return new TimeOrderedIdGenerator(false);
+            case "compact":
+                return new TimeOrderedIdGenerator(true);
+            default:
+                throw new IllegalArgumentException("Unknown ID mode: " + mode);
+        }
+    }
+}
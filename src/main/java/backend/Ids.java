@@ -0,0 +1,22 @@
+package backend;
+
+/**
+ * Shared access to the configured IdGenerator, for the static *DBFunctions classes.
+ * Defaults to compact time-ordered IDs; IdConfig applies app.ids.mode at startup.
+ */
+public class Ids {
+    private static volatile IdGenerator generator = IdGenerator.forMode("compact");
+
+    private Ids() { }
+
+    public static void setGenerator(IdGenerator idGenerator) {
+        generator = idGenerator;
+    }
+
+    /**
+     * Generate a new primary key string.
+     */
+    public static String newId() {
+        return generator.newId();
+    }
+}
@@ -0,0 +1,154 @@
+package backend;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.Authenticator;
+import jakarta.mail.PasswordAuthentication;
+import jakarta.mail.Session;
+import jakarta.mail.internet.AddressException;
+import jakarta.mail.internet.InternetAddress;
+
+import java.util.Properties;
+
+/**
+ * Builds the SMTP session from spring.mail.* and starts MailDispatcher with the app.mail.* settings,
+ * then starts the EmailOutbox dispatcher unless app.mail.outbox.dispatch is false. Promotion
+ * campaigns get their own SmtpConnectionPool sized by app.mail.campaign.connections.
+ * When SMTP_HOST is not set, mail goes out through the project's Gmail account as before.
+ * Leaving SMTP_USER empty turns SMTP auth off, for local stand-ins such as MailHog.
+ */
+@Configuration
+public class MailConfig {
+    private static final String GMAIL_HOST = "smtp.gmail.com";
+    private static final String GMAIL_USER = "noreplycinemaebooking@gmail.com";
+    private static final String GMAIL_PASSWORD = "eptp qpwv yhtm rfgc";
+
+    @Value("${spring.mail.host:}")
+    private String host;
+
+    @Value("${spring.mail.port:587}")
+    private int port;
+
+    @Value("${spring.mail.username:}")
+    private String username;
+
+    @Value("${spring.mail.password:}")
+    private String password;
+
+    @Value("${spring.mail.properties.mail.smtp.starttls.enable:true}")
+    private boolean starttls;
+
+    @Value("${spring.mail.properties.mail.debug:false}")
+    private boolean debug;
+
+    @Value("${app.mail.from:noreply@cinemabooking.com}")
+    private String from;
+
+    @Value("${app.mail.workers:2}")
+    private int workers;
+
+    @Value("${app.mail.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${app.mail.max-per-connection:100}")
+    private int maxPerConnection;
+
+    @Value("${app.mail.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${app.mail.retry-backoff-ms:2000}")
+    private long retryBackoffMillis;
+
+    @Value("${app.mail.outbox.dispatch:true}")
+    private boolean outboxDispatch;
+
+    @Value("${app.mail.outbox.batch-size:50}")
+    private int outboxBatchSize;
+
+    @Value("${app.mail.outbox.poll-ms:1000}")
+    private long outboxPollMillis;
+
+    @Value("${app.mail.outbox.lease-seconds:300}")
+    private int outboxLeaseSeconds;
+
+    @Value("${app.mail.outbox.max-attempts:10}")
+    private int outboxMaxAttempts;
+
+    @Value("${app.mail.outbox.retry-backoff-seconds:60}")
+    private long outboxRetryBackoffSeconds;
+
+    @Value("${app.mail.campaign.connections:4}")
+    private int campaignConnections;
+
+    @Value("${app.mail.campaign.rate-per-second:10}")
+    private double campaignRatePerSecond;
+
+    @Value("${app.mail.campaign.page-size:500}")
+    private int campaignPageSize;
+
+    @PostConstruct
+    public void initializeMailDispatcher() {
+        if (host.isBlank()) {
+            host = GMAIL_HOST;
+            port = 587;
+            username = GMAIL_USER;
+            password = GMAIL_PASSWORD;
+            from = GMAIL_USER;
+        }
+
+        Properties props = new Properties();
+        props.setProperty("mail.transport.protocol", "smtp");
+        props.setProperty("mail.smtp.host", host);
+        props.setProperty("mail.smtp.port", String.valueOf(port));
+        props.setProperty("mail.smtp.starttls.enable", String.valueOf(starttls));
+        props.setProperty("mail.smtp.ssl.protocols", "TLSv1.2");
+        props.setProperty("mail.smtp.connectiontimeout", "10000");
+        props.setProperty("mail.smtp.timeout", "30000");
+        props.setProperty("mail.smtp.writetimeout", "30000");
+        props.setProperty("mail.debug", String.valueOf(debug));
+
+        Authenticator auth = null;
+        if (!username.isBlank()) {
+            props.setProperty("mail.smtp.auth", "true");
+            String user = username;
+            String pass = password;
+            auth = new Authenticator() {
+                @Override
+                protected PasswordAuthentication getPasswordAuthentication() {
+                    return new PasswordAuthentication(user, pass);
+                }
+            };
+        }
+
+        InternetAddress fromAddress;
+        try {
+            fromAddress = new InternetAddress(from);
+        } catch (AddressException e) {
+            System.err.println("❌ Invalid app.mail.from '" + from + "': " + e.getMessage());
+            return;
+        }
+
+        Session session = Session.getInstance(props, auth);
+        MailDispatcher.getInstance().configure(session, fromAddress,
+                workers, queueCapacity, maxPerConnection, maxAttempts, retryBackoffMillis);
+        System.out.println("✅ Mail dispatcher: " + workers + " worker(s) via " + host + ":" + port);
+
+        PromotionCampaigns.getInstance().configure(
+                new SmtpConnectionPool(session, fromAddress, campaignConnections, maxPerConnection),
+                campaignRatePerSecond, campaignPageSize);
+
+        if (outboxDispatch) {
+            EmailOutbox.getInstance().start(outboxBatchSize, outboxPollMillis, outboxLeaseSeconds,
+                    outboxMaxAttempts, outboxRetryBackoffSeconds);
+            System.out.println("✅ Email outbox dispatcher started");
+        }
+    }
+
+    @PreDestroy
+    public void shutdownMailDispatcher() {
+        EmailOutbox.getInstance().stop();
+        MailDispatcher.getInstance().shutdown();
+    }
+}
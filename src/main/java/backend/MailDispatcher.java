@@ -0,0 +1,278 @@
+package backend;
+
+import jakarta.mail.Address;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.AddressException;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Asynchronous SMTP delivery for EmailService.
+ *
+ * enqueue() drops the mail into a bounded in-memory queue and returns its mailId straight away,
+ * or null when the queue is full. A few daemon worker threads drain the queue; each keeps its
+ * own Transport connected between messages, so a burst of mail costs one SMTP handshake per
+ * worker instead of one per message. A connection is recycled after maxPerConnection messages
+ * (servers cap this) and closed after sitting idle.
+ *
+ * A failed send closes the worker's connection and puts the mail back on the queue after an
+ * exponential backoff, up to maxAttempts. Rejected recipients are not retried. A mail's
+ * DeliveryListener, if it has one, is told once whether the mail was sent or given up on.
+ *
+ * Settings come from spring.mail.* and app.mail.* (see MailConfig); pointing SMTP_HOST/SMTP_PORT
+ * at a local stand-in such as MailHog exercises the whole pipeline without real delivery.
+ */
+public class MailDispatcher {
+    private static final long IDLE_CLOSE_MILLIS = 30_000;
+    private static final long MAX_BACKOFF_MILLIS = 5 * 60_000L;
+
+    private static MailDispatcher instance = null;
+
+    private final AtomicLong ids = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    private final ScheduledExecutorService retries = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "mail-retry");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private volatile BlockingQueue<OutgoingMail> queue = null;
+    private volatile Session session;
+    private volatile InternetAddress from;
+    private volatile int maxPerConnection = 100;
+    private volatile int maxAttempts = 5;
+    private volatile long retryBackoffMillis = 2_000;
+    private final List<Thread> workers = new ArrayList<>();
+
+    /**
+     * Told how delivery of a mail ended. Called on a worker thread, so keep it short.
+     */
+    public interface DeliveryListener {
+        void delivered(OutgoingMail mail);
+
+        void failed(OutgoingMail mail, Exception cause);
+    }
+
+    private MailDispatcher() { }
+
+    public static synchronized MailDispatcher getInstance() {
+        if (instance == null) {
+            instance = new MailDispatcher();
+        }
+        return instance;
+    }
+
+    /**
+     * Apply the mail settings and start the workers (see MailConfig).
+     * Calling it again replaces the workers; mail already queued is kept.
+     *
+     * @param session Session carrying the SMTP host, port, TLS and authenticator
+     */
+    public synchronized void configure(Session session, InternetAddress from, int workerCount, int queueCapacity,
+                                       int maxPerConnection, int maxAttempts, long retryBackoffMillis) {
+        this.session = session;
+        this.from = from;
+        this.maxPerConnection = Math.max(1, maxPerConnection);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoffMillis = Math.max(0, retryBackoffMillis);
+
+        BlockingQueue<OutgoingMail> previous = queue;
+        BlockingQueue<OutgoingMail> next = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        if (previous != null) {
+            previous.drainTo(next, next.remainingCapacity());
+        }
+        queue = next;
+
+        stopWorkers();
+        for (int i = 0; i < Math.max(1, workerCount); i++) {
+            Thread t = new Thread(this::runWorker, "mail-sender-" + i);
+            t.setDaemon(true);
+            t.start();
+            workers.add(t);
+        }
+    }
+
+    /**
+     * Stop the workers. Mail still in the queue is not delivered.
+     */
+    public synchronized void shutdown() {
+        stopWorkers();
+        retries.shutdownNow();
+    }
+
+    private void stopWorkers() {
+        for (Thread t : workers) {
+            t.interrupt();
+        }
+        workers.clear();
+    }
+
+    /**
+     * Queue a plain-text email for delivery.
+     *
+     * @return The mailId, or null if the dispatcher isn't running or the queue is full
+     */
+    public String enqueue(String to, String subject, String body) {
+        return enqueue(new OutgoingMail("m" + ids.incrementAndGet(), to, subject, body));
+    }
+
+    /**
+     * Queue a prepared mail for delivery. Its listener is not called if the mail is rejected here.
+     *
+     * @return The mailId, or null if the dispatcher isn't running or the queue is full
+     */
+    public String enqueue(OutgoingMail mail) {
+        BlockingQueue<OutgoingMail> q = queue;
+        if (q == null) {
+            return null;
+        }
+        if (!q.offer(mail)) {
+            rejected.incrementAndGet();
+            return null;
+        }
+        return mail.getMailId();
+    }
+
+    /**
+     * Queue depth and delivery counters, for the admin endpoints and logs.
+     */
+    public Map<String, Object> getStats() {
+        BlockingQueue<OutgoingMail> q = queue;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queued", q != null ? q.size() : 0);
+        stats.put("capacity", q != null ? q.size() + q.remainingCapacity() : 0);
+        stats.put("sent", sent.get());
+        stats.put("retried", retried.get());
+        stats.put("failed", failed.get());
+        stats.put("rejected", rejected.get());
+        return stats;
+    }
+
+    private void runWorker() {
+        Transport transport = null;
+        int sentOnConnection = 0;
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                OutgoingMail mail = queue.poll(IDLE_CLOSE_MILLIS, TimeUnit.MILLISECONDS);
+                if (mail == null) {
+                    transport = close(transport);
+                    continue;
+                }
+
+                MimeMessage msg;
+                try {
+                    msg = mail.toMessage(session, from);
+                } catch (MessagingException e) {
+                    // Bad address or content - retrying won't help
+                    fail(mail, e);
+                    continue;
+                }
+
+                try {
+                    if (transport == null || sentOnConnection >= maxPerConnection || !transport.isConnected()) {
+                        close(transport);
+                        transport = session.getTransport("smtp");
+                        transport.connect();
+                        sentOnConnection = 0;
+                    }
+                    transport.sendMessage(msg, msg.getAllRecipients());
+                    sentOnConnection++;
+                    sent.incrementAndGet();
+                    notifyListener(mail, null);
+                } catch (SendFailedException e) {
+                    if (hasInvalidAddresses(e)) {
+                        fail(mail, e);
+                    } else {
+                        transport = close(transport);
+                        retry(mail, e);
+                    }
+                } catch (MessagingException e) {
+                    transport = close(transport);
+                    retry(mail, e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            close(transport);
+        }
+    }
+
+    private void retry(OutgoingMail mail, MessagingException cause) {
+        OutgoingMail next = mail.nextAttempt();
+        if (next.getAttempts() >= maxAttempts) {
+            fail(next, cause);
+            return;
+        }
+        long delay = Math.min(MAX_BACKOFF_MILLIS, retryBackoffMillis << Math.min(20, next.getAttempts() - 1));
+        System.err.println("Mail " + mail.getMailId() + " to " + mail.getTo() + " failed (" + cause.getMessage() +
+                "), retrying in " + delay + " ms");
+        retried.incrementAndGet();
+        try {
+            retries.schedule(() -> {
+                if (!queue.offer(next)) {
+                    rejected.incrementAndGet();
+                    System.err.println("❌ Mail queue full, dropping retry of " + next);
+                    notifyListener(next, cause);
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            fail(next, cause);
+        }
+    }
+
+    private void fail(OutgoingMail mail, MessagingException cause) {
+        failed.incrementAndGet();
+        System.err.println("❌ Giving up on mail " + mail + ": " + cause.getMessage());
+        notifyListener(mail, cause);
+    }
+
+    private static void notifyListener(OutgoingMail mail, Exception cause) {
+        DeliveryListener listener = mail.getListener();
+        if (listener == null) return;
+        try {
+            if (cause == null) {
+                listener.delivered(mail);
+            } else {
+                listener.failed(mail, cause);
+            }
+        } catch (Exception e) {
+            System.err.println("Error in delivery listener for mail " + mail.getMailId() + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private static boolean hasInvalidAddresses(SendFailedException e) {
+        Address[] invalid = e.getInvalidAddresses();
+        return invalid != null && invalid.length > 0 || e.getNextException() instanceof AddressException;
+    }
+
+    private static Transport close(Transport transport) {
+        if (transport != null) {
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                // Connection was already broken
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,75 @@
+package backend;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * AdmissionStore that keeps every room's counters in this JVM.
+ */
+class MemoryAdmissionStore implements AdmissionStore {
+    private final ConcurrentHashMap<String, MemoryRoom> rooms = new ConcurrentHashMap<>();
+
+    private static class MemoryRoom {
+        double admitPerSecond;
+        long maxQueue;
+        long issued = 0;
+        double admitted;
+        long lastAdvance = System.currentTimeMillis();
+
+        MemoryRoom(double admitPerSecond, long maxQueue) {
+            this.admitPerSecond = admitPerSecond;
+            this.maxQueue = maxQueue;
+            this.admitted = admitPerSecond; // a fresh room starts with one second of burst
+        }
+
+        synchronized Room advance(String roomKey) {
+            long now = System.currentTimeMillis();
+            admitted = Room.advance(admitted, issued, admitPerSecond, now - lastAdvance);
+            lastAdvance = now;
+            return new Room(roomKey, admitPerSecond, maxQueue, issued, admitted);
+        }
+    }
+
+    @Override
+    public void open(String roomKey, double admitPerSecond, long maxQueue) {
+        rooms.compute(roomKey, (key, room) -> {
+            if (room == null) return new MemoryRoom(admitPerSecond, maxQueue);
+            synchronized (room) {
+                room.advance(key); // settle at the old rate first
+                room.admitPerSecond = admitPerSecond;
+                room.maxQueue = maxQueue;
+            }
+            return room;
+        });
+    }
+
+    @Override
+    public void close(String roomKey) {
+        rooms.remove(roomKey);
+    }
+
+    @Override
+    public Room get(String roomKey) {
+        MemoryRoom room = rooms.get(roomKey);
+        return room == null ? null : room.advance(roomKey);
+    }
+
+    @Override
+    public long join(String roomKey) {
+        MemoryRoom room = rooms.get(roomKey);
+        if (room == null) return -1;
+        synchronized (room) {
+            Room state = room.advance(roomKey);
+            if (state.getWaiting() >= room.maxQueue) return -1;
+            return ++room.issued;
+        }
+    }
+
+    @Override
+    public List<Room> list() {
+        List<Room> list = new ArrayList<>();
+        rooms.forEach((key, room) -> list.add(room.advance(key)));
+        return list;
+    }
+}
@@ -2,6 +2,8 @@ package backend;
 
 import com.google.gson.Gson;
 
+import java.util.List;
+
 public class Movie {
     
     private int movieId;
@@ -10,6 +12,7 @@ public class Movie {
     private String rating; 
     private String movieDescription;
     private String showtimes; 
+    private List<MovieShowtime> showtimeList = List.of();
     private String duration;
     private String posterUrl;
     private String trailerUrl;
@@ -72,6 +75,10 @@ public class Movie {
         return showtimes;
     }
     
+    public List<MovieShowtime> getShowtimeList() {
+        return showtimeList;
+    }
+    
     public String getDuration() {
         return duration;
     }
@@ -112,6 +119,19 @@ public class Movie {
         this.showtimes = showtimes;
     }
     
+    /**
+     * Set the typed showtimes, and the display string ("02:00 PM, 05:00 PM" or "TBA") from them.
+     */
+    public void setShowtimeList(List<MovieShowtime> showtimeList) {
+        this.showtimeList = List.copyOf(showtimeList);
+        StringBuilder display = new StringBuilder();
+        for (MovieShowtime showtime : this.showtimeList) {
+            if (display.length() > 0) display.append(", ");
+            display.append(showtime.getDisplayTime());
+        }
+        this.showtimes = display.length() > 0 ? display.toString() : "TBA";
+    }
+    
     public void setDuration(String duration) {
         this.duration = duration;
     }
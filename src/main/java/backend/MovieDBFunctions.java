@@ -24,13 +24,13 @@ public class MovieDBFunctions {
     public static int addMovie(String title, String genre, String rating, String description,
                                int durationMinutes, String posterUrl, String trailerUrl, 
                                boolean currentlyShowing) {
-        DatabaseConnectSingleton dcs = DatabaseConnectSingleton.getInstance();
-        Connection conn = dcs.getConn();
+        Connection conn = null;
         PreparedStatement pstmt = null;
         ResultSet rs = null;
         int movieId = -1;
 
         try {
+            conn = DatabaseConnectSingleton.getInstance().getConn();
             
             String sql = "INSERT INTO Movies (title, genre, rating, description, duration_minutes, " +
                         "poster_url, trailer_url, currently_showing) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
@@ -55,6 +55,9 @@ public class MovieDBFunctions {
             }
             
             System.out.println("Movie added successfully with ID: " + movieId);
+            if (movieId > 0) {
+                CatalogCache.getInstance().catalogChanged();
+            }
             
         } catch (SQLException e) {
             System.err.println("Error adding movie: " + e.getMessage());
@@ -63,6 +66,7 @@ public class MovieDBFunctions {
             try {
                 if (rs != null) rs.close();
                 if (pstmt != null) pstmt.close();
+                if (conn != null) conn.close();
             } catch (SQLException e) {
                 e.printStackTrace();
             }
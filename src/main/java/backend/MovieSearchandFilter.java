@@ -1,32 +1,36 @@
 package backend;
 
 import java.sql.*;
+import java.time.LocalTime;
 import java.util.*;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 
+import javax.sql.DataSource;
+
 /**
  * Handles movie database operations including search and filter functionality
  */
 public class MovieSearchandFilter {
-    private static final String URL = "jdbc:mysql://localhost:3306/cinema_eBooking_system";
-    private static final String USERNAME = "root";
-    private static final String PASSWORD = "Booboorex";
+    private final DataSource dataSource;
     
     private Gson gson;
     
+    /**
+     * Uses the shared connection pool registered with DatabaseConnectSingleton.
+     */
     public MovieSearchandFilter() {
+        this(DatabaseConnectSingleton.getInstance().getDataSource());
+    }
+    
+    public MovieSearchandFilter(DataSource dataSource) {
+        this.dataSource = dataSource;
         this.gson = new GsonBuilder().create();
     }
     
-    // Helper method to get database connection
+    // Helper method to borrow a pooled database connection (closing it returns it to the pool)
     private Connection getConnection() throws SQLException {
-        try {
-            Class.forName("com.mysql.cj.jdbc.Driver");
-            return DriverManager.getConnection(URL, USERNAME, PASSWORD);
-        } catch (ClassNotFoundException e) {
-            throw new SQLException("MySQL JDBC Driver not found", e);
-        }
+        return dataSource.getConnection();
     }
     
     /**
@@ -36,12 +40,9 @@ public class MovieSearchandFilter {
         List<Movie> movies = new ArrayList<>();
         String query = """
             SELECT m.movie_id, m.title, m.genre, m.rating, m.description, 
-                   m.duration_minutes, m.currently_showing, m.poster_url, m.trailer_url,
-                   GROUP_CONCAT(TIME_FORMAT(s.showtime, '%h:%i %p') ORDER BY s.showtime SEPARATOR ', ') as showtimes
+                   m.duration_minutes, m.currently_showing, m.poster_url, m.trailer_url
             FROM Movies m
-            LEFT JOIN Showtimes s ON m.movie_id = s.movie_id
-            GROUP BY m.movie_id, m.title, m.genre, m.rating, m.description, 
-                     m.duration_minutes, m.currently_showing, m.poster_url, m.trailer_url
+            ORDER BY m.movie_id
             """;
         
         try (Connection conn = getConnection();
@@ -73,12 +74,11 @@ public class MovieSearchandFilter {
                         .posterUrl(rs.getString("poster_url"))
                         .trailerUrl(rs.getString("trailer_url"))
                         .build();
-                
-                String showtimes = rs.getString("showtimes");
-                movie.setShowtimes(showtimes != null ? showtimes : "TBA");
-                
+
                 movies.add(movie);
             }
+            
+            attachShowtimes(conn, movies, true);
         }
         
         return movies;
@@ -108,13 +108,10 @@ public class MovieSearchandFilter {
         
         String query = """
             SELECT m.movie_id, m.title, m.genre, m.rating, m.description, 
-                   m.duration_minutes, m.currently_showing, m.poster_url, m.trailer_url,
-                   GROUP_CONCAT(TIME_FORMAT(s.showtime, '%h:%i %p') ORDER BY s.showtime SEPARATOR ', ') as showtimes
+                   m.duration_minutes, m.currently_showing, m.poster_url, m.trailer_url
             FROM Movies m
-            LEFT JOIN Showtimes s ON m.movie_id = s.movie_id
             WHERE m.title LIKE ?
-            GROUP BY m.movie_id, m.title, m.genre, m.rating, m.description, 
-                     m.duration_minutes, m.currently_showing, m.poster_url, m.trailer_url
+            ORDER BY m.movie_id
             """;
         
         try (Connection conn = getConnection();
@@ -149,13 +146,11 @@ public class MovieSearchandFilter {
                             .trailerUrl(rs.getString("trailer_url"))
                             .build();
 
-                    
-                    String showtimes = rs.getString("showtimes");
-                    movie.setShowtimes(showtimes != null ? showtimes : "TBA");
-                    
                     movies.add(movie);
                 }
             }
+            
+            attachShowtimes(conn, movies, false);
         }
         
         return movies;
@@ -186,13 +181,10 @@ public class MovieSearchandFilter {
         
         String query = """
             SELECT m.movie_id, m.title, m.genre, m.rating, m.description, 
-                   m.duration_minutes, m.currently_showing, m.poster_url, m.trailer_url,
-                   GROUP_CONCAT(TIME_FORMAT(s.showtime, '%h:%i %p') ORDER BY s.showtime SEPARATOR ', ') as showtimes
+                   m.duration_minutes, m.currently_showing, m.poster_url, m.trailer_url
             FROM Movies m
-            LEFT JOIN Showtimes s ON m.movie_id = s.movie_id
             WHERE m.genre = ?
-            GROUP BY m.movie_id, m.title, m.genre, m.rating, m.description, 
-                     m.duration_minutes, m.currently_showing, m.poster_url, m.trailer_url
+            ORDER BY m.movie_id
             """;
         
         try (Connection conn = getConnection();
@@ -226,13 +218,12 @@ public class MovieSearchandFilter {
                             .posterUrl(rs.getString("poster_url"))
                             .trailerUrl(rs.getString("trailer_url"))
                             .build();
-                    
-                    String showtimes = rs.getString("showtimes");
-                    movie.setShowtimes(showtimes != null ? showtimes : "TBA");
-                    
+
                     movies.add(movie);
                 }
             }
+            
+            attachShowtimes(conn, movies, false);
         }
         
         return movies;
@@ -257,13 +248,9 @@ public class MovieSearchandFilter {
     public Movie getMovieById(int movieId) throws SQLException {
         String query = """
             SELECT m.movie_id, m.title, m.genre, m.rating, m.description, 
-                   m.duration_minutes, m.currently_showing, m.poster_url, m.trailer_url,
-                   GROUP_CONCAT(TIME_FORMAT(s.showtime, '%h:%i %p') ORDER BY s.showtime SEPARATOR ', ') as showtimes
+                   m.duration_minutes, m.currently_showing, m.poster_url, m.trailer_url
             FROM Movies m
-            LEFT JOIN Showtimes s ON m.movie_id = s.movie_id
             WHERE m.movie_id = ?
-            GROUP BY m.movie_id, m.title, m.genre, m.rating, m.description, 
-                     m.duration_minutes, m.currently_showing, m.poster_url, m.trailer_url
             """;
         
         try (Connection conn = getConnection();
@@ -297,10 +284,8 @@ public class MovieSearchandFilter {
                             .posterUrl(rs.getString("poster_url"))
                             .trailerUrl(rs.getString("trailer_url"))
                             .build();
-                    
-                    String showtimes = rs.getString("showtimes");
-                    movie.setShowtimes(showtimes != null ? showtimes : "TBA");
-                    
+
+                    attachShowtimes(conn, List.of(movie), false);
                     return movie;
                 }
             }
@@ -309,6 +294,61 @@ public class MovieSearchandFilter {
         return null;
     }
     
+    /**
+     * Load the showtimes of the given movies with one indexed query (no string aggregation in
+     * MySQL) and attach them to each Movie as a typed list, ordered by time.
+     *
+     * @param allMovies true if movies is the whole catalog, so no movie_id filter is needed
+     */
+    private void attachShowtimes(Connection conn, List<Movie> movies, boolean allMovies) throws SQLException {
+        if (movies.isEmpty()) return;
+
+        Map<Integer, List<MovieShowtime>> byMovie = new HashMap<>();
+        for (Movie movie : movies) {
+            byMovie.put(movie.getMovieId(), new ArrayList<>());
+        }
+
+        StringBuilder query = new StringBuilder("""
+            SELECT s.showtime_id, s.movie_id, s.showroom_id, s.showtime,
+                   sr.num_of_rows * sr.num_of_cols AS capacity,
+                   (SELECT COUNT(*) FROM Tickets t WHERE t.showtime_id = s.showtime_id) AS booked
+            FROM Showtimes s
+            JOIN Showrooms sr ON s.showroom_id = sr.showroom_id
+            WHERE s.showtime IS NOT NULL
+            """);
+        if (!allMovies) {
+            query.append(" AND s.movie_id IN (");
+            for (int i = 0; i < movies.size(); i++) {
+                query.append(i == 0 ? "?" : ", ?");
+            }
+            query.append(")");
+        }
+        query.append(" ORDER BY s.movie_id, s.showtime");
+
+        try (PreparedStatement stmt = conn.prepareStatement(query.toString())) {
+            if (!allMovies) {
+                for (int i = 0; i < movies.size(); i++) {
+                    stmt.setInt(i + 1, movies.get(i).getMovieId());
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    List<MovieShowtime> list = byMovie.get(rs.getInt("movie_id"));
+                    if (list == null) continue;
+                    list.add(new MovieShowtime(
+                            rs.getInt("showtime_id"),
+                            rs.getString("showroom_id"),
+                            rs.getObject("showtime", LocalTime.class),
+                            Math.max(rs.getInt("capacity") - rs.getInt("booked"), 0)));
+                }
+            }
+        }
+
+        for (Movie movie : movies) {
+            movie.setShowtimeList(byMovie.get(movie.getMovieId()));
+        }
+    }
+    
     /**
      * Get all distinct genres
      */
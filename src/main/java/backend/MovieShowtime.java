@@ -0,0 +1,49 @@
+package backend;
+
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+/**
+ * One showing of a movie, as listed in Movie.getShowtimeList(): the showtime and showroom IDs,
+ * the start time, and how many seats were left when the catalog was loaded.
+ *
+ * The LocalTime is kept for Java callers; JSON carries it as "startTime" ("14:00:00", what the
+ * booking endpoints take) and "displayTime" ("02:00 PM", the format the catalog has always shown).
+ */
+public class MovieShowtime {
+    static final DateTimeFormatter DISPLAY_FORMAT = DateTimeFormatter.ofPattern("hh:mm a", Locale.US);
+
+    private final int showtimeId;
+    private final String showroomId;
+    private final transient LocalTime time;
+    private final String startTime;
+    private final String displayTime;
+    private final int seatsRemaining;
+
+    public MovieShowtime(int showtimeId, String showroomId, LocalTime time, int seatsRemaining) {
+        this.showtimeId = showtimeId;
+        this.showroomId = showroomId;
+        this.time = time;
+        this.startTime = time.toString().length() == 5 ? time + ":00" : time.toString();
+        this.displayTime = time.format(DISPLAY_FORMAT);
+        this.seatsRemaining = seatsRemaining;
+    }
+
+    public int getShowtimeId() {return showtimeId;}
+    public String getShowroomId() {return showroomId;}
+    public LocalTime getTime() {return time;}
+    public String getStartTime() {return startTime;}
+    public String getDisplayTime() {return displayTime;}
+    public int getSeatsRemaining() {return seatsRemaining;}
+
+    @Override
+    public String toString() {
+        return "MovieShowtime{" +
+                "showtimeId=" + showtimeId +
+                ", showroomId='" + showroomId + '\'' +
+                ", time=" + startTime +
+                ", seatsRemaining=" + seatsRemaining +
+                '}';
+    }
+}
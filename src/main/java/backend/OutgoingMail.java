@@ -0,0 +1,91 @@
+package backend;
+
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+
+/**
+ * A plain-text email waiting in the MailDispatcher queue.
+ * attempts counts the delivery attempts made so far; listener (optional) hears how delivery ended.
+ * encodedSubject (optional) is a ready-made Subject header shared by mails from one PreparedEmail.
+ */
+public class OutgoingMail {
+    private final String mailId;
+    private final String to;
+    private final String subject;
+    private final String body;
+    private final int attempts;
+    private final MailDispatcher.DeliveryListener listener;
+    private final String encodedSubject;
+
+    public OutgoingMail(String mailId, String to, String subject, String body) {
+        this(mailId, to, subject, body, 0, null, null);
+    }
+
+    private OutgoingMail(String mailId, String to, String subject, String body, int attempts,
+                         MailDispatcher.DeliveryListener listener, String encodedSubject) {
+        this.mailId = mailId;
+        this.to = to;
+        this.subject = subject;
+        this.body = body;
+        this.attempts = attempts;
+        this.listener = listener;
+        this.encodedSubject = encodedSubject;
+    }
+
+    /**
+     * The same mail with one more attempt counted against it.
+     */
+    public OutgoingMail nextAttempt() {
+        return new OutgoingMail(mailId, to, subject, body, attempts + 1, listener, encodedSubject);
+    }
+
+    /**
+     * The same mail under another ID, reporting to the given listener.
+     */
+    public OutgoingMail withDelivery(String mailId, MailDispatcher.DeliveryListener listener) {
+        return new OutgoingMail(mailId, to, subject, body, attempts, listener, encodedSubject);
+    }
+
+    /**
+     * The same mail using an already MIME-encoded Subject header (null to encode per message).
+     */
+    public OutgoingMail withEncodedSubject(String encodedSubject) {
+        return new OutgoingMail(mailId, to, subject, body, attempts, listener, encodedSubject);
+    }
+
+    /**
+     * Build the MimeMessage to hand to a connected Transport.
+     */
+    public MimeMessage toMessage(Session session, InternetAddress from) throws MessagingException {
+        MimeMessage msg = new MimeMessage(session);
+        msg.setFrom(from);
+        msg.setRecipient(Message.RecipientType.TO, new InternetAddress(to));
+        if (encodedSubject != null) {
+            msg.setHeader("Subject", encodedSubject);
+        } else {
+            msg.setSubject(subject);
+        }
+        msg.setText(body);
+        return msg;
+    }
+
+    public String getMailId() {return mailId;}
+    public String getTo() {return to;}
+    public String getSubject() {return subject;}
+    public String getBody() {return body;}
+    public int getAttempts() {return attempts;}
+    public MailDispatcher.DeliveryListener getListener() {return listener;}
+
+    @Override
+    public String toString() {
+        return "OutgoingMail{" +
+                "mailId='" + mailId + '\'' +
+                ", to='" + to + '\'' +
+                ", subject='" + subject + '\'' +
+                ", attempts=" + attempts +
+                '}';
+    }
+}
@@ -0,0 +1,40 @@
+package backend;
+
+import jakarta.mail.internet.MimeUtility;
+
+import java.io.UnsupportedEncodingException;
+
+/**
+ * An email that goes to many recipients with the same subject and mostly the same body, such as
+ * a promotion campaign. The subject is MIME-encoded once and the shared parts of the body are
+ * already bound into the template, so each recipient costs one render of the remaining
+ * placeholders; the resulting OutgoingMails share the subject header rather than re-encoding it.
+ */
+public class PreparedEmail {
+    private final String subject;
+    private final String encodedSubject;
+    private final EmailTemplate body;
+
+    public PreparedEmail(String subject, EmailTemplate body) {
+        this.subject = subject;
+        this.body = body;
+        String encoded;
+        try {
+            encoded = MimeUtility.fold(9, MimeUtility.encodeText(subject, "UTF-8", null));
+        } catch (UnsupportedEncodingException e) {
+            encoded = null; // let each message encode it
+        }
+        this.encodedSubject = encoded;
+    }
+
+    /**
+     * The mail for one recipient.
+     *
+     * @param values The body's remaining placeholder values, in body.getNames() order
+     */
+    public OutgoingMail to(String toEmail, String... values) {
+        return new OutgoingMail(null, toEmail, subject, body.render(values)).withEncodedSubject(encodedSubject);
+    }
+
+    public String getSubject() {return subject;}
+}
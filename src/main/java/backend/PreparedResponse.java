@@ -0,0 +1,87 @@
+package backend;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A JSON response body serialized once and reused for every request: the UTF-8 bytes, a
+ * gzipped copy, a strong ETag derived from the content, and a Last-Modified time.
+ *
+ * The ETag is a hash of the body, so every node serving the same catalog hands out the same
+ * tag. The gzipped copy is a different representation and gets its own strong tag (the same
+ * hash with a "-gz" suffix); an If-None-Match with either tag matches. Last-Modified only
+ * moves when the body actually changes.
+ */
+public class PreparedResponse {
+    private final byte[] body;
+    private final byte[] gzipped;
+    private final String etag;
+    private final String gzipEtag;
+    private final long lastModified;
+
+    private PreparedResponse(byte[] body, byte[] gzipped, String hash, long lastModified) {
+        this.body = body;
+        this.gzipped = gzipped;
+        this.etag = "\"" + hash + "\"";
+        this.gzipEtag = "\"" + hash + "-gz\"";
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Serialize a JSON string. If it's identical to the previous response, the previous one is
+     * returned as-is so its Last-Modified time is kept.
+     */
+    public static PreparedResponse of(String json, long modifiedAt, PreparedResponse previous) {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        String hash = hash(body);
+        if (previous != null && previous.etag.equals("\"" + hash + "\"")) {
+            return previous;
+        }
+        // HTTP dates have one-second resolution
+        return new PreparedResponse(body, gzip(body), hash, modifiedAt / 1000 * 1000);
+    }
+
+    public byte[] getBody() {return body;}
+    public byte[] getGzipped() {return gzipped;}
+    public String getEtag() {return etag;}
+    public String getGzipEtag() {return gzipEtag;}
+    public long getLastModified() {return lastModified;}
+
+    /**
+     * True if an If-None-Match header value (one or more tags, or *) matches this response,
+     * in either encoding.
+     */
+    public boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null) return false;
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.startsWith("W/")) tag = tag.substring(2);
+            if (tag.equals("*") || tag.equals(etag) || tag.equals(gzipEtag)) return true;
+        }
+        return false;
+    }
+
+    private static String hash(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(body);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,430 @@
+package backend;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Background promotion email campaigns.
+ *
+ * start() records a PromotionCampaigns row and returns its id; the campaign then runs on its own
+ * virtual thread. Subscribers are read a page at a time (UserDBFunctions.forEachSubscribedUserPage)
+ * and stored as PromotionRecipients rows in 'pending'. Each page is fanned out with one virtual thread per
+ * recipient, all paced by a send rate shared by every campaign on this node, and sent over
+ * SmtpConnectionPool. As sends complete, recipients are marked 'sent' or 'failed' and the
+ * campaign's counters updated in chunks of RECORD_CHUNK, so getProgress() can report from the DB
+ * on any node and a crash leaves at most a chunk of sent mails still marked 'pending'. A page
+ * finishes before the next is read, so memory stays bounded by the page size.
+ *
+ * A campaign that was running when its node stopped is not resumed.
+ */
+public class PromotionCampaigns {
+    private static final int SEND_ATTEMPTS = 2;
+    private static final int RECORD_CHUNK = 25;
+
+    private static PromotionCampaigns instance = null;
+
+    private final ExecutorService runners = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("promotion-campaign-", 0).factory());
+    private final SendRate sendRate = new SendRate();
+
+    private volatile SmtpConnectionPool pool = null;
+    private volatile int pageSize = 500;
+
+    /**
+     * Hands out evenly spaced send slots; callers sleep until their slot comes up.
+     */
+    private static class SendRate {
+        private long intervalNanos = TimeUnit.SECONDS.toNanos(1) / 10;
+        private long nextSlot = System.nanoTime();
+
+        synchronized void setPerSecond(double perSecond) {
+            intervalNanos = perSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / perSecond) : 0;
+        }
+
+        void acquire() {
+            long slot;
+            synchronized (this) {
+                long now = System.nanoTime();
+                slot = Math.max(now, nextSlot);
+                nextSlot = slot + intervalNanos;
+            }
+            long wait;
+            while ((wait = slot - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+        }
+    }
+
+    /**
+     * Send results of one page not yet written to the DB. Whichever sender fills a chunk writes it.
+     */
+    private class PendingResults {
+        private final long campaignId;
+        private List<String> sent = new ArrayList<>();
+        private Map<String, String> failed = new HashMap<>();
+
+        PendingResults(long campaignId) {
+            this.campaignId = campaignId;
+        }
+
+        /**
+         * @param error null if the mail was sent
+         */
+        void add(String userId, String error) {
+            synchronized (this) {
+                if (error == null) {
+                    sent.add(userId);
+                } else {
+                    failed.put(userId, error);
+                }
+                if (sent.size() + failed.size() < RECORD_CHUNK) return;
+            }
+            flush();
+        }
+
+        void flush() {
+            List<String> chunkSent;
+            Map<String, String> chunkFailed;
+            synchronized (this) {
+                if (sent.isEmpty() && failed.isEmpty()) return;
+                chunkSent = sent;
+                chunkFailed = failed;
+                sent = new ArrayList<>();
+                failed = new HashMap<>();
+            }
+            recordResults(campaignId, chunkSent, chunkFailed);
+        }
+    }
+
+    private PromotionCampaigns() { }
+
+    public static synchronized PromotionCampaigns getInstance() {
+        if (instance == null) {
+            instance = new PromotionCampaigns();
+        }
+        return instance;
+    }
+
+    /**
+     * Apply the app.mail.campaign.* settings (see MailConfig).
+     *
+     * @param sendsPerSecond Most promotion emails sent per second by this node, or 0 for no limit
+     */
+    public void configure(SmtpConnectionPool pool, double sendsPerSecond, int pageSize) {
+        SmtpConnectionPool previous = this.pool;
+        this.pool = pool;
+        this.pageSize = Math.max(1, pageSize);
+        sendRate.setPerSecond(sendsPerSecond);
+        if (previous != null && previous != pool) {
+            previous.close();
+        }
+    }
+
+    /**
+     * Create a campaign and start sending it in the background.
+     *
+     * @return The campaign ID, or null if it could not be created
+     */
+    public Long start(String subject, String message, EmailService emailService) {
+        if (pool == null) {
+            System.err.println("Promotion campaigns are not configured");
+            return null;
+        }
+        Long campaignId = insertCampaign(subject, message);
+        if (campaignId != null) {
+            PreparedEmail email = emailService.preparePromotionEmail(subject, message);
+            runners.submit(() -> run(campaignId, email));
+            System.out.println("Started promotion campaign " + campaignId);
+        }
+        return campaignId;
+    }
+
+    /**
+     * Get a campaign's status and counters.
+     *
+     * @return Progress map, or null if the campaign doesn't exist
+     */
+    public Map<String, Object> getProgress(long campaignId) {
+        String sql = "SELECT campaign_id, subject, status, total, sent, failed, created_at, finished_at " +
+                     "FROM PromotionCampaigns WHERE campaign_id = ?";
+        Connection conn = null;
+        try {
+            conn = DatabaseConnectSingleton.getInstance().getConn();
+            if (conn == null) return null;
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setLong(1, campaignId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (!rs.next()) return null;
+                    int total = rs.getInt("total");
+                    int sent = rs.getInt("sent");
+                    int failed = rs.getInt("failed");
+                    Timestamp createdAt = rs.getTimestamp("created_at");
+                    Timestamp finishedAt = rs.getTimestamp("finished_at");
+
+                    Map<String, Object> progress = new LinkedHashMap<>();
+                    progress.put("campaignId", rs.getLong("campaign_id"));
+                    progress.put("subject", rs.getString("subject"));
+                    progress.put("status", rs.getString("status"));
+                    progress.put("total", total);
+                    progress.put("sent", sent);
+                    progress.put("failed", failed);
+                    progress.put("pending", total - sent - failed);
+                    progress.put("createdAt", createdAt != null ? createdAt.toString() : null);
+                    progress.put("finishedAt", finishedAt != null ? finishedAt.toString() : null);
+                    return progress;
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error getting campaign " + campaignId + ": " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        } finally {
+            try { if (conn != null) conn.close(); } catch (SQLException e) { e.printStackTrace(); }
+        }
+    }
+
+    private void run(long campaignId, PreparedEmail email) {
+        updateStatus(campaignId, "running");
+        try {
+            AtomicBoolean recorded = new AtomicBoolean(true);
+            boolean read = UserDBFunctions.forEachSubscribedUserPage(pageSize, page -> {
+                if (!addRecipients(campaignId, page)) {
+                    recorded.set(false);
+                    return false;
+                }
+                sendPage(campaignId, page, email);
+                return true;
+            });
+            boolean completed = read && recorded.get();
+            updateStatus(campaignId, completed ? "completed" : "failed");
+            System.out.println("Promotion campaign " + campaignId + (completed ? " completed" : " failed"));
+        } catch (Exception e) {
+            System.err.println("Promotion campaign " + campaignId + " failed: " + e.getMessage());
+            e.printStackTrace();
+            updateStatus(campaignId, "failed");
+        }
+    }
+
+    /**
+     * Send one page, one virtual thread per recipient, recording results in chunks as they come in.
+     * Mails are rendered here on the campaign thread, reusing its template buffer.
+     */
+    private void sendPage(long campaignId, List<SubscribedUser> page, PreparedEmail email) {
+        PendingResults results = new PendingResults(campaignId);
+
+        try (ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (SubscribedUser user : page) {
+                OutgoingMail mail = email.to(user.getEmail(), user.getFirstName());
+                senders.submit(() -> results.add(user.getUserId(), send(mail)));
+            }
+        } // close() waits for the page to finish
+
+        results.flush();
+    }
+
+    /**
+     * @return null if sent, otherwise the error
+     */
+    private String send(OutgoingMail mail) {
+        String error = null;
+        for (int attempt = 0; attempt < SEND_ATTEMPTS; attempt++) {
+            sendRate.acquire();
+            try {
+                pool.send(mail);
+                return null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return "Interrupted";
+            } catch (Exception e) {
+                error = e.getMessage() != null ? e.getMessage() : e.toString();
+            }
+        }
+        return error;
+    }
+
+    private Long insertCampaign(String subject, String message) {
+        String sql = "INSERT INTO PromotionCampaigns (subject, message) VALUES (?, ?)";
+        Connection conn = null;
+        try {
+            conn = DatabaseConnectSingleton.getInstance().getConn();
+            if (conn == null) return null;
+            try (PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                pstmt.setString(1, subject);
+                pstmt.setString(2, message);
+                pstmt.executeUpdate();
+                try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                    return keys.next() ? keys.getLong(1) : null;
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error creating promotion campaign: " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        } finally {
+            try { if (conn != null) conn.close(); } catch (SQLException e) { e.printStackTrace(); }
+        }
+    }
+
+    private boolean addRecipients(long campaignId, List<SubscribedUser> page) {
+        String insertSql = "INSERT IGNORE INTO PromotionRecipients (campaign_id, user_id, email) VALUES (?, ?, ?)";
+        String totalSql = "UPDATE PromotionCampaigns SET total = total + ? WHERE campaign_id = ?";
+        String recountSql = "UPDATE PromotionCampaigns SET total = " +
+                            "(SELECT COUNT(*) FROM PromotionRecipients WHERE campaign_id = ?) WHERE campaign_id = ?";
+        Connection conn = null;
+        try {
+            conn = DatabaseConnectSingleton.getInstance().getConn();
+            if (conn == null) return false;
+            conn.setAutoCommit(false);
+            int added = 0; // rows INSERT IGNORE actually inserted, or -1 if the driver didn't say
+            try (PreparedStatement pstmt = conn.prepareStatement(insertSql)) {
+                for (SubscribedUser user : page) {
+                    pstmt.setLong(1, campaignId);
+                    pstmt.setString(2, user.getUserId());
+                    pstmt.setString(3, user.getEmail());
+                    pstmt.addBatch();
+                }
+                for (int count : pstmt.executeBatch()) {
+                    if (count == Statement.SUCCESS_NO_INFO) {
+                        added = -1;
+                        break;
+                    }
+                    added += Math.max(0, count);
+                }
+            }
+            if (added >= 0) {
+                try (PreparedStatement pstmt = conn.prepareStatement(totalSql)) {
+                    pstmt.setInt(1, added);
+                    pstmt.setLong(2, campaignId);
+                    pstmt.executeUpdate();
+                }
+            } else {
+                try (PreparedStatement pstmt = conn.prepareStatement(recountSql)) {
+                    pstmt.setLong(1, campaignId);
+                    pstmt.setLong(2, campaignId);
+                    pstmt.executeUpdate();
+                }
+            }
+            conn.commit();
+            return true;
+        } catch (SQLException e) {
+            try {
+                if (conn != null) conn.rollback();
+            } catch (SQLException ex) {
+                ex.printStackTrace();
+            }
+            System.err.println("Error adding recipients to campaign " + campaignId + ": " + e.getMessage());
+            return false;
+        } finally {
+            try {
+                if (conn != null) {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void recordResults(long campaignId, List<String> sent, Map<String, String> failed) {
+        // Only pending rows change, so the counters move by the rows actually updated
+        String sentSql = "UPDATE PromotionRecipients SET status = 'sent', error = NULL " +
+                         "WHERE campaign_id = ? AND user_id = ? AND status = 'pending'";
+        String failedSql = "UPDATE PromotionRecipients SET status = 'failed', error = ? " +
+                           "WHERE campaign_id = ? AND user_id = ? AND status = 'pending'";
+        String countSql = "UPDATE PromotionCampaigns SET sent = sent + ?, failed = failed + ? WHERE campaign_id = ?";
+        Connection conn = null;
+        try {
+            conn = DatabaseConnectSingleton.getInstance().getConn();
+            if (conn == null) return;
+            conn.setAutoCommit(false);
+            int sentCount;
+            int failedCount;
+            try (PreparedStatement pstmt = conn.prepareStatement(sentSql)) {
+                for (String userId : sent) {
+                    pstmt.setLong(1, campaignId);
+                    pstmt.setString(2, userId);
+                    pstmt.addBatch();
+                }
+                sentCount = updatedRows(pstmt.executeBatch());
+            }
+            try (PreparedStatement pstmt = conn.prepareStatement(failedSql)) {
+                for (Map.Entry<String, String> entry : failed.entrySet()) {
+                    String error = entry.getValue();
+                    pstmt.setString(1, error.length() > 500 ? error.substring(0, 500) : error);
+                    pstmt.setLong(2, campaignId);
+                    pstmt.setString(3, entry.getKey());
+                    pstmt.addBatch();
+                }
+                failedCount = updatedRows(pstmt.executeBatch());
+            }
+            try (PreparedStatement pstmt = conn.prepareStatement(countSql)) {
+                pstmt.setInt(1, sentCount);
+                pstmt.setInt(2, failedCount);
+                pstmt.setLong(3, campaignId);
+                pstmt.executeUpdate();
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            try {
+                if (conn != null) conn.rollback();
+            } catch (SQLException ex) {
+                ex.printStackTrace();
+            }
+            System.err.println("Error recording results for campaign " + campaignId + ": " + e.getMessage());
+        } finally {
+            try {
+                if (conn != null) {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    // Rows changed by a batch of single-row updates; a statement the driver reports without a
+    // count is taken to have changed its row
+    private static int updatedRows(int[] counts) {
+        int rows = 0;
+        for (int count : counts) {
+            rows += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(0, count);
+        }
+        return rows;
+    }
+
+    private void updateStatus(long campaignId, String status) {
+        String sql = "UPDATE PromotionCampaigns SET status = ?, " +
+                     "finished_at = IF(? IN ('completed', 'failed'), NOW(), finished_at) WHERE campaign_id = ?";
+        Connection conn = null;
+        try {
+            conn = DatabaseConnectSingleton.getInstance().getConn();
+            if (conn == null) return;
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setString(1, status);
+                pstmt.setString(2, status);
+                pstmt.setLong(3, campaignId);
+                pstmt.executeUpdate();
+            }
+        } catch (SQLException e) {
+            System.err.println("Error updating campaign " + campaignId + ": " + e.getMessage());
+        } finally {
+            try { if (conn != null) conn.close(); } catch (SQLException e) { e.printStackTrace(); }
+        }
+    }
+}
@@ -25,15 +25,16 @@ public class PromotionDBFunctions {
      */
     public static String createPromotion(String code, String description, double discountPercent, 
                                         String validFrom, String validTo) {
-        DatabaseConnectSingleton dcs = DatabaseConnectSingleton.getInstance();
+        Connection conn = null;
         PreparedStatement pstmt = null;
         String promoId = UUID.randomUUID().toString();
 
         try {
+            conn = DatabaseConnectSingleton.getInstance().getConn();
             String sql = "INSERT INTO Promotions (promo_id, code, description, discount_percent, valid_from, valid_to) " +
                         "VALUES (?, ?, ?, ?, CAST(? AS DATE), CAST(? AS DATE))";
             
-            pstmt = dcs.getConn().prepareStatement(sql);
+            pstmt = conn.prepareStatement(sql);
             pstmt.setString(1, promoId);
             pstmt.setString(2, code);
             pstmt.setString(3, description);
@@ -54,6 +55,7 @@ public class PromotionDBFunctions {
         } finally {
             try {
                 if (pstmt != null) pstmt.close();
+                if (conn != null) conn.close();
             } catch (SQLException e) {
                 e.printStackTrace();
             }
@@ -68,13 +70,14 @@ public class PromotionDBFunctions {
      * @return List of promotion maps with details
      */
     public static List<Map<String, Object>> getAllPromotions() {
-        DatabaseConnectSingleton dcs = DatabaseConnectSingleton.getInstance();
+        Connection conn = null;
         Statement stmt = null;
         ResultSet rs = null;
         List<Map<String, Object>> promotions = new ArrayList<>();
 
         try {
-            stmt = dcs.getConn().createStatement();
+            conn = DatabaseConnectSingleton.getInstance().getConn();
+            stmt = conn.createStatement();
             
             String sql = "SELECT promo_id, code, description, discount_percent, valid_from, valid_to " +
                         "FROM Promotions ORDER BY valid_from DESC";
@@ -99,6 +102,7 @@ public class PromotionDBFunctions {
             try {
                 if (rs != null) rs.close();
                 if (stmt != null) stmt.close();
+                if (conn != null) conn.close();
             } catch (SQLException e) {
                 e.printStackTrace();
             }
@@ -114,16 +118,17 @@ public class PromotionDBFunctions {
      * @return Promotion map with details, or null if not found
      */
     public static Map<String, Object> getPromotionByCode(String code) {
-        DatabaseConnectSingleton dcs = DatabaseConnectSingleton.getInstance();
+        Connection conn = null;
         PreparedStatement pstmt = null;
         ResultSet rs = null;
         Map<String, Object> promotion = null;
 
         try {
+            conn = DatabaseConnectSingleton.getInstance().getConn();
             String sql = "SELECT promo_id, code, description, discount_percent, valid_from, valid_to " +
                         "FROM Promotions WHERE code = ?";
             
-            pstmt = dcs.getConn().prepareStatement(sql);
+            pstmt = conn.prepareStatement(sql);
             pstmt.setString(1, code);
             
             rs = pstmt.executeQuery();
@@ -145,6 +150,7 @@ public class PromotionDBFunctions {
             try {
                 if (rs != null) rs.close();
                 if (pstmt != null) pstmt.close();
+                if (conn != null) conn.close();
             } catch (SQLException e) {
                 e.printStackTrace();
             }
@@ -160,16 +166,17 @@ public class PromotionDBFunctions {
      * @return true if promotion exists and is currently active, false otherwise
      */
     public static boolean isPromotionActive(String code) {
-        DatabaseConnectSingleton dcs = DatabaseConnectSingleton.getInstance();
+        Connection conn = null;
         PreparedStatement pstmt = null;
         ResultSet rs = null;
         boolean isActive = false;
 
         try {
+            conn = DatabaseConnectSingleton.getInstance().getConn();
             String sql = "SELECT COUNT(*) as count FROM Promotions " +
                         "WHERE code = ? AND CURDATE() BETWEEN valid_from AND valid_to";
             
-            pstmt = dcs.getConn().prepareStatement(sql);
+            pstmt = conn.prepareStatement(sql);
             pstmt.setString(1, code);
             
             rs = pstmt.executeQuery();
@@ -185,6 +192,7 @@ public class PromotionDBFunctions {
             try {
                 if (rs != null) rs.close();
                 if (pstmt != null) pstmt.close();
+                if (conn != null) conn.close();
             } catch (SQLException e) {
                 e.printStackTrace();
             }
@@ -0,0 +1,117 @@
+package backend;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Signed, self-contained waiting-room tokens, so no node has to remember who holds which
+ * queue number.
+ *
+ * A WAIT token carries a room and a queue number; a PASS token carries a room and the time
+ * its admission expires. Both also carry when they were issued and the session they were
+ * issued to, so a token copied to another client is refused. They are "payload.signature" in
+ * base64url, signed with HMAC-SHA256. Nodes that share a queue (app.waiting-room.store=db)
+ * must share the secret, and the sessions.
+ */
+public class QueueTokens {
+    public static final String WAIT = "W";
+    public static final String PASS = "P";
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    // Random per process until WaitingRoomConfig sets the shared secret
+    private static volatile SecretKeySpec key = new SecretKeySpec(randomBytes(), "HmacSHA256");
+
+    private QueueTokens() { }
+
+    public static void setSecret(String secret) {
+        if (secret != null && !secret.isEmpty()) {
+            key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+        }
+    }
+
+    /**
+     * A decoded token. value is the queue number (WAIT) or the expiry time in millis (PASS);
+     * holder is the session ID it was issued to.
+     */
+    public static class Token {
+        private final String type;
+        private final String roomKey;
+        private final long value;
+        private final long issuedAt;
+        private final String holder;
+
+        Token(String type, String roomKey, long value, long issuedAt, String holder) {
+            this.type = type;
+            this.roomKey = roomKey;
+            this.value = value;
+            this.issuedAt = issuedAt;
+            this.holder = holder;
+        }
+
+        public String getType() {return type;}
+        public String getRoomKey() {return roomKey;}
+        public long getValue() {return value;}
+        public long getIssuedAt() {return issuedAt;}
+        public String getHolder() {return holder;}
+    }
+
+    public static String waitToken(String roomKey, long queueNumber, long issuedAt, String holder) {
+        return sign(WAIT + "|" + roomKey + "|" + queueNumber + "|" + issuedAt + "|" + holder);
+    }
+
+    public static String passToken(String roomKey, long expiresAt, long issuedAt, String holder) {
+        return sign(PASS + "|" + roomKey + "|" + expiresAt + "|" + issuedAt + "|" + holder);
+    }
+
+    /**
+     * Decode and verify a token.
+     *
+     * @return The token, or null if it is malformed or the signature doesn't match
+     */
+    public static Token parse(String token) {
+        if (token == null) return null;
+        int dot = token.indexOf('.');
+        if (dot < 0) return null;
+        try {
+            byte[] payload = DECODER.decode(token.substring(0, dot));
+            byte[] signature = DECODER.decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(signature, mac(payload))) return null;
+
+            String[] parts = new String(payload, StandardCharsets.UTF_8).split("\\|", 5);
+            if (parts.length != 5) return null;
+            return new Token(parts[0], parts[1], Long.parseLong(parts[2]), Long.parseLong(parts[3]), parts[4]);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String sign(String payload) {
+        byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+        return ENCODER.encodeToString(bytes) + "." + ENCODER.encodeToString(mac(bytes));
+    }
+
+    private static byte[] mac(byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(key);
+            byte[] full = mac.doFinal(payload);
+            byte[] truncated = new byte[16];
+            System.arraycopy(full, 0, truncated, 0, truncated.length);
+            return truncated;
+        } catch (Exception e) {
+            throw new IllegalStateException("HmacSHA256 unavailable", e);
+        }
+    }
+
+    private static byte[] randomBytes() {
+        byte[] bytes = new byte[32];
+        new SecureRandom().nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,61 @@
+package backend;
+
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compact form of a showtime's seat map: one bit per seat, set when the seat is unavailable
+ * (booked or held).
+ *
+ * Bits are row-major, bit index = row * cols + (seatNumber - 1), and packed least significant
+ * bit first: seat i is bit (i % 8) of byte (i / 8). The array is always ceil(rows * cols / 8)
+ * bytes long. Seat IDs that don't fit the showroom grid are not represented.
+ */
+public class SeatBitmap {
+    public static final String ENCODING = "bitmap-lsb0-base64";
+
+    private final int showtimeId;
+    private final long version;
+    private final int rows;
+    private final int cols;
+    private final byte[] bits;
+
+    public SeatBitmap(int showtimeId, long version, int rows, int cols, byte[] bits) {
+        this.showtimeId = showtimeId;
+        this.version = version;
+        this.rows = rows;
+        this.cols = cols;
+        // BitSet.toByteArray() drops trailing zero bytes; pad back to the full grid
+        this.bits = Arrays.copyOf(bits, (rows * cols + 7) / 8);
+    }
+
+    public int getShowtimeId() {return showtimeId;}
+    public long getVersion() {return version;}
+    public int getRows() {return rows;}
+    public int getCols() {return cols;}
+    public byte[] getBits() {return bits.clone();}
+
+    public boolean isSet(int index) {
+        return (bits[index >> 3] & (1 << (index & 7))) != 0;
+    }
+
+    public String toBase64() {
+        return Base64.getEncoder().encodeToString(bits);
+    }
+
+    /**
+     * The JSON body for the bitmap format.
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("showtimeId", showtimeId);
+        map.put("version", version);
+        map.put("rows", rows);
+        map.put("cols", cols);
+        map.put("encoding", ENCODING);
+        map.put("bitmap", toBase64());
+        return map;
+    }
+}
@@ -0,0 +1,59 @@
+package backend;
+
+import java.util.List;
+
+/**
+ * A change in seat availability for one showtime, as published by SeatInventory.
+ *
+ * A "delta" lists the seats that became unavailable (booked or held) and the seats that were
+ * freed. A "snapshot" carries the full list of unavailable seats in taken and is published when
+ * a showtime is (re)loaded, so watchers can replace whatever state they had.
+ *
+ * Versions come from one counter shared by every showtime, so they keep increasing for a
+ * showtime even across reloads.
+ */
+public class SeatChange {
+    public static final String SNAPSHOT = "snapshot";
+    public static final String DELTA = "delta";
+
+    private final String type;
+    private final int showtimeId;
+    private final long version;
+    private final List<String> taken;
+    private final List<String> released;
+
+    private SeatChange(String type, int showtimeId, long version, List<String> taken, List<String> released) {
+        this.type = type;
+        this.showtimeId = showtimeId;
+        this.version = version;
+        this.taken = List.copyOf(taken);
+        this.released = List.copyOf(released);
+    }
+
+    public static SeatChange snapshot(int showtimeId, long version, List<String> unavailable) {
+        return new SeatChange(SNAPSHOT, showtimeId, version, unavailable, List.of());
+    }
+
+    public static SeatChange delta(int showtimeId, long version, List<String> taken, List<String> released) {
+        return new SeatChange(DELTA, showtimeId, version, taken, released);
+    }
+
+    public boolean isSnapshot() {return SNAPSHOT.equals(type);}
+
+    public String getType() {return type;}
+    public int getShowtimeId() {return showtimeId;}
+    public long getVersion() {return version;}
+    public List<String> getTaken() {return taken;}
+    public List<String> getReleased() {return released;}
+
+    @Override
+    public String toString() {
+        return "SeatChange{" +
+                "type='" + type + '\'' +
+                ", showtimeId=" + showtimeId +
+                ", version=" + version +
+                ", taken=" + taken +
+                ", released=" + released +
+                '}';
+    }
+}
@@ -0,0 +1,271 @@
+package backend;
+
+import com.google.gson.Gson;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streams live seat availability to browsers over Server-Sent Events.
+ *
+ * There is one publisher per watched showtime. SeatInventory hands every SeatChange to the hub,
+ * which serializes it once and writes the same bytes to each of the showtime's watchers, so N
+ * watchers cost one event rather than N availability queries. A new watcher first gets a
+ * "snapshot" event with every unavailable seat, then "delta" events with the seats taken and
+ * released; the event id is the change's version.
+ *
+ * All publisher bookkeeping runs on the single "seat-events" thread, which keeps each
+ * watcher's events in version order and lets the inventory publish without blocking. The
+ * writes themselves go through a small queue per watcher, drained on a virtual thread, so a
+ * slow client only holds up its own stream; a watcher that falls MAX_QUEUED_EVENTS behind is
+ * disconnected and can reconnect for a fresh snapshot. Publishers are dropped when their last
+ * watcher disconnects.
+ *
+ * Each client (by remote address) may have MAX_STREAMS_PER_CLIENT streams open, and the hub
+ * MAX_STREAMS in total.
+ */
+public class SeatEventHub {
+    private static final long EMITTER_TIMEOUT_MILLIS = 30 * 60 * 1000L;
+    private static final long HEARTBEAT_SECONDS = 20;
+    private static final int MAX_QUEUED_EVENTS = 64;
+    private static final int MAX_STREAMS = 5000;
+    private static final int MAX_STREAMS_PER_CLIENT = 4;
+
+    private static SeatEventHub instance = null;
+
+    private final Gson gson = new Gson();
+    private final ConcurrentHashMap<Integer, ShowtimePublisher> publishers = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService dispatcher;
+    private final ExecutorService writers =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("seat-events-writer-", 0).factory());
+    private final AtomicInteger openStreams = new AtomicInteger();
+    private final ConcurrentHashMap<String, Integer> streamsByClient = new ConcurrentHashMap<>();
+
+    private SeatEventHub() {
+        dispatcher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "seat-events");
+            t.setDaemon(true);
+            return t;
+        });
+        dispatcher.scheduleAtFixedRate(this::heartbeat, HEARTBEAT_SECONDS, HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+        SeatInventory.getInstance().addListener(this::onChange);
+    }
+
+    public static synchronized SeatEventHub getInstance() {
+        if (instance == null) {
+            instance = new SeatEventHub();
+        }
+        return instance;
+    }
+
+    /**
+     * Open a stream of availability events for a showtime.
+     *
+     * @param showtimeId The showtime ID
+     * @param clientKey Who is asking (their remote address), for the per-client limit
+     * @return The emitter to return from the controller, or null if the showtime doesn't exist
+     * @throws IllegalStateException if the client or the hub has too many streams open
+     */
+    public SseEmitter subscribe(int showtimeId, String clientKey) {
+        // Loads the showtime into the inventory, and tells us whether it exists
+        if (SeatInventory.getInstance().getSnapshot(showtimeId) == null) {
+            return null;
+        }
+
+        claimStream(clientKey);
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MILLIS);
+        Watcher watcher = new Watcher(emitter, clientKey);
+        emitter.onCompletion(() -> dispatcher.execute(() -> detach(showtimeId, watcher)));
+        emitter.onTimeout(() -> dispatcher.execute(() -> detach(showtimeId, watcher)));
+        emitter.onError(e -> dispatcher.execute(() -> detach(showtimeId, watcher)));
+        dispatcher.execute(() -> attach(showtimeId, watcher));
+        return emitter;
+    }
+
+    private void claimStream(String clientKey) {
+        if (openStreams.incrementAndGet() > MAX_STREAMS) {
+            openStreams.decrementAndGet();
+            throw new IllegalStateException("Too many seat streams open, try again later");
+        }
+        try {
+            streamsByClient.compute(clientKey, (key, count) -> {
+                int open = count == null ? 0 : count;
+                if (open >= MAX_STREAMS_PER_CLIENT) {
+                    throw new IllegalStateException("At most " + MAX_STREAMS_PER_CLIENT + " seat streams can be open at once");
+                }
+                return open + 1;
+            });
+        } catch (IllegalStateException e) {
+            openStreams.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private void releaseStream(Watcher watcher) {
+        if (watcher.released.compareAndSet(false, true)) {
+            openStreams.decrementAndGet();
+            streamsByClient.computeIfPresent(watcher.clientKey, (key, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    // Runs under the showtime's inventory lock: only queue the work
+    private void onChange(SeatChange change) {
+        if (!publishers.containsKey(change.getShowtimeId())) return;
+        dispatcher.execute(() -> {
+            ShowtimePublisher publisher = publishers.get(change.getShowtimeId());
+            if (publisher != null) {
+                publisher.publish(change);
+            }
+        });
+    }
+
+    private void attach(int showtimeId, Watcher watcher) {
+        // Register before taking the snapshot so onChange() queues every change from here on
+        // behind us on the dispatcher thread; Watcher.send() drops the ones the snapshot has
+        ShowtimePublisher publisher = publishers.computeIfAbsent(showtimeId, id -> new ShowtimePublisher());
+        SeatChange snapshot = SeatInventory.getInstance().getSnapshot(showtimeId);
+        if (snapshot != null && watcher.send(snapshot.getVersion(), toEvent(snapshot))) {
+            publisher.watchers.add(watcher);
+            return;
+        }
+        if (snapshot == null) watcher.close();
+        if (publisher.watchers.isEmpty()) {
+            publishers.remove(showtimeId);
+        }
+    }
+
+    private void detach(int showtimeId, Watcher watcher) {
+        watcher.closed = true;
+        releaseStream(watcher);
+        ShowtimePublisher publisher = publishers.get(showtimeId);
+        if (publisher == null) return;
+        publisher.watchers.remove(watcher);
+        if (publisher.watchers.isEmpty()) {
+            publishers.remove(showtimeId);
+        }
+    }
+
+    private void heartbeat() {
+        Set<ResponseBodyEmitter.DataWithMediaType> ping = SseEmitter.event().comment("ping").build();
+        for (var entry : List.copyOf(publishers.entrySet())) {
+            ShowtimePublisher publisher = entry.getValue();
+            publisher.watchers.removeIf(watcher -> !watcher.offer(ping));
+            if (publisher.watchers.isEmpty()) {
+                publishers.remove(entry.getKey());
+            }
+        }
+    }
+
+    private Set<ResponseBodyEmitter.DataWithMediaType> toEvent(SeatChange change) {
+        return SseEmitter.event()
+                .name(change.getType())
+                .id(String.valueOf(change.getVersion()))
+                .data(gson.toJson(change), MediaType.APPLICATION_JSON)
+                .build();
+    }
+
+    /**
+     * The watchers of one showtime. Only touched on the dispatcher thread.
+     */
+    private class ShowtimePublisher {
+        private final List<Watcher> watchers = new ArrayList<>();
+
+        void publish(SeatChange change) {
+            if (watchers.isEmpty()) return;
+            Set<ResponseBodyEmitter.DataWithMediaType> event = toEvent(change); // serialized once
+            watchers.removeIf(watcher -> !watcher.send(change.getVersion(), event));
+        }
+    }
+
+    /**
+     * One open stream, the newest version it has been sent, and the events waiting to be
+     * written to it. version is only touched on the dispatcher thread; the queue is guarded by
+     * the watcher's lock, and at most one writer drains it at a time.
+     */
+    private class Watcher {
+        private final SseEmitter emitter;
+        private final String clientKey;
+        private final ArrayDeque<Set<ResponseBodyEmitter.DataWithMediaType>> queue = new ArrayDeque<>();
+        private final AtomicBoolean released = new AtomicBoolean(false);
+        private volatile boolean closed = false;
+        private boolean draining = false;
+        private long version = -1;
+
+        Watcher(SseEmitter emitter, String clientKey) {
+            this.emitter = emitter;
+            this.clientKey = clientKey;
+        }
+
+        /**
+         * Send an event unless the watcher has already seen a newer one (a change queued before
+         * the watcher's snapshot was taken). Returns false if the stream is dead or too slow.
+         */
+        boolean send(long eventVersion, Set<ResponseBodyEmitter.DataWithMediaType> event) {
+            if (eventVersion <= version) return true;
+            version = eventVersion;
+            return offer(event);
+        }
+
+        boolean offer(Set<ResponseBodyEmitter.DataWithMediaType> event) {
+            if (closed) return false;
+            synchronized (this) {
+                if (queue.size() >= MAX_QUEUED_EVENTS) {
+                    System.err.println("Dropping seat stream that is " + queue.size() + " events behind");
+                    close();
+                    return false;
+                }
+                queue.addLast(event);
+                if (draining) return true;
+                draining = true;
+            }
+            writers.execute(this::drain);
+            return true;
+        }
+
+        // Completing waits for a write in progress, so it is done off the dispatcher thread
+        void close() {
+            closed = true;
+            synchronized (this) {
+                queue.clear();
+            }
+            writers.execute(emitter::complete);
+        }
+
+        private void drain() {
+            while (true) {
+                Set<ResponseBodyEmitter.DataWithMediaType> event;
+                synchronized (this) {
+                    event = queue.pollFirst();
+                    if (event == null || closed) {
+                        draining = false;
+                        return;
+                    }
+                }
+                try {
+                    emitter.send(event);
+                } catch (IOException | IllegalStateException e) {
+                    // Client went away; the emitter's own callbacks finish the cleanup
+                    closed = true;
+                    synchronized (this) {
+                        queue.clear();
+                        draining = false;
+                    }
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package backend;
+
+import java.util.List;
+
+/**
+ * A temporary claim on a set of seats for one showtime, held between seat selection and payment.
+ * If the hold could not be placed, holdId is null and conflicts lists the unavailable seats.
+ */
+public class SeatHold {
+    private final String holdId;
+    private final int showtimeId;
+    private final String owner;
+    private final List<String> seatIds;
+    private final long expiresAt;
+    private final List<String> conflicts;
+
+    public SeatHold(String holdId, int showtimeId, String owner, List<String> seatIds, long expiresAt) {
+        this.holdId = holdId;
+        this.showtimeId = showtimeId;
+        this.owner = owner;
+        this.seatIds = List.copyOf(seatIds);
+        this.expiresAt = expiresAt;
+        this.conflicts = List.of();
+    }
+
+    private SeatHold(int showtimeId, List<String> conflicts) {
+        this.holdId = null;
+        this.showtimeId = showtimeId;
+        this.owner = null;
+        this.seatIds = List.of();
+        this.expiresAt = 0;
+        this.conflicts = List.copyOf(conflicts);
+    }
+
+    public static SeatHold rejected(int showtimeId, List<String> conflicts) {
+        return new SeatHold(showtimeId, conflicts);
+    }
+
+    public boolean isPlaced() {return holdId != null;}
+    public boolean isExpired() {return System.currentTimeMillis() >= expiresAt;}
+
+    public String getHoldId() {return holdId;}
+    public int getShowtimeId() {return showtimeId;}
+    public String getOwner() {return owner;}
+    public List<String> getSeatIds() {return seatIds;}
+    public long getExpiresAt() {return expiresAt;}
+    public List<String> getConflicts() {return conflicts;}
+
+    @Override
+    public String toString() {
+        return "SeatHold{" +
+                "holdId='" + holdId + '\'' +
+                ", showtimeId=" + showtimeId +
+                ", seatIds=" + seatIds +
+                ", expiresAt=" + expiresAt +
+                '}';
+    }
+}
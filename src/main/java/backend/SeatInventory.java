@@ -0,0 +1,741 @@
+package backend;
+
+import java.sql.*;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * In-memory seat inventory: one bitmap of booked seats per showtime_id.
+ *
+ * Each showtime is loaded lazily from Tickets the first time it is asked for, laid out on its
+ * showroom's ShowroomLayout from the ShowroomRegistry (bit index = row * cols + (seatNumber - 1)).
+ * BookingDBFunctions writes through to it after a booking commits, so availability checks and
+ * the bookedSeats list are served from memory without a DB round trip.
+ *
+ * Seats can also be held for a few minutes between seat selection and payment. Holds are
+ * claimed atomically under the showtime's lock, show up as unavailable to everyone, expire on
+ * a timer wheel, and are converted into Tickets by createBooking.
+ *
+ * Every change in availability gets a new version and is published to listeners as a
+ * SeatChange, from inside the showtime's lock, so listeners see each showtime's changes in
+ * version order and a getSnapshot() never falls between two of them. The last few changes of
+ * each showtime are kept so clients can catch up from a version with getChangesSince().
+ *
+ * Seat IDs are a row letter plus a 1-based seat number ("A1", "C12"); the legacy "Ax5" form
+ * found in older seed data is accepted too. IDs that don't fit the grid are kept as strings.
+ */
+public class SeatInventory {
+    public static final int MAX_SEATS_PER_HOLD = 10;
+    public static final int MAX_HOLDS_PER_OWNER = 3;
+
+    private static SeatInventory instance = null;
+
+    private final ConcurrentHashMap<Integer, ShowtimeSeats> showtimes = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, SeatHold> holds = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Integer> holdCounts = new ConcurrentHashMap<>();
+    // Showtimes being loaded, with seats booked while their Tickets query was running
+    private final ConcurrentHashMap<Integer, PendingLoad> pendingLoads = new ConcurrentHashMap<>();
+    private final HoldExpiryWheel expiryWheel = new HoldExpiryWheel(1000, 512);
+    private final CopyOnWriteArrayList<Consumer<SeatChange>> listeners = new CopyOnWriteArrayList<>();
+    // Shared by every showtime so a showtime's versions keep increasing across reloads
+    private final AtomicLong versions = new AtomicLong();
+
+    private SeatInventory() { }
+
+    public static synchronized SeatInventory getInstance() {
+        if (instance == null) {
+            instance = new SeatInventory();
+        }
+        return instance;
+    }
+
+    /**
+     * Get the unavailable (booked or held) seat IDs for a showtime.
+     *
+     * @param showtimeId The showtime ID
+     * @return List of unavailable seat IDs, or null if the showtime could not be loaded
+     */
+    public List<String> getBookedSeats(int showtimeId) {
+        ShowtimeSeats seats = getOrLoad(showtimeId);
+        return seats == null ? null : seats.bookedSeats();
+    }
+
+    /**
+     * Get the current unavailable seats of a showtime together with their version.
+     *
+     * @param showtimeId The showtime ID
+     * @return A snapshot SeatChange, or null if the showtime could not be loaded
+     */
+    public SeatChange getSnapshot(int showtimeId) {
+        ShowtimeSeats seats = getOrLoad(showtimeId);
+        return seats == null ? null : seats.snapshot();
+    }
+
+    /**
+     * Get the unavailable seats of a showtime as a bitmap.
+     *
+     * @param showtimeId The showtime ID
+     * @return The bitmap, or null if the showtime could not be loaded
+     */
+    public SeatBitmap getBitmap(int showtimeId) {
+        ShowtimeSeats seats = getOrLoad(showtimeId);
+        return seats == null ? null : seats.bitmap();
+    }
+
+    /**
+     * Get the showroom layout a showtime's seats are laid out on.
+     *
+     * @return The layout, or null if the showtime could not be loaded
+     */
+    public ShowroomLayout getLayout(int showtimeId) {
+        ShowtimeSeats seats = getOrLoad(showtimeId);
+        return seats == null ? null : seats.getLayout();
+    }
+
+    /**
+     * Get the net change in availability since a version a client already has.
+     *
+     * @param showtimeId The showtime ID
+     * @param since A version previously returned for this showtime
+     * @return A delta to the current version (empty if nothing changed), or null if the
+     *         showtime could not be loaded or the version is too old to catch up from
+     */
+    public SeatChange getChangesSince(int showtimeId, long since) {
+        ShowtimeSeats seats = getOrLoad(showtimeId);
+        return seats == null ? null : seats.changesSince(since);
+    }
+
+    /**
+     * Register a listener for availability changes. Listeners run while the showtime is locked,
+     * so they must only hand the change off (e.g. queue it), never block or call back in.
+     */
+    public void addListener(Consumer<SeatChange> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<SeatChange> listener) {
+        listeners.remove(listener);
+    }
+
+    private void publish(SeatChange change) {
+        for (Consumer<SeatChange> listener : listeners) {
+            try {
+                listener.accept(change);
+            } catch (Exception e) {
+                System.err.println("Error publishing seat change: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Check which of the requested seats are already booked or held for a showtime.
+     *
+     * @param showtimeId The showtime ID
+     * @param seatIds Seat IDs to check
+     * @return The subset of seatIds that is unavailable, or null if the showtime could not be loaded
+     */
+    public List<String> findBooked(int showtimeId, Collection<String> seatIds) {
+        return findUnavailable(showtimeId, seatIds, null);
+    }
+
+    /**
+     * Same as findBooked, but seats held by the given hold count as available.
+     */
+    public List<String> findUnavailable(int showtimeId, Collection<String> seatIds, String holdId) {
+        return findUnavailable(showtimeId, seatIds, holdId, null);
+    }
+
+    /**
+     * Same as findUnavailable, loading the showtime on the caller's connection if it isn't
+     * loaded yet (null to borrow one).
+     */
+    public List<String> findUnavailable(int showtimeId, Collection<String> seatIds, String holdId, Connection conn) {
+        ShowtimeSeats seats = getOrLoad(showtimeId, conn);
+        return seats == null ? null : seats.findUnavailable(seatIds, holdId);
+    }
+
+    /**
+     * Record seats as booked once the booking transaction has committed.
+     * Showtimes that aren't loaded yet are skipped; they'll read the new Tickets rows on load.
+     * A load already in progress may have read Tickets too early, so it is told as well.
+     */
+    public void markBooked(int showtimeId, Collection<String> seatIds) {
+        pendingLoads.computeIfPresent(showtimeId, (id, load) -> {
+            load.booked.addAll(seatIds);
+            return load;
+        });
+        showtimes.computeIfPresent(showtimeId, (id, seats) -> {
+            seats.mark(seatIds);
+            return seats;
+        });
+    }
+
+    /**
+     * Atomically claim a set of seats for a showtime. Either every seat is held or none is.
+     *
+     * @param showtimeId The showtime ID
+     * @param seatIds Seats to hold
+     * @param owner Who the hold belongs to (checked when the hold is converted into a booking)
+     * @param ttlMillis How long the hold lasts before it expires
+     * @return The placed hold, a rejected hold listing the conflicting seats, or null if the
+     *         showtime could not be loaded
+     * @throws IllegalArgumentException if more than MAX_SEATS_PER_HOLD seats are asked for
+     * @throws IllegalStateException if the owner already has MAX_HOLDS_PER_OWNER active holds
+     */
+    public SeatHold placeHold(int showtimeId, List<String> seatIds, String owner, long ttlMillis) {
+        checkHoldSize(seatIds.size());
+        seatIds = canonicalSeatIds(seatIds); // compared with the booking's seats in createBooking
+        ShowtimeSeats seats = getOrLoad(showtimeId);
+        if (seats == null) return null;
+
+        claimHoldSlot(owner);
+        String holdId = UUID.randomUUID().toString();
+        List<String> conflicts = seats.tryHold(holdId, seatIds);
+        if (!conflicts.isEmpty()) {
+            releaseHoldSlot(owner);
+            return SeatHold.rejected(showtimeId, conflicts);
+        }
+        return registerHold(holdId, showtimeId, owner, seatIds, ttlMillis);
+    }
+
+    /**
+     * Find the best block of adjacent free seats in one row (see ShowtimeSeats.findBestBlock).
+     *
+     * @param showtimeId The showtime ID
+     * @param partySize Number of seats wanted
+     * @return The seat IDs, an empty list if no row has a free block that long, or null if
+     *         the showtime could not be loaded
+     */
+    public List<String> findBestSeats(int showtimeId, int partySize) {
+        ShowtimeSeats seats = getOrLoad(showtimeId);
+        if (seats == null) return null;
+        List<String> block = seats.findBestBlock(partySize);
+        return block == null ? List.of() : block;
+    }
+
+    /**
+     * Find the best block of adjacent free seats and hold it, as one step under the showtime's
+     * lock, so nobody can take the seats between finding and holding them.
+     *
+     * @return The placed hold, a rejected hold (no conflicts listed) if no block is free, or
+     *         null if the showtime could not be loaded
+     * @throws IllegalArgumentException if partySize is more than MAX_SEATS_PER_HOLD
+     * @throws IllegalStateException if the owner already has MAX_HOLDS_PER_OWNER active holds
+     */
+    public SeatHold holdBestSeats(int showtimeId, int partySize, String owner, long ttlMillis) {
+        checkHoldSize(partySize);
+        ShowtimeSeats seats = getOrLoad(showtimeId);
+        if (seats == null) return null;
+
+        claimHoldSlot(owner);
+        String holdId = UUID.randomUUID().toString();
+        List<String> block;
+        synchronized (seats) {
+            block = seats.findBestBlock(partySize);
+            if (block == null || !seats.tryHold(holdId, block).isEmpty()) {
+                releaseHoldSlot(owner);
+                return SeatHold.rejected(showtimeId, List.of());
+            }
+        }
+        return registerHold(holdId, showtimeId, owner, block, ttlMillis);
+    }
+
+    private static void checkHoldSize(int seatCount) {
+        if (seatCount > MAX_SEATS_PER_HOLD) {
+            throw new IllegalArgumentException("At most " + MAX_SEATS_PER_HOLD + " seats can be held at once");
+        }
+    }
+
+    // Count a new hold against its owner, refusing once they have MAX_HOLDS_PER_OWNER
+    private void claimHoldSlot(String owner) {
+        holdCounts.compute(owner, (o, count) -> {
+            int held = count == null ? 0 : count;
+            if (held >= MAX_HOLDS_PER_OWNER) {
+                throw new IllegalStateException("At most " + MAX_HOLDS_PER_OWNER + " seat holds can be active at once");
+            }
+            return held + 1;
+        });
+    }
+
+    private void releaseHoldSlot(String owner) {
+        holdCounts.computeIfPresent(owner, (o, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private SeatHold registerHold(String holdId, int showtimeId, String owner, List<String> seatIds, long ttlMillis) {
+        SeatHold hold = new SeatHold(holdId, showtimeId, owner, seatIds, System.currentTimeMillis() + ttlMillis);
+        holds.put(holdId, hold);
+        expiryWheel.schedule(ttlMillis, () -> expireHold(holdId));
+        System.out.println("Placed " + hold);
+        return hold;
+    }
+
+    // Expiry wheel callback: release the hold only once its expiresAt has really passed
+    private void expireHold(String holdId) {
+        SeatHold hold = holds.get(holdId);
+        if (hold == null) return;
+        long remaining = hold.getExpiresAt() - System.currentTimeMillis();
+        if (remaining > 0) {
+            expiryWheel.schedule(remaining, () -> expireHold(holdId));
+            return;
+        }
+        releaseHold(holdId);
+    }
+
+    /**
+     * Look up an active hold.
+     *
+     * @return The hold, or null if it doesn't exist or has expired
+     */
+    public SeatHold getHold(String holdId) {
+        if (holdId == null) return null;
+        SeatHold hold = holds.get(holdId);
+        return hold == null || hold.isExpired() ? null : hold;
+    }
+
+    /**
+     * Release a hold's seats back to the pool. Safe to call for holds that are already gone.
+     *
+     * @return true if the hold was active
+     */
+    public boolean releaseHold(String holdId) {
+        SeatHold hold = holds.remove(holdId);
+        if (hold == null) return false;
+        releaseHoldSlot(hold.getOwner());
+        showtimes.computeIfPresent(hold.getShowtimeId(), (id, seats) -> {
+            seats.release(holdId, hold.getSeatIds());
+            return seats;
+        });
+        return true;
+    }
+
+    /**
+     * Drop a showtime so it's re-read from Tickets on next access (e.g. after tickets are deleted).
+     */
+    public void invalidate(int showtimeId) {
+        showtimes.remove(showtimeId);
+    }
+
+    public void invalidateAll() {
+        showtimes.clear();
+    }
+
+    private ShowtimeSeats getOrLoad(int showtimeId) {
+        return getOrLoad(showtimeId, null);
+    }
+
+    private ShowtimeSeats getOrLoad(int showtimeId, Connection conn) {
+        ShowtimeSeats seats = showtimes.get(showtimeId);
+        if (seats != null) return seats;
+
+        // Load outside the map so the query doesn't run under the map's lock. markBooked() and
+        // releaseHold() calls that land mid-load miss the map, so once the loaded seats are in
+        // it they are caught up: seats booked meanwhile come from pendingLoads, and holds
+        // released meanwhile are gone from holds. Publishing starts only after that.
+        pendingLoads.compute(showtimeId, (id, load) -> {
+            if (load == null) load = new PendingLoad();
+            load.loaders++;
+            return load;
+        });
+        ShowtimeSeats loaded = null;
+        ShowtimeSeats existing = null;
+        List<String> bookedMeanwhile = new ArrayList<>();
+        try {
+            loaded = load(showtimeId, conn);
+            if (loaded != null) {
+                existing = showtimes.putIfAbsent(showtimeId, loaded);
+            }
+        } finally {
+            pendingLoads.computeIfPresent(showtimeId, (id, load) -> {
+                bookedMeanwhile.addAll(load.booked);
+                return --load.loaders == 0 ? null : load;
+            });
+        }
+        if (loaded == null) return null;
+        if (existing != null) return existing;
+
+        if (!bookedMeanwhile.isEmpty()) {
+            loaded.mark(bookedMeanwhile);
+        }
+        loaded.releaseInactiveHolds(holds.keySet());
+        // Start publishing only now, so watchers get one snapshot instead of the replay
+        loaded.publishTo(versions, this::publish);
+        return loaded;
+    }
+
+    // Reads the showtime on callerConn if given, otherwise on a borrowed connection
+    private ShowtimeSeats load(int showtimeId, Connection callerConn) {
+        Connection conn = callerConn;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+
+        try {
+            if (conn == null) {
+                conn = DatabaseConnectSingleton.getInstance().getConn();
+            }
+            if (conn == null) {
+                System.err.println("Error loading seat inventory: no database connection");
+                return null;
+            }
+
+            ShowroomLayout layout = ShowroomRegistry.getInstance()
+                    .get(ShowtimeKeyCache.showroomFor(showtimeId, conn), conn);
+            if (layout == null) {
+                return null;
+            }
+            ShowtimeSeats seats = new ShowtimeSeats(showtimeId, layout);
+
+            pstmt = conn.prepareStatement("SELECT seat_id FROM Tickets WHERE showtime_id = ?");
+            pstmt.setInt(1, showtimeId);
+            rs = pstmt.executeQuery();
+            List<String> booked = new ArrayList<>();
+            while (rs.next()) {
+                booked.add(rs.getString("seat_id"));
+            }
+            seats.mark(booked);
+
+            // Re-apply holds that are still active (the showtime may have been invalidated)
+            for (SeatHold hold : holds.values()) {
+                if (hold.getShowtimeId() == showtimeId) {
+                    seats.tryHold(hold.getHoldId(), hold.getSeatIds());
+                }
+            }
+            System.out.println("Loaded seat inventory for showtime #" + showtimeId + ": " + booked.size() + " booked");
+            return seats;
+
+        } catch (SQLException e) {
+            System.err.println("Error loading seat inventory: " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        } finally {
+            try {
+                if (rs != null) rs.close();
+                if (pstmt != null) pstmt.close();
+                if (conn != null && callerConn == null) conn.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Convert a seat ID to its bit index in a rows x cols grid.
+     *
+     * @return The index, or -1 if the seat ID doesn't parse or falls outside the grid
+     */
+    static int seatIndex(String seatId, int rows, int cols) {
+        if (seatId == null || seatId.length() < 2) return -1;
+        char rowChar = Character.toUpperCase(seatId.charAt(0));
+        if (rowChar < 'A' || rowChar > 'Z') return -1;
+        int pos = 1;
+        if (pos < seatId.length() && (seatId.charAt(pos) == 'x' || seatId.charAt(pos) == 'X')) {
+            pos++;
+        }
+        int seatNumber;
+        try {
+            seatNumber = Integer.parseInt(seatId.substring(pos));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+        int row = rowChar - 'A';
+        if (row >= rows || seatNumber < 1 || seatNumber > cols) return -1;
+        return row * cols + (seatNumber - 1);
+    }
+
+    /**
+     * The form a seat ID is stored in Tickets: "A5" for "A5", "Ax5", "a5" or "A05". IDs that
+     * aren't a row letter and a seat number are returned unchanged.
+     */
+    static String canonicalSeatId(String seatId) {
+        if (seatId == null || seatId.length() < 2) return seatId;
+        char rowChar = Character.toUpperCase(seatId.charAt(0));
+        if (rowChar < 'A' || rowChar > 'Z') return seatId;
+        int pos = 1;
+        if (seatId.charAt(pos) == 'x' || seatId.charAt(pos) == 'X') {
+            pos++;
+        }
+        if (pos == seatId.length() || seatId.length() - pos > 9) return seatId;
+        for (int i = pos; i < seatId.length(); i++) {
+            char c = seatId.charAt(i);
+            if (c < '0' || c > '9') return seatId;
+        }
+        return rowChar + String.valueOf(Integer.parseInt(seatId.substring(pos)));
+    }
+
+    static List<String> canonicalSeatIds(Collection<String> seatIds) {
+        List<String> canonical = new ArrayList<>(seatIds.size());
+        for (String seatId : seatIds) {
+            canonical.add(canonicalSeatId(seatId));
+        }
+        return canonical;
+    }
+
+    private static class PendingLoad {
+        int loaders;
+        final Set<String> booked = new LinkedHashSet<>();
+    }
+
+    /**
+     * Booked and held seat bitmaps for a single showtime. All access goes through the instance
+     * lock, so each showtime is locked independently of every other.
+     */
+    static class ShowtimeSeats {
+        // Recent changes kept for getChangesSince(); older clients get a full map instead
+        private static final int CHANGE_LOG_SIZE = 256;
+        // Best-seat scoring: the ideal row as a fraction of the way back from the screen
+        private static final double IDEAL_ROW_FRACTION = 0.6;
+
+        private final int showtimeId;
+        private final ShowroomLayout layout;
+        private final BitSet booked;
+        private final BitSet held;
+        private final Map<Integer, String> heldBy = new HashMap<>();
+        // Seat IDs that don't map onto the grid, reported as-is
+        private final Set<String> unmapped = new LinkedHashSet<>();
+        private long version = 0;
+        private final ArrayDeque<SeatChange> changeLog = new ArrayDeque<>();
+        // Oldest version the log can bring a client forward from
+        private long logFloor = 0;
+        private AtomicLong versions = null;
+        private Consumer<SeatChange> sink = null;
+
+        ShowtimeSeats(int showtimeId, ShowroomLayout layout) {
+            this.showtimeId = showtimeId;
+            this.layout = layout;
+            this.booked = new BitSet(layout.size());
+            this.held = new BitSet(layout.size());
+        }
+
+        synchronized void mark(Collection<String> seatIds) {
+            List<String> taken = new ArrayList<>();
+            for (String seatId : seatIds) {
+                int index = layout.indexOf(seatId);
+                if (index >= 0) {
+                    if (!booked.get(index) && !held.get(index)) {
+                        taken.add(layout.seatId(index));
+                    }
+                    booked.set(index);
+                    held.clear(index);
+                    heldBy.remove(index);
+                } else if (seatId != null && unmapped.add(seatId)) {
+                    taken.add(seatId);
+                }
+            }
+            changed(taken, List.of());
+        }
+
+        synchronized List<String> findUnavailable(Collection<String> seatIds, String holdId) {
+            List<String> unavailable = new ArrayList<>();
+            for (String seatId : seatIds) {
+                int index = layout.indexOf(seatId);
+                boolean taken = index >= 0
+                        ? booked.get(index) || (held.get(index) && !heldBy.get(index).equals(holdId))
+                        : unmapped.contains(seatId);
+                if (taken) {
+                    unavailable.add(seatId);
+                }
+            }
+            return unavailable;
+        }
+
+        /**
+         * Hold every seat or none. Returns the seats that couldn't be held.
+         */
+        synchronized List<String> tryHold(String holdId, Collection<String> seatIds) {
+            List<String> conflicts = new ArrayList<>();
+            for (String seatId : seatIds) {
+                int index = layout.indexOf(seatId);
+                if (index < 0 || booked.get(index) || held.get(index)) {
+                    conflicts.add(seatId);
+                }
+            }
+            if (conflicts.isEmpty()) {
+                List<String> taken = new ArrayList<>();
+                for (String seatId : seatIds) {
+                    int index = layout.indexOf(seatId);
+                    if (!held.get(index)) {
+                        taken.add(layout.seatId(index));
+                    }
+                    held.set(index);
+                    heldBy.put(index, holdId);
+                }
+                changed(taken, List.of());
+            }
+            return conflicts;
+        }
+
+        synchronized void release(String holdId, Collection<String> seatIds) {
+            List<String> released = new ArrayList<>();
+            for (String seatId : seatIds) {
+                int index = layout.indexOf(seatId);
+                if (index >= 0 && holdId.equals(heldBy.get(index))) {
+                    held.clear(index);
+                    heldBy.remove(index);
+                    released.add(layout.seatId(index));
+                }
+            }
+            changed(List.of(), released);
+        }
+
+        synchronized void releaseInactiveHolds(Set<String> activeHoldIds) {
+            List<String> released = new ArrayList<>();
+            heldBy.entrySet().removeIf(entry -> {
+                if (activeHoldIds.contains(entry.getValue())) return false;
+                held.clear(entry.getKey());
+                released.add(layout.seatId(entry.getKey()));
+                return true;
+            });
+            changed(List.of(), released);
+        }
+
+        synchronized List<String> bookedSeats() {
+            BitSet unavailable = (BitSet) booked.clone();
+            unavailable.or(held);
+            List<String> seats = new ArrayList<>(unavailable.cardinality() + unmapped.size());
+            for (int i = unavailable.nextSetBit(0); i >= 0; i = unavailable.nextSetBit(i + 1)) {
+                seats.add(layout.seatId(i));
+            }
+            seats.addAll(unmapped);
+            return seats;
+        }
+
+        synchronized SeatChange snapshot() {
+            return SeatChange.snapshot(showtimeId, version, bookedSeats());
+        }
+
+        /**
+         * Start versioning and publishing changes, beginning with a snapshot of the current state.
+         */
+        synchronized void publishTo(AtomicLong versions, Consumer<SeatChange> sink) {
+            this.versions = versions;
+            this.sink = sink;
+            version = versions.incrementAndGet();
+            logFloor = version;
+            sink.accept(snapshot());
+        }
+
+        // Called with the lock held, after every mutation
+        private void changed(List<String> taken, List<String> released) {
+            if (sink == null || (taken.isEmpty() && released.isEmpty())) return;
+            version = versions.incrementAndGet();
+            SeatChange change = SeatChange.delta(showtimeId, version, taken, released);
+            changeLog.addLast(change);
+            if (changeLog.size() > CHANGE_LOG_SIZE) {
+                logFloor = changeLog.removeFirst().getVersion();
+            }
+            sink.accept(change);
+        }
+
+        /**
+         * Find the best run of size adjacent free seats within one row.
+         *
+         * Each row's free seats are a long bitmask; ANDing it with itself shifted right 1..size-1
+         * times leaves a bit set at every column where a free run of that length starts. Runs
+         * are scored by how far their middle is from the row's centre and how far the row is from
+         * the ideal viewing row (about 60% of the way back from the screen at row A), both as a
+         * fraction of the room's width/depth; lowest wins.
+         *
+         * @return The seat IDs, or null if no row has such a run
+         */
+        synchronized List<String> findBestBlock(int size) {
+            int rows = layout.getRows();
+            int cols = layout.getCols();
+            if (size < 1 || size > cols) return null;
+
+            BitSet unavailable = (BitSet) booked.clone();
+            unavailable.or(held);
+
+            double centerCol = (cols - 1) / 2.0;
+            double idealRow = (rows - 1) * IDEAL_ROW_FRACTION;
+            double bestScore = Double.MAX_VALUE;
+            int bestStart = -1;
+
+            for (int row = 0; row < rows; row++) {
+                double rowScore = Math.abs(row - idealRow) / rows;
+                if (rowScore >= bestScore) continue; // no run in this row can win
+                for (int col : runStarts(unavailable, row, cols, size)) {
+                    double score = rowScore + Math.abs(col + (size - 1) / 2.0 - centerCol) / cols;
+                    if (score < bestScore) {
+                        bestScore = score;
+                        bestStart = row * cols + col;
+                    }
+                }
+            }
+            if (bestStart < 0) return null;
+
+            List<String> block = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                block.add(layout.seatId(bestStart + i));
+            }
+            return block;
+        }
+
+        // Columns in a row where a run of size free seats starts
+        private static List<Integer> runStarts(BitSet unavailable, int row, int cols, int size) {
+            List<Integer> starts = new ArrayList<>();
+            int base = row * cols;
+            if (cols <= 64) {
+                long[] words = unavailable.get(base, base + cols).toLongArray();
+                long taken = words.length > 0 ? words[0] : 0L;
+                long free = ~taken & (cols == 64 ? -1L : (1L << cols) - 1);
+                long runs = free;
+                for (int i = 1; i < size && runs != 0; i++) {
+                    runs &= free >>> i;
+                }
+                while (runs != 0) {
+                    starts.add(Long.numberOfTrailingZeros(runs));
+                    runs &= runs - 1;
+                }
+            } else {
+                // Rows wider than a long - walk the gaps between taken seats instead
+                int col = 0;
+                while (col + size <= cols) {
+                    int next = unavailable.nextSetBit(base + col);
+                    int gapEnd = next < 0 || next >= base + cols ? cols : next - base;
+                    for (int c = col; c + size <= gapEnd; c++) {
+                        starts.add(c);
+                    }
+                    col = gapEnd + 1;
+                }
+            }
+            return starts;
+        }
+
+        synchronized SeatBitmap bitmap() {
+            BitSet unavailable = (BitSet) booked.clone();
+            unavailable.or(held);
+            return new SeatBitmap(showtimeId, version, layout.getRows(), layout.getCols(), unavailable.toByteArray());
+        }
+
+        synchronized SeatChange changesSince(long since) {
+            if (since < logFloor || since > version) return null;
+
+            // Fold the newer changes into one net delta; the last change to a seat wins
+            Map<String, Boolean> net = new LinkedHashMap<>();
+            for (SeatChange change : changeLog) {
+                if (change.getVersion() <= since) continue;
+                for (String seatId : change.getTaken()) net.put(seatId, true);
+                for (String seatId : change.getReleased()) net.put(seatId, false);
+            }
+            List<String> taken = new ArrayList<>();
+            List<String> released = new ArrayList<>();
+            net.forEach((seatId, isTaken) -> (isTaken ? taken : released).add(seatId));
+            return SeatChange.delta(showtimeId, version, taken, released);
+        }
+
+        ShowroomLayout getLayout() { return layout; }
+    }
+}
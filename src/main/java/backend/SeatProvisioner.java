@@ -0,0 +1,84 @@
+package backend;
+
+import java.sql.*;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Creates the Seats rows for a showroom's whole grid in one multi-row INSERT, so booking
+ * transactions never have to check for or insert seats themselves.
+ *
+ * All showrooms are provisioned at startup (DatabaseConfig); showrooms added afterwards are
+ * provisioned the first time they're booked. Provisioned showrooms are remembered in memory.
+ *
+ * Seats.seat_id is the seat label ("A1") and is the table's primary key, so labels shared
+ * between showrooms keep the row of the first showroom that created them (INSERT IGNORE).
+ */
+public class SeatProvisioner {
+    private static final Set<String> provisioned = ConcurrentHashMap.newKeySet();
+
+    private SeatProvisioner() { }
+
+    /**
+     * Make sure every seat of a showroom exists in Seats. A no-op once the showroom is provisioned.
+     *
+     * @param showroomId The showroom ID
+     * @param conn Connection to use (should be in autocommit mode, outside any booking transaction)
+     * @return true if the showroom is provisioned
+     */
+    public static boolean ensureProvisioned(String showroomId, Connection conn) throws SQLException {
+        if (showroomId == null) return false;
+        if (provisioned.contains(showroomId)) return true;
+
+        ShowroomLayout layout = ShowroomRegistry.getInstance().get(showroomId, conn);
+        if (layout == null) return false;
+
+        if (layout.size() > 0) {
+            StringBuilder sql = new StringBuilder("INSERT IGNORE INTO Seats (seat_id, row_label, seat_number, showroom_id) VALUES ");
+            for (int i = 0; i < layout.size(); i++) {
+                sql.append(i == 0 ? "(?, ?, ?, ?)" : ", (?, ?, ?, ?)");
+            }
+            try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+                int p = 1;
+                for (int i = 0; i < layout.size(); i++) {
+                    ps.setString(p++, layout.seatId(i));
+                    ps.setString(p++, String.valueOf((char) ('A' + i / layout.getCols())));
+                    ps.setInt(p++, i % layout.getCols() + 1);
+                    ps.setString(p++, showroomId);
+                }
+                int inserted = ps.executeUpdate();
+                System.out.println("Provisioned showroom " + showroomId + ": " + inserted + " new seats");
+            }
+        }
+
+        provisioned.add(showroomId);
+        return true;
+    }
+
+    /**
+     * Provision every showroom. Errors are logged; unprovisioned showrooms are retried on first booking.
+     */
+    public static void provisionAll() {
+        Connection conn = null;
+        try {
+            conn = DatabaseConnectSingleton.getInstance().getConn();
+            if (conn == null) return;
+
+            for (ShowroomLayout layout : ShowroomRegistry.getInstance().getAll()) {
+                ensureProvisioned(layout.getShowroomId(), conn);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error provisioning seats: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            try { if (conn != null) conn.close(); } catch (SQLException e) { e.printStackTrace(); }
+        }
+    }
+
+    /**
+     * Forget a showroom so it's provisioned again on next use (e.g. after its grid changes).
+     */
+    public static void invalidate(String showroomId) {
+        provisioned.remove(showroomId);
+    }
+}
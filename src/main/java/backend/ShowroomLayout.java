@@ -0,0 +1,112 @@
+package backend;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable layout of one showroom as loaded by ShowroomRegistry.
+ *
+ * Seats are numbered row-major: bit index = row * cols + (seatNumber - 1), the same indexing
+ * SeatInventory uses for its bitmaps. The seat ID for every index, and the index for every
+ * seat ID, are computed once when the layout is built.
+ */
+public class ShowroomLayout {
+    // Row labels are single letters
+    static final int MAX_ROWS = 26;
+
+    private final String showroomId;
+    private final String name;
+    private final int seatCount;
+    private final int rows;
+    private final int cols;
+    private final String theatreId;
+    private final String[] seatIds;
+    private final Map<String, Integer> indexBySeatId;
+
+    public ShowroomLayout(String showroomId, String name, int seatCount, int rows, int cols, String theatreId) {
+        this.showroomId = showroomId;
+        this.name = name;
+        this.seatCount = seatCount;
+        this.rows = Math.min(Math.max(rows, 0), MAX_ROWS);
+        this.cols = Math.max(cols, 0);
+        this.theatreId = theatreId;
+
+        this.seatIds = new String[this.rows * this.cols];
+        this.indexBySeatId = new HashMap<>(seatIds.length * 2);
+        for (int i = 0; i < seatIds.length; i++) {
+            seatIds[i] = String.valueOf((char) ('A' + i / this.cols)) + (i % this.cols + 1);
+            indexBySeatId.put(seatIds[i], i);
+        }
+    }
+
+    public String getShowroomId() {return showroomId;}
+    public String getName() {return name;}
+    public int getSeatCount() {return seatCount;}
+    public int getRows() {return rows;}
+    public int getCols() {return cols;}
+    public String getTheatreId() {return theatreId;}
+
+    /**
+     * Number of seats in the grid (rows x cols).
+     */
+    public int size() {
+        return seatIds.length;
+    }
+
+    /**
+     * Get the bit index of a seat.
+     *
+     * @param seatId A seat ID such as "A1"; the legacy "Ax5" form is accepted too
+     * @return The index, or -1 if the seat isn't in this showroom
+     */
+    public int indexOf(String seatId) {
+        if (seatId == null) return -1;
+        Integer index = indexBySeatId.get(seatId);
+        if (index != null) return index;
+        // Lower-case or legacy IDs - parse them the slow way
+        return SeatInventory.seatIndex(seatId, rows, cols);
+    }
+
+    /**
+     * Get the seat ID at a bit index (e.g. 0 -> "A1").
+     */
+    public String seatId(int index) {
+        return seatIds[index];
+    }
+
+    /**
+     * Build the Showroom object the seat-map endpoints return, for one showtime.
+     */
+    public Showroom toShowroom(int showtimeId) {
+        int numericId;
+        try {
+            numericId = Integer.parseInt(showroomId);
+        } catch (NumberFormatException e) {
+            numericId = 0;
+        }
+        Showroom showroom = new Showroom(numericId, name, seatCount, rows, cols, theatreId);
+        showroom.setShowtimeId(showtimeId);
+        return showroom;
+    }
+
+    /**
+     * The summary used by the admin showroom list.
+     */
+    public Map<String, Object> toSummary() {
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("showroomId", showroomId);
+        summary.put("name", name);
+        summary.put("seatCount", seatCount);
+        return summary;
+    }
+
+    @Override
+    public String toString() {
+        return "ShowroomLayout{" +
+                "showroomId='" + showroomId + '\'' +
+                ", name='" + name + '\'' +
+                ", rows=" + rows +
+                ", cols=" + cols +
+                '}';
+    }
+}
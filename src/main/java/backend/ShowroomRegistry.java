@@ -0,0 +1,164 @@
+package backend;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory registry of showroom layouts, keyed by showroom_id.
+ *
+ * Showrooms almost never change, so the whole table is loaded once at startup (DatabaseConfig)
+ * and served from memory to the seat-map endpoints, the seat inventory and the admin showroom
+ * list. The map is replaced wholesale on refresh(), which admin code calls after changing a
+ * showroom. A showroom that isn't in the registry yet (added straight to the DB) is loaded on
+ * first lookup.
+ */
+public class ShowroomRegistry {
+    private static ShowroomRegistry instance = null;
+
+    // Insertion-ordered by showroom_id; never modified after publication
+    private volatile Map<String, ShowroomLayout> layouts = null;
+
+    private ShowroomRegistry() { }
+
+    public static synchronized ShowroomRegistry getInstance() {
+        if (instance == null) {
+            instance = new ShowroomRegistry();
+        }
+        return instance;
+    }
+
+    /**
+     * Get a showroom's layout.
+     *
+     * @param showroomId The showroom ID
+     * @return The layout, or null if the showroom doesn't exist or the DB is unreachable
+     */
+    public ShowroomLayout get(String showroomId) {
+        return get(showroomId, null);
+    }
+
+    /**
+     * Same as get(showroomId), for callers that already hold a connection.
+     *
+     * @param conn Connection used if the DB has to be read, or null to borrow one
+     */
+    public ShowroomLayout get(String showroomId, Connection conn) {
+        if (showroomId == null) return null;
+        Map<String, ShowroomLayout> current = layouts;
+        if (current == null) {
+            current = refresh(conn);
+        }
+        ShowroomLayout layout = current.get(showroomId);
+        if (layout == null) {
+            layout = loadOne(showroomId, conn);
+        }
+        return layout;
+    }
+
+    /**
+     * Get every showroom, ordered by showroom_id.
+     */
+    public List<ShowroomLayout> getAll() {
+        Map<String, ShowroomLayout> current = layouts;
+        if (current == null) {
+            current = refresh();
+        }
+        return new ArrayList<>(current.values());
+    }
+
+    /**
+     * Whether the registry has been loaded from the DB.
+     */
+    public boolean isLoaded() {
+        return layouts != null;
+    }
+
+    /**
+     * Reload every showroom from the DB. Call after a showroom is added, changed or removed.
+     * If the DB can't be read the previous layouts are kept.
+     *
+     * @return The current layouts
+     */
+    public Map<String, ShowroomLayout> refresh() {
+        return refresh(null);
+    }
+
+    private synchronized Map<String, ShowroomLayout> refresh(Connection callerConn) {
+        Connection conn = callerConn;
+        try {
+            if (conn == null) {
+                conn = DatabaseConnectSingleton.getInstance().getConn();
+            }
+            if (conn == null) {
+                return layouts != null ? layouts : Collections.emptyMap();
+            }
+
+            Map<String, ShowroomLayout> loaded = new LinkedHashMap<>();
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT * FROM Showrooms ORDER BY showroom_id")) {
+                while (rs.next()) {
+                    ShowroomLayout layout = fromRow(rs);
+                    loaded.put(layout.getShowroomId(), layout);
+                }
+            }
+            layouts = Collections.unmodifiableMap(loaded);
+            System.out.println("Loaded " + loaded.size() + " showrooms into registry");
+
+        } catch (SQLException e) {
+            System.err.println("Error loading showrooms: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            try { if (conn != null && callerConn == null) conn.close(); } catch (SQLException e) { e.printStackTrace(); }
+        }
+        return layouts != null ? layouts : Collections.emptyMap();
+    }
+
+    private synchronized ShowroomLayout loadOne(String showroomId, Connection callerConn) {
+        Map<String, ShowroomLayout> current = layouts;
+        if (current != null && current.containsKey(showroomId)) {
+            return current.get(showroomId);
+        }
+
+        Connection conn = callerConn;
+        try {
+            if (conn == null) {
+                conn = DatabaseConnectSingleton.getInstance().getConn();
+            }
+            if (conn == null) return null;
+
+            try (PreparedStatement ps = conn.prepareStatement("SELECT * FROM Showrooms WHERE showroom_id = ?")) {
+                ps.setString(1, showroomId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next()) return null;
+                    ShowroomLayout layout = fromRow(rs);
+                    // Copy-on-write so readers never see a half-updated map
+                    Map<String, ShowroomLayout> updated = new LinkedHashMap<>();
+                    if (current != null) updated.putAll(current);
+                    updated.put(showroomId, layout);
+                    layouts = Collections.unmodifiableMap(updated);
+                    return layout;
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error loading showroom " + showroomId + ": " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        } finally {
+            try { if (conn != null && callerConn == null) conn.close(); } catch (SQLException e) { e.printStackTrace(); }
+        }
+    }
+
+    private static ShowroomLayout fromRow(ResultSet rs) throws SQLException {
+        return new ShowroomLayout(
+                rs.getString("showroom_id"),
+                rs.getString("name"),
+                rs.getInt("seat_count"),
+                rs.getInt("num_of_rows"),
+                rs.getInt("num_of_cols"),
+                rs.getString("theatre_id"));
+    }
+}
@@ -13,44 +13,15 @@ import java.util.Map;
 public class ShowtimeDBFunctions {
 
     /**
-     * Get all available showrooms.
+     * Get all available showrooms, served from the ShowroomRegistry.
      * 
      * @return List of showroom maps with id, name, and seat_count
      */
     public static List<Map<String, Object>> getAllShowrooms() {
-        DatabaseConnectSingleton dcs = DatabaseConnectSingleton.getInstance();
-        Statement stmt = null;
-        ResultSet rs = null;
         List<Map<String, Object>> showrooms = new ArrayList<>();
-
-        try {
-            stmt = dcs.getConn().createStatement();
-            
-            String sql = "SELECT showroom_id, name, seat_count FROM Showrooms ORDER BY showroom_id";
-            rs = stmt.executeQuery(sql);
-            
-            while (rs.next()) {
-                Map<String, Object> showroom = new HashMap<>();
-                showroom.put("showroomId", rs.getString("showroom_id"));
-                showroom.put("name", rs.getString("name"));
-                showroom.put("seatCount", rs.getInt("seat_count"));
-                
-                showrooms.add(showroom);
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("Error getting showrooms: " + e.getMessage());
-            e.printStackTrace();
-        } finally {
-            try {
-                if (rs != null) rs.close();
-                if (stmt != null) stmt.close();
-                //if (conn != null) conn.close();
-            } catch (SQLException e) {
-                e.printStackTrace();
-            }
+        for (ShowroomLayout layout : ShowroomRegistry.getInstance().getAll()) {
+            showrooms.add(layout.toSummary());
         }
-        
         return showrooms;
     }
 
@@ -63,17 +34,18 @@ public class ShowtimeDBFunctions {
      * @return true if conflict exists, false otherwise
      */
     public static boolean checkConflict(String showroomId, String showtime) {
-        DatabaseConnectSingleton dcs = DatabaseConnectSingleton.getInstance();
+        Connection conn = null;
         PreparedStatement pstmt = null;
         ResultSet rs = null;
         boolean hasConflict = false;
 
         try {
+            conn = DatabaseConnectSingleton.getInstance().getConn();
             
             String sql = "SELECT COUNT(*) as count FROM Showtimes " +
                         "WHERE showroom_id = ? AND showtime = ?";
             
-            pstmt = dcs.getConn().prepareStatement(sql);
+            pstmt = conn.prepareStatement(sql);
             pstmt.setString(1, showroomId);
             pstmt.setString(2, showtime);
             
@@ -95,7 +67,7 @@ public class ShowtimeDBFunctions {
             try {
                 if (rs != null) rs.close();
                 if (pstmt != null) pstmt.close();
-                //if (conn != null) conn.close();
+                if (conn != null) conn.close();
             } catch (SQLException e) {
                 e.printStackTrace();
             }
@@ -113,16 +85,17 @@ public class ShowtimeDBFunctions {
      * @return The generated showtimeId, or -1 if insert failed
      */
     public static int addShowtime(int movieId, String showroomId, String showtime) {
-        DatabaseConnectSingleton dcs = DatabaseConnectSingleton.getInstance();
+        Connection conn = null;
         PreparedStatement pstmt = null;
         ResultSet rs = null;
         int showtimeId = -1;
 
         try {
+            conn = DatabaseConnectSingleton.getInstance().getConn();
             String sql = "INSERT INTO Showtimes (movie_id, showroom_id, showtime) " +
                         "VALUES (?, ?, ?)";
             
-            pstmt = dcs.getConn().prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+            pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
             pstmt.setInt(1, movieId);
             pstmt.setString(2, showroomId);
             pstmt.setString(3, showtime);
@@ -137,6 +110,9 @@ public class ShowtimeDBFunctions {
             }
             
             System.out.println("Showtime added successfully with ID: " + showtimeId);
+            if (showtimeId > 0) {
+                CatalogCache.getInstance().catalogChanged();
+            }
             
         } catch (SQLException e) {
             System.err.println("Error adding showtime: " + e.getMessage());
@@ -145,7 +121,7 @@ public class ShowtimeDBFunctions {
             try {
                 if (rs != null) rs.close();
                 if (pstmt != null) pstmt.close();
-                //if (conn != null) conn.close();
+                if (conn != null) conn.close();
             } catch (SQLException e) {
                 e.printStackTrace();
             }
@@ -161,12 +137,13 @@ public class ShowtimeDBFunctions {
      * @return List of showtime maps with details
      */
     public static List<Map<String, Object>> getShowtimesByMovie(int movieId) {
-        DatabaseConnectSingleton dcs = DatabaseConnectSingleton.getInstance();
+        Connection conn = null;
         PreparedStatement pstmt = null;
         ResultSet rs = null;
         List<Map<String, Object>> showtimes = new ArrayList<>();
 
         try {
+            conn = DatabaseConnectSingleton.getInstance().getConn();
             String sql = "SELECT s.showtime_id, s.movie_id, s.showroom_id, s.showtime, " +
                         "sr.name, sr.seat_count " +
                         "FROM Showtimes s " +
@@ -174,7 +151,7 @@ public class ShowtimeDBFunctions {
                         "WHERE s.movie_id = ? " +
                         "ORDER BY s.showtime";
             
-            pstmt = dcs.getConn().prepareStatement(sql);
+            pstmt = conn.prepareStatement(sql);
             pstmt.setInt(1, movieId);
             
             rs = pstmt.executeQuery();
@@ -198,7 +175,7 @@ public class ShowtimeDBFunctions {
             try {
                 if (rs != null) rs.close();
                 if (pstmt != null) pstmt.close();
-                //if (conn != null) conn.close();
+                if (conn != null) conn.close();
             } catch (SQLException e) {
                 e.printStackTrace();
             }
@@ -0,0 +1,104 @@
+package backend;
+
+import java.sql.*;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU caches for resolving showtimes, so the seat-map routes don't query Showtimes on
+ * every view:
+ *   (movieId, "HH:mm:ss") -> (showtimeId, showroomId), for the legacy movie + time routes
+ *   showtimeId -> showroomId, for showtimeId-native routes and createBooking
+ *
+ * A showtime's movie, time and showroom never change once created, so entries don't go stale;
+ * unknown keys are not cached, so a newly added showtime is found on its first lookup.
+ */
+public class ShowtimeKeyCache {
+    private static final int MAX_ENTRIES = 2048;
+
+    private static final Map<String, ShowtimeKey> byMovieAndTime = lruMap();
+    private static final Map<Integer, String> showroomByShowtime = lruMap();
+
+    private ShowtimeKeyCache() { }
+
+    /** A resolved showtime. */
+    public static class ShowtimeKey {
+        private final int showtimeId;
+        private final String showroomId;
+
+        ShowtimeKey(int showtimeId, String showroomId) {
+            this.showtimeId = showtimeId;
+            this.showroomId = showroomId;
+        }
+
+        public int getShowtimeId() {return showtimeId;}
+        public String getShowroomId() {return showroomId;}
+    }
+
+    /**
+     * Resolve a movie and start time to its showtime.
+     *
+     * @param movieId The movie ID
+     * @param time The showtime (HH:mm:ss)
+     * @param conn Connection used on a cache miss
+     * @return The showtime, or null if there is no such showing
+     */
+    public static ShowtimeKey resolve(String movieId, String time, Connection conn) throws SQLException {
+        String key = movieId + "|" + time;
+        synchronized (byMovieAndTime) {
+            ShowtimeKey cached = byMovieAndTime.get(key);
+            if (cached != null) return cached;
+        }
+
+        String sql = "SELECT showtime_id, showroom_id FROM Showtimes WHERE movie_id = ? AND showtime = CAST(? AS TIME)";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, movieId);
+            ps.setString(2, time);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return null;
+                ShowtimeKey resolved = new ShowtimeKey(rs.getInt("showtime_id"), rs.getString("showroom_id"));
+                synchronized (byMovieAndTime) {
+                    byMovieAndTime.put(key, resolved);
+                }
+                synchronized (showroomByShowtime) {
+                    showroomByShowtime.put(resolved.getShowtimeId(), resolved.getShowroomId());
+                }
+                return resolved;
+            }
+        }
+    }
+
+    /**
+     * Get the showroom a showtime plays in.
+     *
+     * @param conn Connection used on a cache miss
+     * @return The showroom ID, or null if the showtime doesn't exist
+     */
+    public static String showroomFor(int showtimeId, Connection conn) throws SQLException {
+        synchronized (showroomByShowtime) {
+            String cached = showroomByShowtime.get(showtimeId);
+            if (cached != null) return cached;
+        }
+
+        try (PreparedStatement ps = conn.prepareStatement("SELECT showroom_id FROM Showtimes WHERE showtime_id = ?")) {
+            ps.setInt(1, showtimeId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return null;
+                String showroomId = rs.getString("showroom_id");
+                synchronized (showroomByShowtime) {
+                    showroomByShowtime.put(showtimeId, showroomId);
+                }
+                return showroomId;
+            }
+        }
+    }
+
+    private static <K, V> Map<K, V> lruMap() {
+        return new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > MAX_ENTRIES;
+            }
+        };
+    }
+}
@@ -0,0 +1,35 @@
+package backend;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Striped locks keyed by showtime_id.
+ *
+ * createBooking takes the stripe for its showtime around the availability check and the
+ * ticket inserts, so two bookings for the same showtime run one after the other while
+ * bookings for different showtimes (almost always on different stripes) run in parallel.
+ * The locks only cover this JVM; across app nodes the UNIQUE (showtime_id, seat_id) key
+ * on Tickets is the backstop.
+ */
+public class ShowtimeLocks {
+    private static final int STRIPES = 64; // power of two so the index is a mask
+
+    private static final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    static {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    private ShowtimeLocks() { }
+
+    /**
+     * Get the lock guarding bookings for a showtime.
+     */
+    public static ReentrantLock forShowtime(int showtimeId) {
+        // Spread sequential ids so neighbouring showtimes don't share a stripe pattern
+        int h = showtimeId * 0x9E3779B9;
+        return locks[(h ^ (h >>> 16)) & (STRIPES - 1)];
+    }
+}
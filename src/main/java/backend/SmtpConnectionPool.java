@@ -0,0 +1,89 @@
+package backend;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * A fixed number of SMTP connections shared by callers that send synchronously on their own
+ * threads (promotion campaigns send from virtual threads).
+ *
+ * send() waits for a free connection, reconnecting it if the server dropped it or it has
+ * carried maxPerConnection messages, and puts it back afterwards. A connection that fails
+ * mid-send is closed rather than returned. Jakarta Mail's Transport synchronizes internally,
+ * which pins a virtual thread's carrier while it sends; the pool size bounds how many can be
+ * pinned at once.
+ */
+public class SmtpConnectionPool {
+    private final Session session;
+    private final InternetAddress from;
+    private final int maxPerConnection;
+    private final Semaphore permits;
+    private final ConcurrentLinkedQueue<PooledTransport> idle = new ConcurrentLinkedQueue<>();
+
+    private static class PooledTransport {
+        final Transport transport;
+        int sent = 0;
+
+        PooledTransport(Transport transport) {
+            this.transport = transport;
+        }
+    }
+
+    public SmtpConnectionPool(Session session, InternetAddress from, int size, int maxPerConnection) {
+        this.session = session;
+        this.from = from;
+        this.maxPerConnection = Math.max(1, maxPerConnection);
+        this.permits = new Semaphore(Math.max(1, size));
+    }
+
+    /**
+     * Send a mail on one of the pooled connections, waiting for one to be free.
+     *
+     * @throws MessagingException if the mail could not be built or sent
+     */
+    public void send(OutgoingMail mail) throws MessagingException, InterruptedException {
+        MimeMessage msg = mail.toMessage(session, from);
+        permits.acquire();
+        PooledTransport conn = idle.poll();
+        try {
+            if (conn == null || conn.sent >= maxPerConnection || !conn.transport.isConnected()) {
+                close(conn);
+                conn = new PooledTransport(session.getTransport("smtp"));
+                conn.transport.connect();
+            }
+            conn.transport.sendMessage(msg, msg.getAllRecipients());
+            conn.sent++;
+            idle.add(conn);
+            conn = null;
+        } finally {
+            close(conn);
+            permits.release();
+        }
+    }
+
+    /**
+     * Close the idle connections.
+     */
+    public void close() {
+        PooledTransport conn;
+        while ((conn = idle.poll()) != null) {
+            close(conn);
+        }
+    }
+
+    private static void close(PooledTransport conn) {
+        if (conn != null) {
+            try {
+                conn.transport.close();
+            } catch (MessagingException e) {
+                // Connection was already broken
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package backend;
+
+/**
+ * A user who has opted in to promotional emails, as read by UserDBFunctions.forEachSubscribedUser.
+ */
+public class SubscribedUser {
+    private final String userId;
+    private final String email;
+    private final String firstName;
+
+    public SubscribedUser(String userId, String email, String firstName) {
+        this.userId = userId;
+        this.email = email;
+        this.firstName = firstName;
+    }
+
+    public String getUserId() {return userId;}
+    public String getEmail() {return email;}
+    public String getFirstName() {return firstName;}
+
+    @Override
+    public String toString() {
+        return "SubscribedUser{" +
+                "userId='" + userId + '\'' +
+                ", email='" + email + '\'' +
+                '}';
+    }
+}
@@ -66,6 +66,7 @@ public class TestDataCleanup {
         } finally {
             try {
                 if (pstmt != null) pstmt.close();
+                if (conn != null) conn.close();
             } catch (SQLException e) { /* ignore */ }
         }
     }
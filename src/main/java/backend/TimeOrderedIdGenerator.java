@@ -0,0 +1,64 @@
+package backend;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+
+/**
+ * UUIDv7-style ID generator: 48-bit millisecond timestamp, then a 12-bit per-millisecond
+ * counter, then 62 random bits. IDs from one node are strictly increasing, and IDs from
+ * different nodes are ordered by creation time to the millisecond, so new rows land at the
+ * right-hand edge of the primary key index instead of at random pages.
+ *
+ * In compact form the 128 bits are written as 26 Crockford base32 characters, which sort in
+ * the same order as the numbers they encode.
+ */
+public class TimeOrderedIdGenerator implements IdGenerator {
+    private static final char[] BASE32 = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    private final SecureRandom random = new SecureRandom();
+    private final boolean compact;
+    private long lastMillis = -1;
+    private int counter = 0;
+
+    public TimeOrderedIdGenerator(boolean compact) {
+        this.compact = compact;
+    }
+
+    @Override
+    public String newId() {
+        long millis;
+        int seq;
+        synchronized (this) {
+            millis = System.currentTimeMillis();
+            if (millis <= lastMillis) {
+                // Same millisecond (or clock went back): keep counting from the last timestamp
+                millis = lastMillis;
+                if (++counter > 0xFFF) {
+                    millis++;
+                    counter = 0;
+                }
+            } else {
+                counter = 0;
+            }
+            lastMillis = millis;
+            seq = counter;
+        }
+
+        long msb = (millis << 16) | 0x7000L | seq;                                  // version 7
+        long lsb = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L; // IETF variant
+        return compact ? toBase32(msb, lsb) : new UUID(msb, lsb).toString();
+    }
+
+    /**
+     * Encode 128 bits as 26 base32 digits, most significant first (the top 2 bits are padding).
+     */
+    static String toBase32(long msb, long lsb) {
+        char[] out = new char[26];
+        for (int i = 25; i >= 0; i--) {
+            out[i] = BASE32[(int) (lsb & 0x1F)];
+            lsb = (lsb >>> 5) | (msb << 59);
+            msb >>>= 5;
+        }
+        return new String(out);
+    }
+}
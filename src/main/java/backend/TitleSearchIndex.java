@@ -0,0 +1,178 @@
+package backend;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory trigram index over movie titles, used by /api/movies/search instead of
+ * title LIKE '%text%'.
+ *
+ * Titles are normalized (accents stripped, lowercased, punctuation collapsed to single spaces)
+ * and split into overlapping 3-character grams. A query is answered by intersecting the
+ * postings of its own grams, then confirming each candidate actually contains the query, so
+ * results are the same titles LIKE would match (plus punctuation-insensitive ones like
+ * "spider man" for "Spider-Man"). Results are ranked: exact title, title prefix, word prefix,
+ * then any other match; shorter titles first within a rank.
+ *
+ * The index is rebuilt from each catalog snapshot. Titles that haven't changed since the last
+ * snapshot reuse their normalized form and grams, so adding a movie only tokenizes that movie.
+ */
+public class TitleSearchIndex {
+    private static final int GRAM = 3;
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private volatile Index index = new Index(List.of(), new Doc[0], Map.of());
+    // Guarded by this; only touched by update()
+    private Map<Integer, Doc> docsByMovieId = new HashMap<>();
+
+    /** A normalized title and its distinct grams. */
+    private static class Doc {
+        final String title;
+        final String normalized;
+        final Set<String> grams;
+
+        Doc(String title) {
+            this.title = title;
+            this.normalized = normalize(title);
+            this.grams = grams(normalized);
+        }
+    }
+
+    /** Immutable postings for one catalog snapshot; doc ordinals match the movie list. */
+    private static class Index {
+        final List<Movie> movies;
+        final Doc[] docs;
+        final Map<String, int[]> postings;
+
+        Index(List<Movie> movies, Doc[] docs, Map<String, int[]> postings) {
+            this.movies = movies;
+            this.docs = docs;
+            this.postings = postings;
+        }
+    }
+
+    /**
+     * Re-index from a new catalog snapshot (registered as a CatalogCache listener).
+     */
+    public synchronized void update(CatalogSnapshot snapshot) {
+        List<Movie> movies = snapshot.getMovies();
+        Doc[] docs = new Doc[movies.size()];
+        Map<Integer, Doc> nextDocs = new HashMap<>();
+        Map<String, List<Integer>> lists = new HashMap<>();
+        int tokenized = 0;
+
+        for (int i = 0; i < movies.size(); i++) {
+            Movie movie = movies.get(i);
+            Doc doc = docsByMovieId.get(movie.getMovieId());
+            if (doc == null || !Objects.equals(doc.title, movie.getTitle())) {
+                doc = new Doc(movie.getTitle());
+                tokenized++;
+            }
+            docs[i] = doc;
+            nextDocs.put(movie.getMovieId(), doc);
+            for (String gram : doc.grams) {
+                lists.computeIfAbsent(gram, g -> new ArrayList<>()).add(i);
+            }
+        }
+
+        Map<String, int[]> postings = new HashMap<>(lists.size() * 2);
+        for (Map.Entry<String, List<Integer>> entry : lists.entrySet()) {
+            postings.put(entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        index = new Index(movies, docs, postings);
+        docsByMovieId = nextDocs;
+        System.out.println("Title index v" + snapshot.getVersion() + ": " + postings.size()
+                + " grams, " + tokenized + " titles tokenized");
+    }
+
+    /**
+     * Find movies whose title contains the query, best matches first. A blank query returns
+     * every movie in catalog order.
+     */
+    public List<Movie> search(String query) {
+        Index idx = index;
+        String q = normalize(query);
+        if (q.isEmpty()) return idx.movies;
+
+        int[] candidates = candidates(idx, q);
+        List<int[]> hits = new ArrayList<>(); // {ordinal, rank}
+        for (int ordinal : candidates) {
+            String title = idx.docs[ordinal].normalized;
+            if (title.contains(q)) {
+                hits.add(new int[] {ordinal, rank(title, q)});
+            }
+        }
+        hits.sort((a, b) -> {
+            if (a[1] != b[1]) return Integer.compare(b[1], a[1]);
+            int byLength = Integer.compare(idx.docs[a[0]].normalized.length(), idx.docs[b[0]].normalized.length());
+            return byLength != 0 ? byLength : Integer.compare(a[0], b[0]);
+        });
+
+        List<Movie> results = new ArrayList<>(hits.size());
+        for (int[] hit : hits) {
+            results.add(idx.movies.get(hit[0]));
+        }
+        return results;
+    }
+
+    /**
+     * Ordinals of titles containing every gram of the query. Queries shorter than a gram
+     * can't be looked up, so every title is a candidate.
+     */
+    private static int[] candidates(Index idx, String q) {
+        if (q.length() < GRAM) {
+            int[] all = new int[idx.docs.length];
+            for (int i = 0; i < all.length; i++) all[i] = i;
+            return all;
+        }
+
+        List<int[]> lists = new ArrayList<>();
+        for (String gram : grams(q)) {
+            int[] list = idx.postings.get(gram);
+            if (list == null) return new int[0];
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(list -> list.length));
+
+        int[] result = lists.get(0);
+        for (int i = 1; i < lists.size() && result.length > 0; i++) {
+            result = intersect(result, lists.get(i));
+        }
+        return result;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) i++;
+            else if (a[i] > b[j]) j++;
+            else { out[n++] = a[i]; i++; j++; }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static int rank(String title, String q) {
+        if (title.equals(q)) return 3;
+        if (title.startsWith(q)) return 2;
+        if (title.contains(" " + q)) return 1;
+        return 0;
+    }
+
+    static String normalize(String text) {
+        if (text == null) return "";
+        String stripped = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARATORS.matcher(stripped.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    private static Set<String> grams(String normalized) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= normalized.length(); i++) {
+            grams.add(normalized.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+}
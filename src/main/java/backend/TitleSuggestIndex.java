@@ -0,0 +1,94 @@
+package backend;
+
+import java.util.*;
+
+/**
+ * Prefix index for title autocomplete (/api/movies/suggest).
+ *
+ * Two sorted arrays of normalized keys: whole titles, and every later word position in a
+ * title ("dark knight", "knight" for "The Dark Knight"). A lookup binary-searches to the first
+ * key with the prefix and walks forward while keys still match, so it allocates nothing but the
+ * result list. Whole-title matches come before word matches; within each, alphabetical.
+ *
+ * Rebuilt from each catalog snapshot (CatalogCache listener).
+ */
+public class TitleSuggestIndex {
+    private volatile Keys titles = new Keys(new String[0], new Movie[0]);
+    private volatile Keys words = new Keys(new String[0], new Movie[0]);
+
+    /** Sorted keys with the movie each key belongs to. */
+    private static class Keys {
+        final String[] keys;
+        final Movie[] movies;
+
+        Keys(String[] keys, Movie[] movies) {
+            this.keys = keys;
+            this.movies = movies;
+        }
+
+        static Keys of(List<Map.Entry<String, Movie>> entries) {
+            entries.sort(Map.Entry.comparingByKey());
+            String[] keys = new String[entries.size()];
+            Movie[] movies = new Movie[entries.size()];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = entries.get(i).getKey();
+                movies[i] = entries.get(i).getValue();
+            }
+            return new Keys(keys, movies);
+        }
+    }
+
+    /**
+     * Rebuild from a new catalog snapshot.
+     */
+    public void update(CatalogSnapshot snapshot) {
+        List<Map.Entry<String, Movie>> titleEntries = new ArrayList<>();
+        List<Map.Entry<String, Movie>> wordEntries = new ArrayList<>();
+        for (Movie movie : snapshot.getMovies()) {
+            String normalized = TitleSearchIndex.normalize(movie.getTitle());
+            if (normalized.isEmpty()) continue;
+            titleEntries.add(Map.entry(normalized, movie));
+            for (int i = normalized.indexOf(' '); i >= 0; i = normalized.indexOf(' ', i + 1)) {
+                wordEntries.add(Map.entry(normalized.substring(i + 1), movie));
+            }
+        }
+        Keys newTitles = Keys.of(titleEntries);
+        Keys newWords = Keys.of(wordEntries);
+        titles = newTitles;
+        words = newWords;
+    }
+
+    /**
+     * Up to limit movies whose title, or a word in it, starts with the prefix.
+     */
+    public List<Movie> suggest(String prefix, int limit) {
+        String p = TitleSearchIndex.normalize(prefix);
+        if (p.isEmpty() || limit <= 0) return List.of();
+
+        List<Movie> results = new ArrayList<>(limit);
+        collect(titles, p, limit, results);
+        collect(words, p, limit, results);
+        return results;
+    }
+
+    private static void collect(Keys index, String prefix, int limit, List<Movie> results) {
+        int i = Arrays.binarySearch(index.keys, prefix);
+        if (i < 0) i = -i - 1;
+        // On duplicate keys binarySearch may land on any of them; back up to the first
+        while (i > 0 && index.keys[i - 1].compareTo(prefix) >= 0) i--;
+        for (; i < index.keys.length && results.size() < limit; i++) {
+            if (!index.keys[i].startsWith(prefix)) break;
+            if (!containsMovie(results, index.movies[i])) {
+                results.add(index.movies[i]);
+            }
+        }
+    }
+
+    // Results are capped at a handful, so a linear check beats allocating a set
+    private static boolean containsMovie(List<Movie> results, Movie movie) {
+        for (Movie m : results) {
+            if (m == movie) return true;
+        }
+        return false;
+    }
+}
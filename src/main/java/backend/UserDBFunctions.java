@@ -3,13 +3,13 @@ package backend;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
 
 /**
  * Database functions for User, Customer, Admin, Address, and PaymentCard operations.
- * Uses ConnectToDatabase.conn for database connection.
+ * Each method borrows a pooled connection from DatabaseConnectSingleton and returns it when done.
  */
 public class UserDBFunctions {
+    private static final int SUBSCRIBER_PAGE_SIZE = 1000;
     
     /**
      * Create a new user in the Users table and Customers table (with Inactive state).
@@ -20,9 +20,8 @@ public class UserDBFunctions {
      * @return The generated user_id, or null if error
      */
     public static String createUser(String firstName, String lastName, String email, String hashedPassword, boolean marketingOptIn) {
-        //Connection conn = ConnectToDatabase.conn;
-        DatabaseConnectSingleton dcs = DatabaseConnectSingleton.getInstance();
-        String userId = UUID.randomUUID().toString();
+        Connection conn = null;
+        String userId = Ids.newId();
         
         try {
             // Check if email already exists
@@ -30,9 +29,10 @@ public class UserDBFunctions {
                 System.err.println("User with email " + email + " already exists");
                 return null;
             }
+            conn = DatabaseConnectSingleton.getInstance().getConn();
             
             // Insert into Users table
-            PreparedStatement userStmt = dcs.getConn().prepareStatement(
+            PreparedStatement userStmt = conn.prepareStatement(
                 "INSERT INTO Users (user_id, first_name, last_name, email, password, login_status, marketing_opt_in) VALUES (?, ?, ?, ?, ?, ?, ?)"
             );
             userStmt.setString(1, userId);
@@ -46,7 +46,7 @@ public class UserDBFunctions {
             
             // Insert into Customers table with Inactive state
             String customerId = userId; // Same as user_id
-            PreparedStatement customerStmt = dcs.getConn().prepareStatement(
+            PreparedStatement customerStmt = conn.prepareStatement(
                 "INSERT INTO Customers (customer_id, state) VALUES (?, ?)"
             );
             customerStmt.setString(1, customerId);
@@ -59,6 +59,12 @@ public class UserDBFunctions {
             System.err.println("Error creating user: " + e.getMessage());
             e.printStackTrace();
             return null;
+        } finally {
+            try {
+                if (conn != null) conn.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
         }
     }
     
@@ -68,10 +74,11 @@ public class UserDBFunctions {
      * @return User object if found, null otherwise
      */
     public static User findUserByEmail(String email) {
-        DatabaseConnectSingleton dcs = DatabaseConnectSingleton.getInstance();
+        Connection conn = null;
         
         try {
-            PreparedStatement stmt = dcs.getConn().prepareStatement(
+            conn = DatabaseConnectSingleton.getInstance().getConn();
+            PreparedStatement stmt = conn.prepareStatement(
                 "SELECT user_id, first_name, last_name, email, password, login_status, marketing_opt_in FROM Users WHERE email = ?"
             );
             stmt.setString(1, email);
@@ -95,14 +102,21 @@ public class UserDBFunctions {
             System.err.println("Error finding user by email: " + e.getMessage());
             e.printStackTrace();
             return null;
+        } finally {
+            try {
+                if (conn != null) conn.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
         }
     }
 
     public static User findUserByUserID(String userId) {
-        DatabaseConnectSingleton dcs = DatabaseConnectSingleton.getInstance();
+        Connection conn = null;
 
         try {
-            PreparedStatement stmt = dcs.getConn().prepareStatement(
+            conn = DatabaseConnectSingleton.getInstance().getConn();
+            PreparedStatement stmt = conn.prepareStatement(
                     "SELECT user_id, first_name, last_name, email, password, login_status, marketing_opt_in FROM Users WHERE user_id = ?"
             );
             stmt.setString(1, userId);
@@ -126,6 +140,12 @@ public class UserDBFunctions {
             System.err.println("Error finding user by userId: " + e.getMessage());
             e.printStackTrace();
             return null;
+        } finally {
+            try {
+                if (conn != null) conn.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
         }
     }
     
@@ -135,15 +155,16 @@ public class UserDBFunctions {
      * @return true if successful, false otherwise
      */
     public static boolean activateCustomer(String email) {
-        DatabaseConnectSingleton dcs = DatabaseConnectSingleton.getInstance();
+        Connection conn = null;
         
         try {
             // Get user_id from email
             User user = findUserByEmail(email);
             if (user == null) return false;
+            conn = DatabaseConnectSingleton.getInstance().getConn();
             
             // Update Customers table
-            PreparedStatement stmt = dcs.getConn().prepareStatement(
+            PreparedStatement stmt = conn.prepareStatement(
                 "UPDATE Customers SET state = ? WHERE customer_id = ?"
             );
             stmt.setString(1, "Active");
@@ -156,6 +177,12 @@ public class UserDBFunctions {
             System.err.println("Error activating customer: " + e.getMessage());
             e.printStackTrace();
             return false;
+        } finally {
+            try {
+                if (conn != null) conn.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
         }
     }
     
@@ -165,10 +192,11 @@ public class UserDBFunctions {
      * @return true if user is admin, false otherwise
      */
     public static boolean isAdmin(String userId) {
-        DatabaseConnectSingleton dcs = DatabaseConnectSingleton.getInstance();
+        Connection conn = null;
         
         try {
-            PreparedStatement stmt = dcs.getConn().prepareStatement(
+            conn = DatabaseConnectSingleton.getInstance().getConn();
+            PreparedStatement stmt = conn.prepareStatement(
                 "SELECT admin_id FROM Admins WHERE admin_id = ?"
             );
             stmt.setString(1, userId);
@@ -180,6 +208,12 @@ public class UserDBFunctions {
             System.err.println("Error checking if user is admin: " + e.getMessage());
             e.printStackTrace();
             return false;
+        } finally {
+            try {
+                if (conn != null) conn.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
         }
     }
     
@@ -189,10 +223,11 @@ public class UserDBFunctions {
      * @return true if active, false otherwise
      */
     public static boolean isCustomerActive(String userId) {
-        DatabaseConnectSingleton dcs = DatabaseConnectSingleton.getInstance();
+        Connection conn = null;
         
         try {
-            PreparedStatement stmt = dcs.getConn().prepareStatement(
+            conn = DatabaseConnectSingleton.getInstance().getConn();
+            PreparedStatement stmt = conn.prepareStatement(
                 "SELECT state FROM Customers WHERE customer_id = ?"
             );
             stmt.setString(1, userId);
@@ -209,6 +244,12 @@ public class UserDBFunctions {
             System.err.println("Error checking customer status: " + e.getMessage());
             e.printStackTrace();
             return false;
+        } finally {
+            try {
+                if (conn != null) conn.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
         }
     }
     
@@ -219,10 +260,11 @@ public class UserDBFunctions {
      * @return true if successful, false otherwise
      */
     public static boolean updatePassword(String email, String hashedPassword) {
-        DatabaseConnectSingleton dcs = DatabaseConnectSingleton.getInstance();
+        Connection conn = null;
         
         try {
-            PreparedStatement stmt = dcs.getConn().prepareStatement(
+            conn = DatabaseConnectSingleton.getInstance().getConn();
+            PreparedStatement stmt = conn.prepareStatement(
                 "UPDATE Users SET password = ? WHERE email = ?"
             );
             stmt.setString(1, hashedPassword);
@@ -235,6 +277,12 @@ public class UserDBFunctions {
             System.err.println("Error updating password: " + e.getMessage());
             e.printStackTrace();
             return false;
+        } finally {
+            try {
+                if (conn != null) conn.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
         }
     }
     
@@ -246,10 +294,11 @@ public class UserDBFunctions {
      * @return true if successful, false otherwise
      */
     public static boolean updateProfile(String email, String firstName, String lastName, boolean marketingOptIn) {
-        DatabaseConnectSingleton dcs = DatabaseConnectSingleton.getInstance();
+        Connection conn = null;
         
         try {
-            PreparedStatement stmt = dcs.getConn().prepareStatement(
+            conn = DatabaseConnectSingleton.getInstance().getConn();
+            PreparedStatement stmt = conn.prepareStatement(
                 "UPDATE Users SET first_name = ?, last_name = ?, marketing_opt_in = ? WHERE email = ?"
             );
             stmt.setString(1, firstName);
@@ -264,6 +313,12 @@ public class UserDBFunctions {
             System.err.println("Error updating profile: " + e.getMessage());
             e.printStackTrace();
             return false;
+        } finally {
+            try {
+                if (conn != null) conn.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
         }
     }
     
@@ -273,11 +328,12 @@ public class UserDBFunctions {
      * @return Address object if exists, null otherwise
      */
     public static Address getCustomerAddress(String customerId) {
-        DatabaseConnectSingleton dcs = DatabaseConnectSingleton.getInstance();
+        Connection conn = null;
         
         try {
+            conn = DatabaseConnectSingleton.getInstance().getConn();
             // Get the address NOT being used as a billing address
-            PreparedStatement stmt = dcs.getConn().prepareStatement(
+            PreparedStatement stmt = conn.prepareStatement(
                 "SELECT address_id, street, city, state, postal_code, country FROM Addresses " +
                 "WHERE customer_id = ? AND address_id NOT IN " +
                 "(SELECT billing_address_id FROM PaymentCards WHERE customer_id = ? AND billing_address_id IS NOT NULL) " +
@@ -305,6 +361,12 @@ public class UserDBFunctions {
             System.err.println("Error getting customer address: " + e.getMessage());
             e.printStackTrace();
             return null;
+        } finally {
+            try {
+                if (conn != null) conn.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
         }
     }
     
@@ -315,11 +377,12 @@ public class UserDBFunctions {
      */
     public static Address getCustomerAddressByType(String customerId, String addressType) {
         if ("billing".equals(addressType)) {
-            DatabaseConnectSingleton dcs = DatabaseConnectSingleton.getInstance();
+            Connection conn = null;
             
             try {
+                conn = DatabaseConnectSingleton.getInstance().getConn();
                 // First try to get billing address linked to payment card
-                PreparedStatement stmt = dcs.getConn().prepareStatement(
+                PreparedStatement stmt = conn.prepareStatement(
                     "SELECT a.address_id, a.street, a.city, a.state, a.postal_code, a.country " +
                     "FROM Addresses a " +
                     "JOIN PaymentCards pc ON a.address_id = pc.billing_address_id " +
@@ -342,7 +405,7 @@ public class UserDBFunctions {
                 
                 // If no card-linked billing address, look for standalone billing address
                 // (an address that's not the shipping address and not linked to any card)
-                PreparedStatement standaloneStmt = dcs.getConn().prepareStatement(
+                PreparedStatement standaloneStmt = conn.prepareStatement(
                     "SELECT a.address_id, a.street, a.city, a.state, a.postal_code, a.country " +
                     "FROM Addresses a " +
                     "WHERE a.customer_id = ? " +
@@ -375,6 +438,12 @@ public class UserDBFunctions {
                 System.err.println("Error getting billing address: " + e.getMessage());
                 e.printStackTrace();
                 return null;
+            } finally {
+                try {
+                    if (conn != null) conn.close();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
             }
         } else {
             // For shipping or any other type, get the main address
@@ -394,15 +463,16 @@ public class UserDBFunctions {
      */
     public static boolean saveCustomerAddress(String customerId, String street, String city, 
                                               String state, String postalCode, String country) {
-        DatabaseConnectSingleton dcs = DatabaseConnectSingleton.getInstance();
+        Connection conn = null;
         
         try {
             // Check if they have a shipping address (not used as billing)
             Address existing = getCustomerAddress(customerId);
+            conn = DatabaseConnectSingleton.getInstance().getConn();
             
             if (existing != null) {
                 // Update existing shipping address
-                PreparedStatement stmt = dcs.getConn().prepareStatement(
+                PreparedStatement stmt = conn.prepareStatement(
                     "UPDATE Addresses SET street = ?, city = ?, state = ?, postal_code = ?, country = ? " +
                     "WHERE address_id = ?"
                 );
@@ -415,8 +485,8 @@ public class UserDBFunctions {
                 stmt.executeUpdate();
             } else {
                 // Create new shipping address
-                String addressId = UUID.randomUUID().toString();
-                PreparedStatement stmt = dcs.getConn().prepareStatement(
+                String addressId = Ids.newId();
+                PreparedStatement stmt = conn.prepareStatement(
                     "INSERT INTO Addresses (address_id, street, city, state, postal_code, country, customer_id) " +
                     "VALUES (?, ?, ?, ?, ?, ?, ?)"
                 );
@@ -436,6 +506,12 @@ public class UserDBFunctions {
             System.err.println("Error saving customer address: " + e.getMessage());
             e.printStackTrace();
             return false;
+        } finally {
+            try {
+                if (conn != null) conn.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
         }
     }
     
@@ -453,15 +529,16 @@ public class UserDBFunctions {
     public static boolean saveCustomerAddressByType(String customerId, String street, String city, 
                                                      String state, String postalCode, String country, String addressType) {
         if ("billing".equals(addressType)) {
-            DatabaseConnectSingleton dcs = DatabaseConnectSingleton.getInstance();
+            Connection conn = null;
             
             try {
                 // First, check if there's an existing billing address
                 Address existingBillingAddr = getCustomerAddressByType(customerId, "billing");
+                conn = DatabaseConnectSingleton.getInstance().getConn();
                 
                 if (existingBillingAddr != null) {
                     // Update existing billing address
-                    PreparedStatement updateStmt = dcs.getConn().prepareStatement(
+                    PreparedStatement updateStmt = conn.prepareStatement(
                         "UPDATE Addresses SET street = ?, city = ?, state = ?, postal_code = ?, country = ? " +
                         "WHERE address_id = ?"
                     );
@@ -476,7 +553,7 @@ public class UserDBFunctions {
                 }
                 
                 // No existing billing address, check if they have a payment card
-                PreparedStatement cardStmt = dcs.getConn().prepareStatement(
+                PreparedStatement cardStmt = conn.prepareStatement(
                     "SELECT card_id, billing_address_id FROM PaymentCards WHERE customer_id = ? LIMIT 1"
                 );
                 cardStmt.setString(1, customerId);
@@ -489,7 +566,7 @@ public class UserDBFunctions {
                     
                     if (existingBillingAddressId != null) {
                         // Update existing billing address linked to card
-                        PreparedStatement updateStmt = dcs.getConn().prepareStatement(
+                        PreparedStatement updateStmt = conn.prepareStatement(
                             "UPDATE Addresses SET street = ?, city = ?, state = ?, postal_code = ?, country = ? " +
                             "WHERE address_id = ?"
                         );
@@ -502,8 +579,8 @@ public class UserDBFunctions {
                         updateStmt.executeUpdate();
                     } else {
                         // Create NEW address row for billing and link to card
-                        String newAddressId = UUID.randomUUID().toString();
-                        PreparedStatement insertStmt = dcs.getConn().prepareStatement(
+                        String newAddressId = Ids.newId();
+                        PreparedStatement insertStmt = conn.prepareStatement(
                             "INSERT INTO Addresses (address_id, street, city, state, postal_code, country, customer_id) " +
                             "VALUES (?, ?, ?, ?, ?, ?, ?)"
                         );
@@ -517,7 +594,7 @@ public class UserDBFunctions {
                         insertStmt.executeUpdate();
                         
                         // Link new address to payment card
-                        PreparedStatement linkStmt = dcs.getConn().prepareStatement(
+                        PreparedStatement linkStmt = conn.prepareStatement(
                             "UPDATE PaymentCards SET billing_address_id = ? WHERE card_id = ?"
                         );
                         linkStmt.setString(1, newAddressId);
@@ -527,8 +604,8 @@ public class UserDBFunctions {
                 } else {
                     // No card yet - just create a standalone billing address
                     // When they add a card later, we'll link it automatically
-                    String newAddressId = UUID.randomUUID().toString();
-                    PreparedStatement insertStmt = dcs.getConn().prepareStatement(
+                    String newAddressId = Ids.newId();
+                    PreparedStatement insertStmt = conn.prepareStatement(
                         "INSERT INTO Addresses (address_id, street, city, state, postal_code, country, customer_id) " +
                         "VALUES (?, ?, ?, ?, ?, ?, ?)"
                     );
@@ -550,6 +627,12 @@ public class UserDBFunctions {
                 System.err.println("Error saving billing address: " + e.getMessage());
                 e.printStackTrace();
                 return false;
+            } finally {
+                try {
+                    if (conn != null) conn.close();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
             }
         } else {
             // For shipping, use regular saveCustomerAddress
@@ -563,12 +646,13 @@ public class UserDBFunctions {
      * @return List of PaymentCard objects
      */
     public static List<PaymentCard> getCustomerPaymentCards(String customerId) {
-        DatabaseConnectSingleton dcs = DatabaseConnectSingleton.getInstance();
+        Connection conn = null;
         List<PaymentCard> cards = new ArrayList<>();
         
         try {
+            conn = DatabaseConnectSingleton.getInstance().getConn();
             System.out.println("DEBUG: getCustomerPaymentCards called with customerId = " + customerId);
-            PreparedStatement stmt = dcs.getConn().prepareStatement(
+            PreparedStatement stmt = conn.prepareStatement(
                 "SELECT card_id, card_number, expiration_date, billing_address_id FROM PaymentCards WHERE customer_id = ?"
             );
             stmt.setString(1, customerId);
@@ -590,6 +674,12 @@ public class UserDBFunctions {
         } catch (SQLException e) {
             System.err.println("Error getting payment cards: " + e.getMessage());
             e.printStackTrace();
+        } finally {
+            try {
+                if (conn != null) conn.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
         }
         
         return cards;
@@ -606,7 +696,7 @@ public class UserDBFunctions {
      */
     public static String addPaymentCard(String customerId, String encryptedCardNumber, 
                                        Date expirationDate, String billingAddressId) {
-        DatabaseConnectSingleton dcs = DatabaseConnectSingleton.getInstance();
+        Connection conn = null;
         
         try {
             // Check card limit (max 4 cards)
@@ -626,9 +716,10 @@ public class UserDBFunctions {
                     System.out.println("DEBUG: Auto-linking standalone billing address: " + billingAddressId);
                 }
             }
+            conn = DatabaseConnectSingleton.getInstance().getConn();
             
-            String cardId = UUID.randomUUID().toString();
-            PreparedStatement stmt = dcs.getConn().prepareStatement(
+            String cardId = Ids.newId();
+            PreparedStatement stmt = conn.prepareStatement(
                 "INSERT INTO PaymentCards (card_id, card_number, expiration_date, customer_id, billing_address_id) VALUES (?, ?, ?, ?, ?)"
             );
             stmt.setString(1, cardId);
@@ -646,6 +737,12 @@ public class UserDBFunctions {
             System.err.println("Error adding payment card: " + e.getMessage());
             e.printStackTrace();
             return null;
+        } finally {
+            try {
+                if (conn != null) conn.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
         }
     }
     
@@ -656,10 +753,11 @@ public class UserDBFunctions {
      * @return true if successful, false otherwise
      */
     public static boolean deletePaymentCard(String cardId, String customerId) {
-        DatabaseConnectSingleton dcs = DatabaseConnectSingleton.getInstance();
+        Connection conn = null;
         
         try {
-            PreparedStatement stmt = dcs.getConn().prepareStatement(
+            conn = DatabaseConnectSingleton.getInstance().getConn();
+            PreparedStatement stmt = conn.prepareStatement(
                 "DELETE FROM PaymentCards WHERE card_id = ? AND customer_id = ?"
             );
             stmt.setString(1, cardId);
@@ -672,54 +770,123 @@ public class UserDBFunctions {
             System.err.println("Error deleting payment card: " + e.getMessage());
             e.printStackTrace();
             return false;
+        } finally {
+            try {
+                if (conn != null) conn.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
         }
     }
 
     public static void setLoginStatus(boolean loginStatus, String email) {
-        DatabaseConnectSingleton dcs = DatabaseConnectSingleton.getInstance();
+        Connection conn = null;
 
         try {
-            PreparedStatement stmt = dcs.getConn().prepareStatement("UPDATE Users SET login_status = ? WHERE email = ?");
+            conn = DatabaseConnectSingleton.getInstance().getConn();
+            PreparedStatement stmt = conn.prepareStatement("UPDATE Users SET login_status = ? WHERE email = ?");
             stmt.setBoolean(1, loginStatus);
             stmt.setString(2, email);
             stmt.executeUpdate();
         } catch (SQLException e) {
             System.err.println("Error setting login status: " + e.getMessage());
             e.printStackTrace();
+        } finally {
+            try {
+                if (conn != null) conn.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
         }
     }
     
     /**
      * Get all users who have opted in to receive promotional emails.
      * Returns a list of user info (user_id, email, first_name) for users with marketing_opt_in = true.
+     * Holds every subscriber in memory; prefer forEachSubscribedUser for large user bases.
      * @return List of user info maps, or empty list if error
      */
     public static List<java.util.Map<String, String>> getSubscribedUsers() {
-        DatabaseConnectSingleton dcs = DatabaseConnectSingleton.getInstance();
         List<java.util.Map<String, String>> subscribedUsers = new ArrayList<>();
-        
+        forEachSubscribedUser(user -> {
+            java.util.Map<String, String> map = new java.util.HashMap<>();
+            map.put("userId", user.getUserId());
+            map.put("email", user.getEmail());
+            map.put("firstName", user.getFirstName());
+            subscribedUsers.add(map);
+        });
+        System.out.println("Found " + subscribedUsers.size() + " subscribed users");
+        return subscribedUsers;
+    }
+
+    /**
+     * Pass every user who has opted in to promotional emails to the consumer, in user_id order,
+     * without loading them all at once. See forEachSubscribedUserPage.
+     * @param consumer Called once per subscriber
+     * @return false if reading stopped on a database error
+     */
+    public static boolean forEachSubscribedUser(java.util.function.Consumer<SubscribedUser> consumer) {
+        return forEachSubscribedUserPage(SUBSCRIBER_PAGE_SIZE, page -> {
+            page.forEach(consumer);
+            return true;
+        });
+    }
+
+    /**
+     * Pass the users who have opted in to promotional emails to the consumer a page at a time,
+     * in user_id order. Pages are read by keyset (user_id > last seen) rather than through an
+     * open server-side cursor, so no connection is held while the consumer works and the next
+     * page isn't read until the consumer returns; memory stays at one page however many
+     * subscribers there are.
+     * @param pageSize Most users per page
+     * @param consumer Called once per page; returns false to stop early
+     * @return false if reading stopped on a database error
+     */
+    public static boolean forEachSubscribedUserPage(int pageSize,
+                                                    java.util.function.Predicate<List<SubscribedUser>> consumer) {
+        String afterUserId = "";
+        while (true) {
+            List<SubscribedUser> page = getSubscribedUsersAfter(afterUserId, pageSize);
+            if (page == null) return false;
+            if (page.isEmpty() || !consumer.test(page)) return true;
+            if (page.size() < pageSize) return true;
+            afterUserId = page.get(page.size() - 1).getUserId();
+        }
+    }
+
+    private static List<SubscribedUser> getSubscribedUsersAfter(String afterUserId, int limit) {
+        String sql = "SELECT user_id, email, first_name FROM Users " +
+                     "WHERE marketing_opt_in = true AND user_id > ? ORDER BY user_id LIMIT ?";
+        Connection conn = null;
+        List<SubscribedUser> page = new ArrayList<>(limit);
+
         try {
-            PreparedStatement stmt = dcs.getConn().prepareStatement(
-                "SELECT user_id, email, first_name FROM Users WHERE marketing_opt_in = true"
-            );
-            ResultSet rs = stmt.executeQuery();
-            
-            while (rs.next()) {
-                java.util.Map<String, String> user = new java.util.HashMap<>();
-                user.put("userId", rs.getString("user_id"));
-                user.put("email", rs.getString("email"));
-                user.put("firstName", rs.getString("first_name"));
-                subscribedUsers.add(user);
+            conn = DatabaseConnectSingleton.getInstance().getConn();
+            if (conn == null) return null;
+            try (PreparedStatement stmt = conn.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                stmt.setString(1, afterUserId);
+                stmt.setInt(2, limit);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        page.add(new SubscribedUser(rs.getString("user_id"), rs.getString("email"),
+                                rs.getString("first_name")));
+                    }
+                }
             }
-            
-            System.out.println("Found " + subscribedUsers.size() + " subscribed users");
-            
+            return page;
+
         } catch (SQLException e) {
             System.err.println("Error getting subscribed users: " + e.getMessage());
             e.printStackTrace();
+            return null;
+        } finally {
+            try {
+                if (conn != null) conn.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
         }
-        
-        return subscribedUsers;
     }
 
     /**
@@ -728,10 +895,11 @@ public class UserDBFunctions {
      * @return List of booking maps with details
      */
     public static List<java.util.Map<String, Object>> getCustomerBookings(String customerId) {
-        DatabaseConnectSingleton dcs = DatabaseConnectSingleton.getInstance();
+        Connection conn = null;
         List<java.util.Map<String, Object>> bookings = new ArrayList<>();
         
         try {
+            conn = DatabaseConnectSingleton.getInstance().getConn();
             String sql = "SELECT b.booking_id, b.booking_date, b.status, b.total_price, b.promo_id, " +
                         "COUNT(t.ticket_id) as ticket_count " +
                         "FROM Bookings b " +
@@ -740,7 +908,7 @@ public class UserDBFunctions {
                         "GROUP BY b.booking_id, b.booking_date, b.status, b.total_price, b.promo_id " +
                         "ORDER BY b.booking_date DESC";
             
-            PreparedStatement stmt = dcs.getConn().prepareStatement(sql);
+            PreparedStatement stmt = conn.prepareStatement(sql);
             stmt.setString(1, customerId);
             ResultSet rs = stmt.executeQuery();
             
@@ -772,6 +940,12 @@ public class UserDBFunctions {
         } catch (SQLException e) {
             System.err.println("Error getting customer bookings: " + e.getMessage());
             e.printStackTrace();
+        } finally {
+            try {
+                if (conn != null) conn.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
         }
         
         return bookings;
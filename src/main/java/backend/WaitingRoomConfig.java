@@ -0,0 +1,34 @@
+package backend;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Applies the app.waiting-room.* settings to WaitingRooms and QueueTokens.
+ */
+@Configuration
+public class WaitingRoomConfig {
+
+    @Value("${app.waiting-room.store:memory}")
+    private String store;
+
+    @Value("${app.waiting-room.admission-minutes:15}")
+    private long admissionMinutes;
+
+    @Value("${app.waiting-room.max-queue:50000}")
+    private long maxQueue;
+
+    @Value("${app.waiting-room.secret:}")
+    private String secret;
+
+    @PostConstruct
+    public void initializeWaitingRooms() {
+        if ("db".equalsIgnoreCase(store.trim()) && secret.isEmpty()) {
+            System.err.println("⚠️ app.waiting-room.secret is not set: queue tokens won't be accepted across nodes");
+        }
+        QueueTokens.setSecret(secret);
+        WaitingRooms.getInstance().configure(AdmissionStore.forMode(store), admissionMinutes, maxQueue);
+        System.out.println("✅ Waiting room store: " + store);
+    }
+}
@@ -0,0 +1,369 @@
+package backend;
+
+import jakarta.servlet.http.HttpSession;
+
+import java.sql.SQLException;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Virtual waiting rooms for high-demand movies and showtimes.
+ *
+ * An admin opens a room for a movie ("movie:5") or a single showtime ("showtime:12") with an
+ * admission rate. While it is open, the seat-selection and booking endpoints call check()
+ * before doing any DB work. Queue numbers are only handed out by join(), behind GET
+ * /api/booking/queue: the caller gets the next number (a WAIT token), and once admission reaches
+ * it they get a PASS token that lets them through for app.waiting-room.admission-minutes.
+ * check() never takes a number, so requests that arrive without a token are told to join rather
+ * than each filling a place. Everyone else is answered with 429 and their position, without
+ * touching the *DBFunctions layer. When the queue is full new callers are turned away, and one
+ * remote address can join at most MAX_JOINS_PER_CLIENT times a minute.
+ *
+ * Tokens are kept in the HTTP session and can also be sent in the X-Queue-Token header (for
+ * clients whose requests may land on another node). Either way a token only counts for the
+ * session it was issued to. A WAIT token goes stale once its number was admitted longer than
+ * the admission time ago, or once it is older than a full queue takes to drain, and its holder
+ * goes to the back of the queue. A showtime's own room takes precedence over its movie's room.
+ */
+public class WaitingRooms {
+    public static final String TOKEN_HEADER = "X-Queue-Token";
+
+    private static final String SESSION_PREFIX = "queueToken:";
+    private static final DateTimeFormatter LEGACY_TIME_FORMAT = DateTimeFormatter.ofPattern("h:mm a", Locale.US);
+    private static final long FULL_RETRY_SECONDS = 30;
+    static final int MAX_JOINS_PER_CLIENT = 10;
+    private static final long JOIN_WINDOW_MILLIS = 60_000;
+    private static final int MAX_TRACKED_CLIENTS = 10_000;
+
+    private static WaitingRooms instance = null;
+
+    private volatile AdmissionStore store = AdmissionStore.forMode("memory");
+    private volatile long admissionMillis = 15 * 60_000L;
+    private volatile long defaultMaxQueue = 50_000;
+    private final ConcurrentHashMap<String, JoinWindow> joinsByClient = new ConcurrentHashMap<>();
+
+    /** Joins from one client since windowStart. */
+    private static class JoinWindow {
+        final long windowStart;
+        final int joins;
+
+        JoinWindow(long windowStart, int joins) {
+            this.windowStart = windowStart;
+            this.joins = joins;
+        }
+    }
+
+    private WaitingRooms() { }
+
+    public static synchronized WaitingRooms getInstance() {
+        if (instance == null) {
+            instance = new WaitingRooms();
+        }
+        return instance;
+    }
+
+    /**
+     * Apply the app.waiting-room.* settings (see WaitingRoomConfig).
+     */
+    public void configure(AdmissionStore store, long admissionMinutes, long defaultMaxQueue) {
+        this.store = store;
+        this.admissionMillis = admissionMinutes * 60_000L;
+        this.defaultMaxQueue = defaultMaxQueue;
+    }
+
+    public static String movieRoom(int movieId) {
+        return "movie:" + movieId;
+    }
+
+    public static String showtimeRoom(int showtimeId) {
+        return "showtime:" + showtimeId;
+    }
+
+    /**
+     * Open a room, or change the rate of an open one.
+     *
+     * @param maxQueue Most people allowed to wait at once, or null for the default
+     */
+    public void open(String roomKey, double admitPerSecond, Long maxQueue) {
+        if (admitPerSecond <= 0) {
+            throw new IllegalArgumentException("admitPerSecond must be positive");
+        }
+        store.open(roomKey, admitPerSecond, maxQueue != null ? maxQueue : defaultMaxQueue);
+        System.out.println("Waiting room " + roomKey + " open at " + admitPerSecond + "/s");
+    }
+
+    public void close(String roomKey) {
+        store.close(roomKey);
+        System.out.println("Waiting room " + roomKey + " closed");
+    }
+
+    /**
+     * Every open room with its counters, for the admin page.
+     */
+    public List<Map<String, Object>> list() {
+        return store.list().stream().map(room -> {
+            Map<String, Object> map = new HashMap<>();
+            map.put("roomKey", room.getRoomKey());
+            map.put("admitPerSecond", room.getAdmitPerSecond());
+            map.put("maxQueue", room.getMaxQueue());
+            map.put("issued", room.getIssued());
+            map.put("waiting", room.getWaiting());
+            return map;
+        }).toList();
+    }
+
+    /**
+     * Let a caller through if they hold a PASS, or report their place if they hold a WAIT token,
+     * for a movie and/or showtime. Never hands out a queue number: callers with no usable token
+     * get a not-queued WAIT and must join() first.
+     *
+     * @param movieId The movie, or null to look it up from the showtime
+     * @param showtimeId The showtime, or null
+     * @param session The caller's session (holds their token)
+     * @param headerToken Token from the X-Queue-Token header, or null
+     */
+    public Admission check(Integer movieId, Integer showtimeId, HttpSession session, String headerToken) {
+        return admit(movieId, showtimeId, session, headerToken, null);
+    }
+
+    /**
+     * check(), but a caller with no usable token takes the next queue number.
+     *
+     * @param clientKey Who is joining (the remote address), for the per-client join limit
+     * @throws IllegalStateException if the client has joined too often in the last minute
+     */
+    public Admission join(Integer movieId, Integer showtimeId, HttpSession session, String headerToken,
+                          String clientKey) {
+        return admit(movieId, showtimeId, session, headerToken, clientKey);
+    }
+
+    // joinAs is the client key to take a queue number for, or null to never take one
+    private Admission admit(Integer movieId, Integer showtimeId, HttpSession session, String headerToken,
+                            String joinAs) {
+        AdmissionStore.Room room = findRoom(movieId, showtimeId);
+        if (room == null) {
+            return Admission.open();
+        }
+        String roomKey = room.getRoomKey();
+        String sessionKey = SESSION_PREFIX + roomKey;
+        String holder = session != null ? session.getId() : "";
+
+        String tokenString = headerToken;
+        QueueTokens.Token token = tokenFor(roomKey, holder, headerToken);
+        if (token == null && session != null) {
+            tokenString = (String) session.getAttribute(sessionKey);
+            token = tokenFor(roomKey, holder, tokenString);
+        }
+
+        long now = System.currentTimeMillis();
+        if (token != null && QueueTokens.PASS.equals(token.getType())) {
+            if (token.getValue() > now) {
+                return Admission.admitted(roomKey, tokenString, token.getValue());
+            }
+            token = null; // admission ran out - back of the queue
+        }
+        if (token != null && isStale(room, token, now)) {
+            token = null; // admitted long ago and never used, or far too old - back of the queue
+        }
+
+        long queueNumber;
+        if (token != null) {
+            queueNumber = token.getValue();
+        } else if (joinAs == null) {
+            long position = room.getWaiting() + 1;
+            return Admission.notQueued(roomKey, position, (long) Math.ceil(position / room.getAdmitPerSecond()));
+        } else {
+            countJoin(joinAs, now);
+            queueNumber = store.join(roomKey);
+            if (queueNumber < 0) {
+                return Admission.full(roomKey, FULL_RETRY_SECONDS);
+            }
+            tokenString = QueueTokens.waitToken(roomKey, queueNumber, now, holder);
+            if (session != null) session.setAttribute(sessionKey, tokenString);
+            room = store.get(roomKey);
+            if (room == null) return Admission.open(); // closed meanwhile
+        }
+
+        long position = room.positionOf(queueNumber);
+        if (position == 0) {
+            long expiresAt = now + admissionMillis;
+            String pass = QueueTokens.passToken(roomKey, expiresAt, now, holder);
+            if (session != null) session.setAttribute(sessionKey, pass);
+            return Admission.admitted(roomKey, pass, expiresAt);
+        }
+        long etaSeconds = (long) Math.ceil(position / room.getAdmitPerSecond());
+        return Admission.waiting(roomKey, tokenString, position, etaSeconds);
+    }
+
+    /**
+     * check() for the legacy routes that name a showing by movie and 12-hour start time.
+     */
+    public Admission checkShowing(String movieId, String showtime, HttpSession session, String headerToken) {
+        Integer movie;
+        try {
+            movie = Integer.valueOf(movieId.trim());
+        } catch (RuntimeException e) {
+            return Admission.open();
+        }
+        return check(movie, findShowtimeId(movie, showtime), session, headerToken);
+    }
+
+    private void countJoin(String clientKey, long now) {
+        if (joinsByClient.size() > MAX_TRACKED_CLIENTS) {
+            joinsByClient.values().removeIf(window -> now - window.windowStart >= JOIN_WINDOW_MILLIS);
+        }
+        joinsByClient.compute(clientKey, (key, window) -> {
+            if (window == null || now - window.windowStart >= JOIN_WINDOW_MILLIS) {
+                return new JoinWindow(now, 1);
+            }
+            if (window.joins >= MAX_JOINS_PER_CLIENT) {
+                throw new IllegalStateException("Too many queue joins, try again in a minute");
+            }
+            return new JoinWindow(window.windowStart, window.joins + 1);
+        });
+    }
+
+    private QueueTokens.Token tokenFor(String roomKey, String holder, String tokenString) {
+        QueueTokens.Token token = QueueTokens.parse(tokenString);
+        return token != null && token.getRoomKey().equals(roomKey) && token.getHolder().equals(holder)
+                ? token : null;
+    }
+
+    /**
+     * Whether a WAIT token can no longer be exchanged for a PASS: its number was admitted more
+     * than the admission time ago (so any pass it earned would have run out), or it is older
+     * than the longest anyone could have waited in a full queue at the room's current rate.
+     */
+    private boolean isStale(AdmissionStore.Room room, QueueTokens.Token token, long now) {
+        double admittedAgoMillis = (room.getAdmitted() - token.getValue()) / room.getAdmitPerSecond() * 1000;
+        if (admittedAgoMillis > admissionMillis) return true;
+        long longestWaitMillis = (long) (room.getMaxQueue() / room.getAdmitPerSecond() * 1000) + admissionMillis;
+        return now - token.getIssuedAt() > longestWaitMillis;
+    }
+
+    private AdmissionStore.Room findRoom(Integer movieId, Integer showtimeId) {
+        if (showtimeId != null) {
+            AdmissionStore.Room room = store.get(showtimeRoom(showtimeId));
+            if (room != null) return room;
+        }
+        if (movieId == null && showtimeId != null && hasMovieRooms()) {
+            movieId = findMovieId(showtimeId);
+        }
+        return movieId == null ? null : store.get(movieRoom(movieId));
+    }
+
+    private boolean hasMovieRooms() {
+        for (AdmissionStore.Room room : store.list()) {
+            if (room.getRoomKey().startsWith("movie:")) return true;
+        }
+        return false;
+    }
+
+    // The in-memory catalog knows every showtime's movie
+    private Integer findMovieId(int showtimeId) {
+        try {
+            return CatalogCache.getInstance().getSnapshot().getMovieIdForShowtime(showtimeId);
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+
+    private Integer findShowtimeId(int movieId, String showtime) {
+        try {
+            LocalTime time = LocalTime.parse(showtime.trim().toUpperCase(Locale.US), LEGACY_TIME_FORMAT);
+            Movie movie = CatalogCache.getInstance().getSnapshot().getMovie(movieId);
+            if (movie == null || movie.getShowtimeList() == null) return null;
+            for (MovieShowtime entry : movie.getShowtimeList()) {
+                if (time.equals(entry.getTime())) return entry.getShowtimeId();
+            }
+        } catch (DateTimeParseException | SQLException | NullPointerException e) {
+            // Fall back to the movie's room only
+        }
+        return null;
+    }
+
+    /**
+     * Outcome of a waiting-room check.
+     */
+    public static class Admission {
+        private final boolean allowed;
+        private final String roomKey;
+        private final String token;
+        private final long position;
+        private final long etaSeconds;
+        private final long expiresAt;
+        private final boolean full;
+        private final boolean queued;
+
+        private Admission(boolean allowed, String roomKey, String token, long position,
+                          long etaSeconds, long expiresAt, boolean full, boolean queued) {
+            this.allowed = allowed;
+            this.roomKey = roomKey;
+            this.token = token;
+            this.position = position;
+            this.etaSeconds = etaSeconds;
+            this.expiresAt = expiresAt;
+            this.full = full;
+            this.queued = queued;
+        }
+
+        static Admission open() {
+            return new Admission(true, null, null, 0, 0, 0, false, false);
+        }
+
+        static Admission admitted(String roomKey, String token, long expiresAt) {
+            return new Admission(true, roomKey, token, 0, 0, expiresAt, false, true);
+        }
+
+        static Admission waiting(String roomKey, String token, long position, long etaSeconds) {
+            return new Admission(false, roomKey, token, position, etaSeconds, 0, false, true);
+        }
+
+        // Position is where the caller would be if they joined now
+        static Admission notQueued(String roomKey, long position, long etaSeconds) {
+            return new Admission(false, roomKey, null, position, etaSeconds, 0, false, false);
+        }
+
+        static Admission full(String roomKey, long retrySeconds) {
+            return new Admission(false, roomKey, null, 0, retrySeconds, 0, true, false);
+        }
+
+        public boolean isAllowed() {return allowed;}
+        public String getRoomKey() {return roomKey;}
+        public String getToken() {return token;}
+        public long getPosition() {return position;}
+        public long getEtaSeconds() {return etaSeconds;}
+        public long getExpiresAt() {return expiresAt;}
+        public boolean isFull() {return full;}
+        public boolean isQueued() {return queued;}
+
+        /**
+         * Seconds a waiting caller should wait before asking again.
+         */
+        public long getRetryAfterSeconds() {
+            return Math.max(1, Math.min(etaSeconds, 30));
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new HashMap<>();
+            map.put("admitted", allowed);
+            map.put("waitingRoom", roomKey != null);
+            if (roomKey != null) map.put("roomKey", roomKey);
+            if (token != null) map.put("queueToken", token);
+            if (allowed && expiresAt > 0) map.put("expiresAt", expiresAt);
+            if (!allowed) {
+                map.put("queueFull", full);
+                map.put("queued", queued);
+                map.put("position", position);
+                map.put("etaSeconds", etaSeconds);
+            }
+            return map;
+        }
+    }
+}
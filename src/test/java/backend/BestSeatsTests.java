@@ -0,0 +1,65 @@
+package backend;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Best-available block search on one showtime's seat bitmaps (ShowtimeSeats.findBestBlock).
+ */
+public class BestSeatsTests {
+
+    // 5 rows (A-E) of 10 seats
+    private static SeatInventory.ShowtimeSeats newSeats() {
+        return new SeatInventory.ShowtimeSeats(1, new ShowroomLayout("R1", "Room 1", 50, 5, 10, "T1"));
+    }
+
+    @Test
+    public void testBestBlockPrefersCentreOfIdealRow() {
+        SeatInventory.ShowtimeSeats seats = newSeats();
+        // Ideal row is 60% of the way back: row C of A-E
+        Assertions.assertEquals(List.of("C5", "C6"), seats.findBestBlock(2));
+        Assertions.assertEquals(List.of("C4", "C5", "C6"), seats.findBestBlock(3));
+    }
+
+    @Test
+    public void testBestBlockSkipsTakenSeats() {
+        SeatInventory.ShowtimeSeats seats = newSeats();
+        seats.mark(List.of("C5"));
+        // C6-C7 is off centre in the ideal row; D5-D6 is centred one row back and scores better
+        Assertions.assertEquals(List.of("D5", "D6"), seats.findBestBlock(2));
+
+        seats.tryHold("h1", List.of("D5"));
+        List<String> block = seats.findBestBlock(2);
+        Assertions.assertNotNull(block);
+        Assertions.assertFalse(block.contains("C5") || block.contains("D5"));
+    }
+
+    @Test
+    public void testBestBlockNeedsAdjacentSeatsInOneRow() {
+        SeatInventory.ShowtimeSeats seats = new SeatInventory.ShowtimeSeats(1,
+                new ShowroomLayout("R2", "Small", 8, 2, 4, "T1"));
+        seats.mark(List.of("A2", "B3"));
+
+        Assertions.assertNull(seats.findBestBlock(3), "No row has three free seats in a row");
+        // Row B is nearer the ideal row than A, and B1-B2 is as far off centre as A3-A4
+        Assertions.assertEquals(List.of("B1", "B2"), seats.findBestBlock(2));
+        Assertions.assertNull(seats.findBestBlock(5), "Wider than the room");
+        Assertions.assertNull(seats.findBestBlock(0));
+    }
+
+    @Test
+    public void testBestBlockInRowWiderThanALong() {
+        SeatInventory.ShowtimeSeats seats = new SeatInventory.ShowtimeSeats(1,
+                new ShowroomLayout("R3", "Wide", 70, 1, 70, "T1"));
+        List<String> taken = new ArrayList<>();
+        for (int seat = 1; seat <= 70; seat++) {
+            if (seat < 66 || seat > 68) taken.add("A" + seat);
+        }
+        seats.mark(taken);
+
+        Assertions.assertEquals(List.of("A66", "A67", "A68"), seats.findBestBlock(3));
+        Assertions.assertNull(seats.findBestBlock(4));
+    }
+}
@@ -0,0 +1,41 @@
+package backend;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A small in-memory catalog shared by the catalog index tests.
+ */
+class CatalogFixtures {
+
+    static Movie movie(int id, String title, String genre, String rating, int duration, boolean showing) {
+        return new Movie.MovieBuilder()
+                .movieId(id)
+                .title(title)
+                .genre(genre)
+                .rating(rating)
+                .duration(String.valueOf(duration))
+                .isCurrentlyShowing(showing)
+                .build();
+    }
+
+    static CatalogSnapshot catalog() {
+        return new CatalogSnapshot(1, List.of(
+                movie(1, "Spider-Man", "Action", "PG-13", 121, true),
+                movie(2, "Spider-Man 2", "Action", "PG-13", 127, false),
+                movie(3, "The Amazing Spider-Man", "Action", "PG-13", 136, true),
+                movie(4, "Amélie", "Comedy", "R", 122, true),
+                movie(5, "The Dark Knight", "Action", "PG-13", 152, true),
+                movie(6, "Alien", "Horror", "R", 117, false),
+                movie(7, "alien", "Horror", "R", 90, true),
+                movie(8, "ALIEN!", "Horror", "R", 95, false),
+                movie(9, "Toy Story", "Animation", "G", 81, true),
+                movie(10, "Spiderhead", "Thriller", "R", 106, true)));
+    }
+
+    static List<Integer> ids(List<Movie> movies) {
+        List<Integer> ids = new ArrayList<>();
+        for (Movie m : movies) ids.add(m.getMovieId());
+        return ids;
+    }
+}
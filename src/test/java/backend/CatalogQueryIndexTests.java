@@ -0,0 +1,106 @@
+package backend;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static backend.CatalogFixtures.*;
+
+/**
+ * Filters, facet counts and cursor paging (CatalogQueryIndex) over the fixture catalog.
+ */
+public class CatalogQueryIndexTests {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFacetsIgnoreTheirOwnFilter() {
+        CatalogQueryIndex index = new CatalogQueryIndex();
+        index.update(catalog());
+        CatalogQueryIndex.Query query = new CatalogQueryIndex.Query();
+        query.genres = Set.of("horror");
+        query.currentlyShowing = true;
+
+        Map<String, Object> result = index.query(query, null);
+        Assertions.assertEquals(1, result.get("total"));
+        Map<String, Object> facets = (Map<String, Object>) result.get("facets");
+        Map<String, Integer> genre = (Map<String, Integer>) facets.get("genre");
+        // Genre counts ignore the genre filter but keep currentlyShowing
+        Assertions.assertEquals(3, genre.get("Action"));
+        Assertions.assertEquals(1, genre.get("Horror"));
+        Map<String, Integer> showing = (Map<String, Integer>) facets.get("currentlyShowing");
+        Assertions.assertEquals(1, showing.get("true"));
+        Assertions.assertEquals(2, showing.get("false"));
+    }
+
+    @Test
+    public void testCursorPagesThroughEverySort() {
+        CatalogQueryIndex index = new CatalogQueryIndex();
+        index.update(catalog());
+        for (String sort : List.of("title", "-title", "duration", "-duration", "id", "-id")) {
+            CatalogQueryIndex.Query query = new CatalogQueryIndex.Query();
+            query.sort = sort;
+            query.limit = 100;
+            List<Integer> all = ids(page(index, query));
+
+            List<Integer> paged = new ArrayList<>();
+            query.limit = 3;
+            query.cursor = null;
+            do {
+                Map<String, Object> result = index.query(query, null);
+                paged.addAll(ids(movies(result)));
+                query.cursor = (String) result.get("nextCursor");
+            } while (query.cursor != null);
+            Assertions.assertEquals(all, paged, sort);
+        }
+    }
+
+    @Test
+    public void testCursorSurvivesRemovalOfItsMovie() {
+        CatalogQueryIndex index = new CatalogQueryIndex();
+        index.update(catalog());
+        CatalogQueryIndex.Query query = new CatalogQueryIndex.Query();
+        query.sort = "duration";
+        query.limit = 2;
+        Map<String, Object> first = index.query(query, null);
+        Assertions.assertEquals(List.of(9, 7), ids(movies(first)));
+
+        // Movie 7 (the cursor's) is removed before the next page is fetched
+        List<Movie> remaining = new ArrayList<>(catalog().getMovies());
+        remaining.removeIf(m -> m.getMovieId() == 7);
+        index.update(new CatalogSnapshot(2, remaining));
+        query.cursor = (String) first.get("nextCursor");
+        Assertions.assertEquals(List.of(8, 10), ids(page(index, query)));
+    }
+
+    @Test
+    public void testBadSortOrCursor() {
+        CatalogQueryIndex index = new CatalogQueryIndex();
+        index.update(catalog());
+        CatalogQueryIndex.Query query = new CatalogQueryIndex.Query();
+        query.sort = "popularity";
+        Assertions.assertThrows(IllegalArgumentException.class, () -> index.query(query, null));
+
+        query.sort = "title";
+        query.cursor = "%%%";
+        Assertions.assertThrows(IllegalArgumentException.class, () -> index.query(query, null));
+
+        query.limit = 1;
+        query.cursor = null;
+        query.cursor = (String) index.query(query, null).get("nextCursor");
+        query.sort = "-title";
+        Assertions.assertThrows(IllegalArgumentException.class, () -> index.query(query, null),
+                "A cursor only continues the sort it came from");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Movie> movies(Map<String, Object> result) {
+        return (List<Movie>) result.get("movies");
+    }
+
+    private static List<Movie> page(CatalogQueryIndex index, CatalogQueryIndex.Query query) {
+        return movies(index.query(query, null));
+    }
+}
@@ -0,0 +1,64 @@
+package backend;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import java.util.List;
+
+public class EmailTemplateTests {
+
+    @Test
+    public void testRenderFillsPlaceholdersInDeclaredOrder() {
+        EmailTemplate template = EmailTemplate.compile("Hi {{first}}, booking {{ id }} for {{first}}.", "id", "first");
+        Assertions.assertEquals("Hi Ann, booking B7 for Ann.", template.render("B7", "Ann"));
+        Assertions.assertEquals(List.of("id", "first"), template.getNames());
+    }
+
+    @Test
+    public void testTextWithoutPlaceholders() {
+        EmailTemplate template = EmailTemplate.compile("Plain text, $5 {not a placeholder}");
+        Assertions.assertEquals("Plain text, $5 {not a placeholder}", template.render());
+    }
+
+    @Test
+    public void testBindFoldsAValueIn() {
+        EmailTemplate template = EmailTemplate.compile("{{url}}/confirm?token={{token}} ({{name}}) {{url}}",
+                "url", "name", "token");
+        EmailTemplate bound = template.bind("url", "http://x");
+
+        Assertions.assertEquals(List.of("name", "token"), bound.getNames());
+        Assertions.assertEquals("http://x/confirm?token=t1 (Bo) http://x", bound.render("Bo", "t1"));
+        Assertions.assertEquals("u/confirm?token=t1 (Bo) u", template.render("u", "Bo", "t1"), "bind must not change the original");
+        Assertions.assertEquals("http://x/confirm?token=t1 (Bo) http://x",
+                bound.bind("name", "Bo").bind("token", "t1").render());
+    }
+
+    @Test
+    public void testRenderToAppends() {
+        EmailTemplate template = EmailTemplate.compile("[{{v}}]", "v");
+        StringBuilder out = new StringBuilder("x");
+        template.renderTo(out, "1");
+        template.renderTo(out, (String) null);
+        Assertions.assertEquals("x[1][null]", out.toString());
+    }
+
+    @Test
+    public void testMistakesFailAtCompileTime() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> EmailTemplate.compile("Hi {{nmae}}", "name"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> EmailTemplate.compile("Hi {{name", "name"));
+        EmailTemplate template = EmailTemplate.compile("Hi {{name}}", "name");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> template.render());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> template.render("a", "b"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> template.bind("other", "x"));
+    }
+
+    @Test
+    public void testPreparedEmailSharesTheSubject() {
+        PreparedEmail prepared = new PreparedEmail("Ofertas de verano",
+                EmailTemplate.compile("Hola {{firstName}}: {{message}}", "message", "firstName").bind("message", "20% off"));
+
+        OutgoingMail mail = prepared.to("a@example.com", "Ana");
+        Assertions.assertEquals("a@example.com", mail.getTo());
+        Assertions.assertEquals("Ofertas de verano", mail.getSubject());
+        Assertions.assertEquals("Hola Ana: 20% off", mail.getBody());
+    }
+}
@@ -0,0 +1,94 @@
+package backend;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HoldExpiryWheel driven by hand: a fake nanoTime clock and explicit tick() calls, no ticker thread.
+ */
+public class HoldExpiryWheelTests {
+    private long nanos = 0;
+    private final List<String> ran = new ArrayList<>();
+
+    private HoldExpiryWheel newWheel(long tickMillis, int wheelSize) {
+        return new HoldExpiryWheel(tickMillis, wheelSize, () -> nanos);
+    }
+
+    // Move the clock on by one tick, then tick
+    private void advance(HoldExpiryWheel wheel, long tickMillis, int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            nanos += TimeUnit.MILLISECONDS.toNanos(tickMillis);
+            wheel.tick();
+        }
+    }
+
+    @Test
+    public void testTaskRunsOnceItsDelayHasPassed() {
+        HoldExpiryWheel wheel = newWheel(10, 16);
+        wheel.schedule(50, () -> ran.add("a"));
+
+        advance(wheel, 10, 4);
+        Assertions.assertTrue(ran.isEmpty(), "Ran after 40 ms of a 50 ms delay");
+        advance(wheel, 10, 1);
+        Assertions.assertEquals(List.of("a"), ran);
+        advance(wheel, 10, 20);
+        Assertions.assertEquals(List.of("a"), ran, "Ran more than once");
+    }
+
+    @Test
+    public void testTickRightAfterSchedulingDoesNotRunEarly() {
+        HoldExpiryWheel wheel = newWheel(10, 16);
+        nanos = TimeUnit.MILLISECONDS.toNanos(9); // 1 ms before the next tick
+        wheel.schedule(10, () -> ran.add("a"));
+
+        // The next tick comes 1 ms later; the 10 ms have not passed yet
+        nanos += TimeUnit.MILLISECONDS.toNanos(1);
+        wheel.tick();
+        Assertions.assertTrue(ran.isEmpty(), "Ran 1 ms into a 10 ms delay");
+
+        advance(wheel, 10, 1);
+        Assertions.assertEquals(List.of("a"), ran);
+    }
+
+    @Test
+    public void testCatchUpTicksDoNotRunEarly() {
+        HoldExpiryWheel wheel = newWheel(10, 16);
+        wheel.schedule(50, () -> ran.add("a"));
+
+        // A burst of ticks with no time passing, as after a stalled ticker thread
+        for (int i = 0; i < 10; i++) wheel.tick();
+        Assertions.assertTrue(ran.isEmpty());
+
+        nanos += TimeUnit.MILLISECONDS.toNanos(50);
+        wheel.tick();
+        Assertions.assertEquals(List.of("a"), ran);
+    }
+
+    @Test
+    public void testDelayLongerThanOneTurnOfTheWheel() {
+        // 8 slots of 10 ms: a 200 ms delay passes its slot twice before it is due
+        HoldExpiryWheel wheel = newWheel(10, 8);
+        wheel.schedule(200, () -> ran.add("a"));
+
+        advance(wheel, 10, 19);
+        Assertions.assertTrue(ran.isEmpty());
+        advance(wheel, 10, 1);
+        Assertions.assertEquals(List.of("a"), ran);
+    }
+
+    @Test
+    public void testFailingTaskDoesNotStopTheWheel() {
+        HoldExpiryWheel wheel = newWheel(10, 4);
+        wheel.schedule(10, () -> { throw new IllegalStateException("expected"); });
+        for (int i = 0; i < 100; i++) {
+            String name = "t" + i;
+            wheel.schedule(i % 40, () -> ran.add(name));
+        }
+
+        advance(wheel, 10, 5);
+        Assertions.assertEquals(100, ran.size());
+    }
+}
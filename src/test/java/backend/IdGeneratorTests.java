@@ -0,0 +1,51 @@
+package backend;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+public class IdGeneratorTests {
+
+    @Test
+    public void testCompactIdsAreSortableAndUnique() {
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(true);
+        String previous = generator.newId();
+        Set<String> seen = new HashSet<>();
+        seen.add(previous);
+        // Far more than 4096 per millisecond forces the counter to carry into the timestamp
+        for (int i = 0; i < 20000; i++) {
+            String id = generator.newId();
+            Assertions.assertEquals(26, id.length(), id);
+            Assertions.assertTrue(id.matches("[0-9A-HJKMNP-TV-Z]+"), "Not Crockford base32: " + id);
+            Assertions.assertTrue(id.compareTo(previous) > 0, previous + " then " + id);
+            Assertions.assertTrue(seen.add(id), "Duplicate " + id);
+            previous = id;
+        }
+    }
+
+    @Test
+    public void testUuidIdsAreVersion7AndSortable() {
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(false);
+        String previous = generator.newId();
+        for (int i = 0; i < 5000; i++) {
+            String id = generator.newId();
+            UUID uuid = UUID.fromString(id);
+            Assertions.assertEquals(7, uuid.version());
+            Assertions.assertEquals(2, uuid.variant());
+            Assertions.assertTrue(id.compareTo(previous) > 0, previous + " then " + id);
+            previous = id;
+        }
+    }
+
+    @Test
+    public void testIdStartsWithTheCurrentTime() {
+        long before = System.currentTimeMillis();
+        UUID uuid = UUID.fromString(new TimeOrderedIdGenerator(false).newId());
+        long after = System.currentTimeMillis();
+
+        long millis = uuid.getMostSignificantBits() >>> 16;
+        Assertions.assertTrue(millis >= before && millis <= after + 1, "Timestamp " + millis);
+    }
+}
@@ -0,0 +1,63 @@
+package backend;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+public class PreparedResponseTests {
+
+    @Test
+    public void testEtagDependsOnlyOnTheBody() {
+        PreparedResponse first = PreparedResponse.of("{\"a\":1}", 1_000L, null);
+        PreparedResponse same = PreparedResponse.of("{\"a\":1}", 9_000L, null);
+        PreparedResponse other = PreparedResponse.of("{\"a\":2}", 1_000L, null);
+
+        Assertions.assertTrue(first.getEtag().matches("\"[0-9a-f]{32}\""), first.getEtag());
+        Assertions.assertEquals(first.getEtag().replace("\"", "").concat("-gz"),
+                first.getGzipEtag().replace("\"", ""), "The gzipped body is another representation");
+        Assertions.assertEquals(first.getEtag(), same.getEtag());
+        Assertions.assertNotEquals(first.getEtag(), other.getEtag());
+    }
+
+    @Test
+    public void testUnchangedBodyKeepsThePreviousResponse() {
+        PreparedResponse first = PreparedResponse.of("[1,2,3]", 5_500L, null);
+        Assertions.assertEquals(5_000L, first.getLastModified(), "Last-Modified has one-second resolution");
+
+        Assertions.assertSame(first, PreparedResponse.of("[1,2,3]", 60_000L, first));
+        PreparedResponse changed = PreparedResponse.of("[1,2]", 60_000L, first);
+        Assertions.assertNotSame(first, changed);
+        Assertions.assertEquals(60_000L, changed.getLastModified());
+    }
+
+    @Test
+    public void testGzippedBodyDecompressesToTheBody() throws IOException {
+        String json = "{\"movies\":[" + "{\"title\":\"Élan\"},".repeat(200) + "{}]}";
+        PreparedResponse response = PreparedResponse.of(json, 0L, null);
+
+        Assertions.assertArrayEquals(json.getBytes(StandardCharsets.UTF_8), response.getBody());
+        Assertions.assertTrue(response.getGzipped().length < response.getBody().length);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.getGzipped()))) {
+            Assertions.assertArrayEquals(response.getBody(), in.readAllBytes());
+        }
+    }
+
+    @Test
+    public void testIfNoneMatch() {
+        PreparedResponse response = PreparedResponse.of("{}", 0L, null);
+        String etag = response.getEtag();
+
+        Assertions.assertTrue(response.matches(etag));
+        Assertions.assertTrue(response.matches("W/" + etag));
+        Assertions.assertTrue(response.matches("\"other\", " + etag));
+        Assertions.assertTrue(response.matches("*"));
+        Assertions.assertTrue(response.matches(response.getGzipEtag()));
+        Assertions.assertTrue(response.matches("W/" + response.getGzipEtag()));
+        Assertions.assertFalse(response.matches("\"other\""));
+        Assertions.assertFalse(response.matches(etag.replace("\"", "")));
+        Assertions.assertFalse(response.matches(null));
+    }
+}
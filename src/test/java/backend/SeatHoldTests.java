@@ -0,0 +1,75 @@
+package backend;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import java.util.List;
+
+/**
+ * Holds on one showtime's seat bitmaps (SeatInventory.ShowtimeSeats). No database needed.
+ */
+public class SeatHoldTests {
+
+    // 5 rows (A-E) of 10 seats
+    private static SeatInventory.ShowtimeSeats newSeats() {
+        return new SeatInventory.ShowtimeSeats(1, new ShowroomLayout("R1", "Room 1", 50, 5, 10, "T1"));
+    }
+
+    @Test
+    public void testHoldIsAllOrNothing() {
+        SeatInventory.ShowtimeSeats seats = newSeats();
+        seats.mark(List.of("A2"));
+
+        List<String> conflicts = seats.tryHold("h1", List.of("A1", "A2", "A3"));
+        Assertions.assertEquals(List.of("A2"), conflicts);
+        Assertions.assertEquals(List.of("A2"), seats.bookedSeats(), "A rejected hold must not claim any seat");
+
+        Assertions.assertTrue(seats.tryHold("h1", List.of("A3", "A4")).isEmpty());
+        Assertions.assertEquals(List.of("A4"), seats.tryHold("h2", List.of("A4", "A5")));
+        Assertions.assertEquals(List.of("A2", "A3", "A4"), seats.bookedSeats());
+    }
+
+    @Test
+    public void testOwnHoldCountsAsAvailable() {
+        SeatInventory.ShowtimeSeats seats = newSeats();
+        seats.tryHold("h1", List.of("B1", "B2"));
+
+        Assertions.assertEquals(List.of("B1", "B2"), seats.findUnavailable(List.of("B1", "B2"), null));
+        Assertions.assertTrue(seats.findUnavailable(List.of("B1", "B2"), "h1").isEmpty());
+        Assertions.assertEquals(List.of("B1"), seats.findUnavailable(List.of("B1", "B3"), "h2"));
+    }
+
+    @Test
+    public void testReleaseOnlyFreesTheHoldsOwnSeats() {
+        SeatInventory.ShowtimeSeats seats = newSeats();
+        seats.tryHold("h1", List.of("C1", "C2"));
+        seats.tryHold("h2", List.of("C3"));
+
+        seats.release("h2", List.of("C1", "C2", "C3"));
+        Assertions.assertEquals(List.of("C1", "C2"), seats.bookedSeats());
+        seats.release("h1", List.of("C1", "C2"));
+        Assertions.assertTrue(seats.bookedSeats().isEmpty());
+    }
+
+    @Test
+    public void testBookingAHeldSeatKeepsItTaken() {
+        SeatInventory.ShowtimeSeats seats = newSeats();
+        seats.tryHold("h1", List.of("D1"));
+        seats.mark(List.of("D1"));
+        seats.release("h1", List.of("D1"));
+
+        Assertions.assertEquals(List.of("D1"), seats.bookedSeats());
+    }
+
+    @Test
+    public void testHoldExpiry() {
+        SeatHold live = new SeatHold("h1", 1, "u1", List.of("A1"), System.currentTimeMillis() + 60_000);
+        SeatHold gone = new SeatHold("h2", 1, "u1", List.of("A1"), System.currentTimeMillis() - 1);
+        Assertions.assertTrue(live.isPlaced());
+        Assertions.assertFalse(live.isExpired());
+        Assertions.assertTrue(gone.isExpired());
+
+        SeatHold rejected = SeatHold.rejected(1, List.of("A1"));
+        Assertions.assertFalse(rejected.isPlaced());
+        Assertions.assertEquals(List.of("A1"), rejected.getConflicts());
+    }
+}
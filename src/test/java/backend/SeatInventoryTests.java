@@ -0,0 +1,87 @@
+package backend;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Booked-seat bitmaps of a single showtime (SeatInventory.ShowtimeSeats) and seat ID parsing.
+ * No database needed.
+ */
+public class SeatInventoryTests {
+
+    // 5 rows (A-E) of 10 seats
+    private static SeatInventory.ShowtimeSeats newSeats() {
+        return new SeatInventory.ShowtimeSeats(1, new ShowroomLayout("R1", "Room 1", 50, 5, 10, "T1"));
+    }
+
+    @Test
+    public void testSeatIdsMapOntoTheGrid() {
+        ShowroomLayout layout = new ShowroomLayout("R1", "Room 1", 50, 5, 10, "T1");
+        Assertions.assertEquals(0, layout.indexOf("A1"));
+        Assertions.assertEquals(23, layout.indexOf("C4"));
+        Assertions.assertEquals(23, layout.indexOf("Cx4"), "Legacy seat IDs should still parse");
+        Assertions.assertEquals(23, layout.indexOf("c4"));
+        Assertions.assertEquals(-1, layout.indexOf("F1"));
+        Assertions.assertEquals(-1, layout.indexOf("A11"));
+        Assertions.assertEquals(-1, layout.indexOf("A0"));
+        Assertions.assertEquals("C4", layout.seatId(23));
+    }
+
+    @Test
+    public void testSeatIndexRejectsMalformedIds() {
+        Assertions.assertEquals(-1, SeatInventory.seatIndex(null, 5, 10));
+        Assertions.assertEquals(-1, SeatInventory.seatIndex("A", 5, 10));
+        Assertions.assertEquals(-1, SeatInventory.seatIndex("1A", 5, 10));
+        Assertions.assertEquals(-1, SeatInventory.seatIndex("Ax", 5, 10));
+        Assertions.assertEquals(-1, SeatInventory.seatIndex("A-1", 5, 10));
+        Assertions.assertEquals(49, SeatInventory.seatIndex("Ex10", 5, 10));
+    }
+
+    @Test
+    public void testCanonicalSeatIds() {
+        Assertions.assertEquals("A5", SeatInventory.canonicalSeatId("A5"));
+        Assertions.assertEquals("A5", SeatInventory.canonicalSeatId("Ax5"));
+        Assertions.assertEquals("A5", SeatInventory.canonicalSeatId("aX05"));
+        Assertions.assertEquals("C12", SeatInventory.canonicalSeatId("c12"));
+        Assertions.assertEquals("VIP-1", SeatInventory.canonicalSeatId("VIP-1"));
+        Assertions.assertEquals("Ax", SeatInventory.canonicalSeatId("Ax"));
+        Assertions.assertEquals("A+5", SeatInventory.canonicalSeatId("A+5"));
+        Assertions.assertNull(SeatInventory.canonicalSeatId(null));
+        Assertions.assertEquals(List.of("A5", "B2"), SeatInventory.canonicalSeatIds(List.of("Ax5", "b2")));
+    }
+
+    @Test
+    public void testMarkedSeatsAreUnavailable() {
+        SeatInventory.ShowtimeSeats seats = newSeats();
+        seats.mark(List.of("B2", "Ax1", "A1"));
+
+        Assertions.assertEquals(List.of("A1", "B2"), seats.bookedSeats(), "Legacy and new forms are the same seat");
+        Assertions.assertEquals(List.of("A1", "B2"), seats.findUnavailable(List.of("A1", "A2", "B2"), null));
+        Assertions.assertEquals(List.of("Ax1"), seats.findUnavailable(List.of("Ax1"), null));
+    }
+
+    @Test
+    public void testSeatsOutsideTheLayoutAreStillTracked() {
+        SeatInventory.ShowtimeSeats seats = newSeats();
+        seats.mark(List.of("Z99", "VIP-1"));
+
+        Assertions.assertEquals(List.of("Z99", "VIP-1"), seats.bookedSeats());
+        Assertions.assertEquals(List.of("VIP-1"), seats.findUnavailable(List.of("A1", "VIP-1"), null));
+    }
+
+    @Test
+    public void testReleaseInactiveHoldsKeepsActiveOnes() {
+        SeatInventory.ShowtimeSeats seats = newSeats();
+        seats.mark(List.of("C5"));
+        seats.tryHold("active", List.of("C1", "C2"));
+        seats.tryHold("gone", List.of("C3"));
+
+        seats.releaseInactiveHolds(Set.of("active"));
+        Assertions.assertEquals(List.of("C1", "C2", "C5"), seats.bookedSeats());
+
+        seats.releaseInactiveHolds(Set.of());
+        Assertions.assertEquals(List.of("C5"), seats.bookedSeats());
+    }
+}
@@ -0,0 +1,36 @@
+package backend;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import java.util.List;
+
+import static backend.CatalogFixtures.*;
+
+/**
+ * Trigram title search (TitleSearchIndex) over the fixture catalog.
+ */
+public class TitleSearchIndexTests {
+
+    @Test
+    public void testSearchRanksExactThenPrefixThenWord() {
+        TitleSearchIndex index = new TitleSearchIndex();
+        index.update(catalog());
+
+        Assertions.assertEquals(List.of(1, 2, 3), ids(index.search("spider man")));
+        Assertions.assertEquals(List.of(1, 10, 2, 3), ids(index.search("spider")));
+        Assertions.assertEquals(List.of(4), ids(index.search("AMELIE")));
+        Assertions.assertEquals(List.of(5), ids(index.search("k knig")));
+        Assertions.assertTrue(index.search("zzz").isEmpty());
+        Assertions.assertEquals(10, index.search("  ").size());
+    }
+
+    @Test
+    public void testSearchSeesTitleChanges() {
+        TitleSearchIndex index = new TitleSearchIndex();
+        index.update(catalog());
+        index.update(new CatalogSnapshot(2, List.of(movie(1, "Spider-Verse", "Action", "PG", 117, true))));
+
+        Assertions.assertEquals(List.of(1), ids(index.search("verse")));
+        Assertions.assertTrue(index.search("knight").isEmpty());
+    }
+}
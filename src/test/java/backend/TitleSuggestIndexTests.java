@@ -0,0 +1,36 @@
+package backend;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import java.util.List;
+
+import static backend.CatalogFixtures.*;
+
+/**
+ * Title autocomplete (TitleSuggestIndex) over the fixture catalog.
+ */
+public class TitleSuggestIndexTests {
+
+    @Test
+    public void testSuggestReturnsEveryDuplicateKey() {
+        TitleSuggestIndex index = new TitleSuggestIndex();
+        index.update(catalog());
+
+        // "Alien", "alien" and "ALIEN!" all normalize to "alien"
+        List<Integer> aliens = ids(index.suggest("alien", 10));
+        Assertions.assertEquals(3, aliens.size());
+        Assertions.assertTrue(aliens.containsAll(List.of(6, 7, 8)));
+        Assertions.assertEquals(3, index.suggest("al", 10).size());
+    }
+
+    @Test
+    public void testSuggestTitlesBeforeWords() {
+        TitleSuggestIndex index = new TitleSuggestIndex();
+        index.update(catalog());
+
+        Assertions.assertEquals(List.of(1, 2, 10, 3), ids(index.suggest("spider", 10)));
+        Assertions.assertEquals(List.of(1, 2), ids(index.suggest("spider", 2)));
+        Assertions.assertEquals(List.of(5), ids(index.suggest("kni", 10)));
+        Assertions.assertTrue(index.suggest("", 10).isEmpty());
+    }
+}
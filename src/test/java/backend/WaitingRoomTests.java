@@ -0,0 +1,198 @@
+package backend;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpSession;
+import java.util.Map;
+
+/**
+ * Waiting-room admission math, queue tokens and WaitingRooms.check() against the in-memory store.
+ */
+public class WaitingRoomTests {
+    private static final int SHOWTIME_ID = 990001;
+    private static final String ROOM = WaitingRooms.showtimeRoom(SHOWTIME_ID);
+
+    @BeforeEach
+    public void setUp() {
+        WaitingRooms.getInstance().configure(AdmissionStore.forMode("memory"), 15, 50_000);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        WaitingRooms.getInstance().close(ROOM);
+    }
+
+    @Test
+    public void testPositionsAreCountedFromAdmitted() {
+        AdmissionStore.Room room = new AdmissionStore.Room("r", 2, 10, 10, 3.5);
+        Assertions.assertEquals(0, room.positionOf(2));
+        Assertions.assertEquals(0, room.positionOf(3));
+        Assertions.assertEquals(2, room.positionOf(5));
+        Assertions.assertEquals(7, room.getWaiting());
+    }
+
+    @Test
+    public void testAdmissionAdvancesAtTheRateUpToOneSecondPastIssued() {
+        Assertions.assertEquals(3.0, AdmissionStore.Room.advance(1.0, 10, 2, 1000));
+        Assertions.assertEquals(1.0, AdmissionStore.Room.advance(1.0, 10, 2, -50), "Clock going back admits nobody");
+        Assertions.assertEquals(12.0, AdmissionStore.Room.advance(1.0, 10, 2, 60_000));
+    }
+
+    @Test
+    public void testMemoryStoreHandsOutNumbersUntilFull() {
+        AdmissionStore store = AdmissionStore.forMode("memory");
+        Assertions.assertEquals(-1, store.join("closed"));
+
+        // Slow enough that nobody is admitted while the test runs
+        store.open("r", 0.01, 2);
+        Assertions.assertEquals(1, store.join("r"));
+        Assertions.assertEquals(2, store.join("r"));
+        Assertions.assertEquals(-1, store.join("r"), "Queue should be full");
+        Assertions.assertEquals(1, store.get("r").positionOf(1));
+
+        store.close("r");
+        Assertions.assertNull(store.get("r"));
+    }
+
+    @Test
+    public void testUnknownStoreMode() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> AdmissionStore.forMode("redis"));
+    }
+
+    @Test
+    public void testTokensRoundTripAndRejectTampering() {
+        String token = QueueTokens.waitToken(ROOM, 42, 1000L, "session-a");
+        QueueTokens.Token parsed = QueueTokens.parse(token);
+        Assertions.assertNotNull(parsed);
+        Assertions.assertEquals(QueueTokens.WAIT, parsed.getType());
+        Assertions.assertEquals(ROOM, parsed.getRoomKey());
+        Assertions.assertEquals(42, parsed.getValue());
+        Assertions.assertEquals(1000L, parsed.getIssuedAt());
+        Assertions.assertEquals("session-a", parsed.getHolder());
+
+        String forged = java.util.Base64.getUrlEncoder().withoutPadding().encodeToString(
+                ("W|" + ROOM + "|1|1000|session-a").getBytes(java.nio.charset.StandardCharsets.UTF_8));
+        Assertions.assertNull(QueueTokens.parse(forged + token.substring(token.indexOf('.'))));
+        Assertions.assertNull(QueueTokens.parse("not-a-token"));
+        Assertions.assertNull(QueueTokens.parse("@@@.@@@"));
+        Assertions.assertNull(QueueTokens.parse(null));
+    }
+
+    @Test
+    public void testNoRoomLetsEveryoneIn() {
+        WaitingRooms.Admission admission = WaitingRooms.getInstance().check(null, SHOWTIME_ID, new MockHttpSession(), null);
+        Assertions.assertTrue(admission.isAllowed());
+    }
+
+    @Test
+    public void testTokenIsBoundToItsSession() {
+        WaitingRooms rooms = WaitingRooms.getInstance();
+        rooms.open(ROOM, 0.01, null);
+        MockHttpSession sessionA = new MockHttpSession();
+        MockHttpSession sessionB = new MockHttpSession();
+
+        WaitingRooms.Admission a = rooms.join(null, SHOWTIME_ID, sessionA, null, "10.0.0.1");
+        Assertions.assertFalse(a.isAllowed());
+        Assertions.assertEquals(1, a.getPosition());
+
+        // B presents A's token: it is ignored and B queues behind A
+        WaitingRooms.Admission b = rooms.join(null, SHOWTIME_ID, sessionB, a.getToken(), "10.0.0.2");
+        Assertions.assertFalse(b.isAllowed());
+        Assertions.assertEquals(2, b.getPosition());
+
+        // A comes back (token in the session) and keeps its place
+        WaitingRooms.Admission again = rooms.check(null, SHOWTIME_ID, sessionA, null);
+        Assertions.assertEquals(1, again.getPosition());
+        Assertions.assertEquals(2L, issued());
+    }
+
+    @Test
+    public void testFullQueueIsRefused() {
+        WaitingRooms rooms = WaitingRooms.getInstance();
+        rooms.open(ROOM, 0.01, 1L);
+        Assertions.assertFalse(rooms.join(null, SHOWTIME_ID, new MockHttpSession(), null, "10.0.1.1").isFull());
+
+        WaitingRooms.Admission refused = rooms.join(null, SHOWTIME_ID, new MockHttpSession(), null, "10.0.1.2");
+        Assertions.assertFalse(refused.isAllowed());
+        Assertions.assertTrue(refused.isFull());
+    }
+
+    @Test
+    public void testAdmittedTokenIsExchangedForAPass() throws InterruptedException {
+        WaitingRooms rooms = WaitingRooms.getInstance();
+        rooms.open(ROOM, 0.01, null);
+        MockHttpSession session = new MockHttpSession();
+        String waitToken = rooms.join(null, SHOWTIME_ID, session, null, "10.0.2.1").getToken();
+
+        rooms.open(ROOM, 1000, null);
+        Thread.sleep(20);
+        WaitingRooms.Admission admission = rooms.check(null, SHOWTIME_ID, session, waitToken);
+        Assertions.assertTrue(admission.isAllowed());
+        Assertions.assertEquals(QueueTokens.PASS, QueueTokens.parse(admission.getToken()).getType());
+        Assertions.assertEquals(1L, issued(), "The waiting number should have been used, not a new one");
+    }
+
+    @Test
+    public void testStaleWaitTokenGoesToTheBack() throws InterruptedException {
+        WaitingRooms rooms = WaitingRooms.getInstance();
+        rooms.configure(AdmissionStore.forMode("memory"), 0, 50_000);
+        rooms.open(ROOM, 0.01, null);
+        MockHttpSession session = new MockHttpSession();
+        String waitToken = rooms.join(null, SHOWTIME_ID, session, null, "10.0.3.1").getToken();
+
+        // Its number is admitted, and with no admission time the pass it earned has already run out
+        rooms.open(ROOM, 1000, null);
+        Thread.sleep(20);
+        Assertions.assertFalse(rooms.check(null, SHOWTIME_ID, session, waitToken).isQueued(),
+                "check() must not hand a stale token's holder a new number");
+        Assertions.assertEquals(1L, issued());
+
+        rooms.join(null, SHOWTIME_ID, session, waitToken, "10.0.3.1");
+        Assertions.assertEquals(2L, issued(), "A stale token should take a new number on join");
+    }
+
+    @Test
+    public void testCheckNeverTakesANumber() {
+        WaitingRooms rooms = WaitingRooms.getInstance();
+        rooms.open(ROOM, 0.01, null);
+        rooms.join(null, SHOWTIME_ID, new MockHttpSession(), null, "10.0.4.1");
+
+        // A client that drops its cookies arrives with a new session every time
+        for (int i = 0; i < 20; i++) {
+            WaitingRooms.Admission admission = rooms.check(null, SHOWTIME_ID, new MockHttpSession(), null);
+            Assertions.assertFalse(admission.isAllowed());
+            Assertions.assertFalse(admission.isQueued());
+            Assertions.assertNull(admission.getToken());
+            Assertions.assertEquals(2, admission.getPosition(), "Where a new joiner would be");
+        }
+        Assertions.assertEquals(1L, issued());
+    }
+
+    @Test
+    public void testJoinsAreLimitedPerClient() {
+        WaitingRooms rooms = WaitingRooms.getInstance();
+        rooms.open(ROOM, 0.01, null);
+        for (int i = 0; i < WaitingRooms.MAX_JOINS_PER_CLIENT; i++) {
+            rooms.join(null, SHOWTIME_ID, new MockHttpSession(), null, "10.0.5.1");
+        }
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> rooms.join(null, SHOWTIME_ID, new MockHttpSession(), null, "10.0.5.1"));
+
+        // Coming back with its own token doesn't count as a join
+        MockHttpSession session = new MockHttpSession();
+        rooms.join(null, SHOWTIME_ID, session, null, "10.0.5.2");
+        for (int i = 0; i < WaitingRooms.MAX_JOINS_PER_CLIENT * 2; i++) {
+            Assertions.assertTrue(rooms.join(null, SHOWTIME_ID, session, null, "10.0.5.2").isQueued());
+        }
+        Assertions.assertEquals((long) WaitingRooms.MAX_JOINS_PER_CLIENT + 1, issued());
+    }
+
+    private static Object issued() {
+        for (Map<String, Object> room : WaitingRooms.getInstance().list()) {
+            if (ROOM.equals(room.get("roomKey"))) return room.get("issued");
+        }
+        return null;
+    }
+}